@@ -0,0 +1,353 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves the project operations over HTTP as JSON, so several people and scripts can use the system
+ * at once. Each request borrows its own pooled connection and runs through {@link ProjectCommands}.
+ *
+ * <ul>
+ *   <li>{@code GET /projects?after=&limit=} lists projects by number; {@code POST /projects} adds
+ *       one from a JSON body
+ *   <li>{@code GET /projects/search?query=&offset=&limit=} searches by number, name or address;
+ *       add {@code archive=true} and an optional {@code year} to search archived projects instead
+ *   <li>{@code GET /projects/incomplete} and {@code GET /projects/overdue} list by deadline, paged
+ *       with {@code after} (the last project number of the previous page) and {@code limit}
+ *   <li>{@code GET /projects/report} totals outstanding balances (see {@link FinancialReport})
+ *   <li>{@code GET}, {@code PATCH} (name, deadline) and {@code DELETE /projects/{id}}
+ *   <li>{@code POST /projects/{id}/finalise} with an optional completion_date
+ *   <li>{@code POST /projects/finalise} and {@code POST /projects/delete} apply to every project
+ *       matching the filter in the body (see {@link BulkProjectOperations})
+ * </ul>
+ *
+ * <p>The server listens on {@code poised.http.bind}, the loopback address unless set otherwise.
+ * Reads need no credentials. Requests that change projects ({@code POST}, {@code PATCH}, {@code
+ * PUT}, {@code DELETE}) must send {@code Authorization: Bearer <token>} matching {@code
+ * poised.http.token}; when no token is set they are refused, so the API is read-only.
+ *
+ * <p>Requests run on virtual threads when the JVM supports them, and otherwise on a fixed pool of
+ * {@code poised.http.threads} platform threads. Either way the connection pool bounds how many hit
+ * the database at once; a request that cannot get a connection in time gets a 503. Database and
+ * internal failures are logged on stderr and answered with a generic 500 body.
+ */
+public class ApiServer {
+  private static final int WORKER_THREADS = Integer.getInteger("poised.http.threads", 64);
+  private static final int BACKLOG = Integer.getInteger("poised.http.backlog", 1024);
+  private static final int MAX_BODY_BYTES = 64 * 1024;
+  private static final String BIND = System.getProperty("poised.http.bind", "127.0.0.1");
+  /** The bearer token write requests must carry; blank refuses every write. */
+  private static final String TOKEN = System.getProperty("poised.http.token", "").trim();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private ApiServer(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Loads the in-memory indexes, starts following changes made by other instances through {@link
+   * ChangeFeed} and, if turned on, archiving old projects through {@link ProjectArchive}, and
+   * starts serving requests.
+   *
+   * @param port The TCP port to listen on.
+   * @return The running server.
+   * @throws IOException If the address cannot be resolved or the port bound.
+   * @throws SQLException If the indexes cannot be loaded.
+   */
+  public static ApiServer start(int port) throws IOException, SQLException {
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      ProjectManager.addListener(ProjectSearchIndex.getInstance());
+      ProjectManager.addListener(DeadlineIndex.getInstance());
+      ChangeFeed feed = ChangeFeed.getInstance();
+      if (ChangeFeed.ENABLED) {
+        ChangeFeed.prune(conn);
+        feed.seekToEnd(conn);
+      }
+      ProjectSearchIndex.getInstance().rebuild(conn);
+      DeadlineIndex.getInstance().rebuild(conn);
+      feed.addSubscriber(ProjectManager::applyChanges);
+      feed.start();
+    }
+    ProjectArchive.getInstance().start();
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getByName(BIND), port), BACKLOG);
+    ExecutorService executor = WorkerThreads.newExecutor("http-worker", WORKER_THREADS);
+    server.setExecutor(executor);
+    server.createContext("/projects", ApiServer::handle);
+    server.start();
+    return new ApiServer(server, executor);
+  }
+
+  /**
+   * Returns the port the server is listening on.
+   *
+   * @return The bound port.
+   */
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Returns the address the server is listening on.
+   *
+   * @return The bound host name or address, as configured.
+   */
+  public String host() {
+    return server.getAddress().getHostString();
+  }
+
+  /**
+   * Returns whether write requests are accepted, which needs {@code poised.http.token} to be set.
+   *
+   * @return Whether a token is configured.
+   */
+  public boolean acceptsWrites() {
+    return !TOKEN.isEmpty();
+  }
+
+  /**
+   * Stops accepting requests, waits up to the given time for running ones, and stops the workers.
+   *
+   * @param delaySeconds How long to wait for requests in progress.
+   */
+  public void stop(int delaySeconds) {
+    server.stop(delaySeconds);
+    executor.shutdownNow();
+    ChangeFeed.getInstance().stop();
+    ProjectArchive.getInstance().stop();
+  }
+
+  private static void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      int status = 200;
+      String body;
+      try {
+        authorize(exchange);
+        Route route = route(exchange);
+        if (route.command().equals("add")) {
+          status = 201;
+        }
+        Metrics.Timing timing = Metrics.start("http." + route.command());
+        try (Connection conn = DatabaseConnectionManager.connect()) {
+          body = ProjectCommands.execute(conn, route.command(), route.args());
+        } finally {
+          timing.stop();
+        }
+      } catch (AccessDeniedException e) {
+        status = e.status();
+        if (status == 401) {
+          exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+        }
+        body = error(e.getMessage());
+      } catch (ProjectCommands.NotFoundException e) {
+        status = 404;
+        body = error(e.getMessage());
+      } catch (MethodNotAllowedException e) {
+        status = 405;
+        exchange.getResponseHeaders().set("Allow", e.getMessage());
+        body = error("Method not allowed; use " + e.getMessage());
+      } catch (IllegalArgumentException e) {
+        status = 400;
+        body = error(e.getMessage());
+      } catch (SQLTimeoutException e) {
+        status = 503;
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        logFailure(exchange, e);
+        body = error("Server busy; try again shortly");
+      } catch (SQLException e) {
+        status = 500;
+        logFailure(exchange, e);
+        body = error("Database error");
+      } catch (RuntimeException e) {
+        status = 500;
+        logFailure(exchange, e);
+        e.printStackTrace();
+        body = error("Internal error");
+      }
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    }
+  }
+
+  /**
+   * Writes a failed request and its cause to stderr. Clients only get a generic message, since
+   * driver and runtime messages can reveal SQL, table names or internals.
+   */
+  private static void logFailure(HttpExchange exchange, Exception e) {
+    System.err.println(
+        "HTTP " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed: " + e);
+  }
+
+  /** Lets reads through and checks that anything else carries the configured token. */
+  private static void authorize(HttpExchange exchange) {
+    String method = exchange.getRequestMethod();
+    if (method.equals("GET") || method.equals("HEAD")) {
+      return;
+    }
+    if (TOKEN.isEmpty()) {
+      throw new AccessDeniedException(
+          403, "Write requests are disabled; start the server with -Dpoised.http.token set");
+    }
+    String header = exchange.getRequestHeaders().getFirst("Authorization");
+    String presented =
+        header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)
+            ? header.substring(7).trim()
+            : "";
+    // Compared in constant time, so response timing does not reveal how much of a guess matched.
+    if (!MessageDigest.isEqual(
+        presented.getBytes(StandardCharsets.UTF_8), TOKEN.getBytes(StandardCharsets.UTF_8))) {
+      throw new AccessDeniedException(401, "Missing or wrong bearer token");
+    }
+  }
+
+  /** Maps the request method and path onto a command and its arguments. */
+  private static Route route(HttpExchange exchange) throws IOException {
+    String method = exchange.getRequestMethod();
+    String path = exchange.getRequestURI().getPath().substring("/projects".length());
+    String[] segments = path.replaceAll("^/+|/+$", "").split("/+");
+    Map<String, String> args = parseQuery(exchange.getRequestURI().getRawQuery());
+
+    if (segments[0].isEmpty()) {
+      return switch (method) {
+        case "GET" -> new Route("list", args);
+        case "POST" -> new Route("add", readBody(exchange));
+        default -> throw new MethodNotAllowedException("GET, POST");
+      };
+    }
+    if (segments.length == 1 && !segments[0].matches("\\d+")) {
+      return switch (segments[0]) {
+        case "search", "report" -> {
+          requireMethod(method, "GET");
+          yield new Route(segments[0], args);
+        }
+        case "incomplete", "overdue" -> {
+          requireMethod(method, "GET");
+          args.put("filter", segments[0]);
+          yield new Route("list", args);
+        }
+        case "finalise", "delete" -> {
+          requireMethod(method, "POST");
+          yield new Route(segments[0] + "_matching", readBody(exchange));
+        }
+        default -> throw unknownPath(exchange);
+      };
+    }
+    if (segments.length > 2 || !segments[0].matches("\\d+")) {
+      throw unknownPath(exchange);
+    }
+
+    String id = segments[0];
+    if (segments.length == 2) {
+      if (!segments[1].equals("finalise")) {
+        throw unknownPath(exchange);
+      }
+      requireMethod(method, "POST");
+      return new Route("finalise", withId(readBody(exchange), id));
+    }
+    return switch (method) {
+      case "GET" -> new Route("get", withId(args, id));
+      case "PATCH", "PUT" -> new Route("update", withId(readBody(exchange), id));
+      case "DELETE" -> new Route("delete", withId(args, id));
+      default -> throw new MethodNotAllowedException("GET, PATCH, PUT, DELETE");
+    };
+  }
+
+  private static ProjectCommands.NotFoundException unknownPath(HttpExchange exchange) {
+    return new ProjectCommands.NotFoundException(
+        "Unknown path: " + exchange.getRequestURI().getPath());
+  }
+
+  private static Map<String, String> withId(Map<String, String> args, String id) {
+    if (args.containsKey("id") && !args.get("id").equals(id)) {
+      throw new IllegalArgumentException("The id in the body does not match the path");
+    }
+    args.put("id", id);
+    return args;
+  }
+
+  private static void requireMethod(String method, String allowed) {
+    if (!method.equals(allowed)) {
+      throw new MethodNotAllowedException(allowed);
+    }
+  }
+
+  private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+      if (bytes.length > MAX_BODY_BYTES) {
+        throw new IllegalArgumentException("Request body is larger than " + MAX_BODY_BYTES);
+      }
+      String text = new String(bytes, StandardCharsets.UTF_8);
+      return text.isBlank() ? new LinkedHashMap<>() : Json.parseFlatObject(text);
+    }
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> args = new LinkedHashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return args;
+    }
+    for (String pair : rawQuery.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      int equals = pair.indexOf('=');
+      String name = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      args.put(
+          URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return args;
+  }
+
+  private static String error(String message) {
+    return "{\"error\":" + Json.quote(message) + "}";
+  }
+
+  private record Route(String command, Map<String, String> args) {}
+
+  /** Thrown when a request may not change projects; carries the status to answer with. */
+  private static class AccessDeniedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    AccessDeniedException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+
+    int status() {
+      return status;
+    }
+  }
+
+  /** Thrown when a path exists but not for the request method; the message lists the methods. */
+  private static class MethodNotAllowedException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    MethodNotAllowedException(String allowed) {
+      super(allowed);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a script of project commands without prompting, for scheduled maintenance and scripting.
+ *
+ * <p>Each line holds a {@link ProjectCommands} command followed by {@code key=value} arguments.
+ * Values containing spaces are wrapped in double quotes, and a doubled quote inside them stands for
+ * a literal quote. Blank lines and lines starting with {@code #} are skipped. For example:
+ *
+ * <pre>
+ * update id=12 deadline=2025-03-31
+ * finalise id=14 completion_date=2025-01-20
+ * search query="main road" limit=5
+ * </pre>
+ *
+ * <p>Every command prints one JSON object on its own line, followed by a summary line. All commands
+ * share one connection. In transactional mode they run in a single transaction that is committed
+ * only if every command succeeds; otherwise the first failure rolls everything back and stops the
+ * script.
+ */
+public class BatchRunner {
+
+  private BatchRunner() {}
+
+  /**
+   * Runs every command in a script.
+   *
+   * @param script The script to read.
+   * @param out Where to write the results.
+   * @param transactional Whether to run the whole script as one transaction.
+   * @return Whether every command succeeded (and, in transactional mode, was committed).
+   * @throws IOException If the script cannot be read.
+   * @throws SQLException If no connection can be opened or the transaction cannot be ended.
+   */
+  public static boolean run(BufferedReader script, PrintWriter out, boolean transactional)
+      throws IOException, SQLException {
+    long start = System.nanoTime();
+    int commands = 0;
+    int failed = 0;
+    // Without a transaction each command is committed as it runs.
+    boolean committed = !transactional;
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      conn.setAutoCommit(!transactional);
+      String line;
+      int lineNumber = 0;
+      while ((line = script.readLine()) != null) {
+        lineNumber++;
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+          continue;
+        }
+        commands++;
+        if (!runLine(conn, lineNumber, trimmed, out)) {
+          failed++;
+          if (transactional) {
+            break;
+          }
+        }
+      }
+
+      if (transactional) {
+        if (failed == 0) {
+          conn.commit();
+          committed = true;
+        } else {
+          conn.rollback();
+          // Listeners saw the rolled-back writes, so reload them from what is actually stored.
+          PersonDirectory.all().values().forEach(PersonDirectory::invalidate);
+          ProjectCache.getInstance().clear();
+          ProjectSearchIndex.getInstance().rebuild(conn);
+          DeadlineIndex.getInstance().rebuild(conn);
+        }
+      }
+    }
+
+    out.printf(
+        "{\"summary\":{\"commands\":%d,\"failed\":%d,\"transactional\":%b,\"committed\":%b,"
+            + "\"elapsed_ms\":%d}}%n",
+        commands,
+        failed,
+        transactional,
+        committed,
+        (System.nanoTime() - start) / 1_000_000);
+    out.flush();
+    return failed == 0;
+  }
+
+  /** Runs one script line and writes its result. Returns whether it succeeded. */
+  private static boolean runLine(Connection conn, int lineNumber, String line, PrintWriter out) {
+    StringBuilder result = new StringBuilder(256);
+    result.append("{\"line\":").append(lineNumber).append(",\"command\":");
+    String command = line.split("\\s", 2)[0];
+    Json.appendString(result, command);
+    try {
+      String json = ProjectCommands.execute(conn, command, parseArguments(line, command.length()));
+      result.append(",\"ok\":true,\"result\":").append(json).append('}');
+      out.println(result);
+      return true;
+    } catch (SQLException | IllegalArgumentException e) {
+      result.append(",\"ok\":false,\"error\":");
+      Json.appendString(result, e.getMessage()).append('}');
+      out.println(result);
+      return false;
+    }
+  }
+
+  /**
+   * Parses the {@code key=value} arguments that follow the command on a line.
+   *
+   * @param line The script line.
+   * @param from Where the arguments start.
+   * @return The arguments, in the order given.
+   * @throws IllegalArgumentException If an argument is malformed or repeated.
+   */
+  static Map<String, String> parseArguments(String line, int from) {
+    Map<String, String> args = new LinkedHashMap<>();
+    int i = from;
+    while (i < line.length()) {
+      if (Character.isWhitespace(line.charAt(i))) {
+        i++;
+        continue;
+      }
+      int equals = line.indexOf('=', i);
+      int space = indexOfWhitespace(line, i);
+      if (equals < 0 || equals > space) {
+        throw new IllegalArgumentException(
+            "Expected key=value: " + line.substring(i, Math.min(space, line.length())));
+      }
+      String key = line.substring(i, equals);
+      if (key.isEmpty()) {
+        throw new IllegalArgumentException("Missing argument name before '='");
+      }
+      StringBuilder value = new StringBuilder();
+      i = equals + 1;
+      if (i < line.length() && line.charAt(i) == '"') {
+        i++;
+        while (true) {
+          if (i >= line.length()) {
+            throw new IllegalArgumentException("Unterminated quoted value for " + key);
+          }
+          char c = line.charAt(i++);
+          if (c != '"') {
+            value.append(c);
+          } else if (i < line.length() && line.charAt(i) == '"') {
+            value.append('"');
+            i++;
+          } else {
+            break;
+          }
+        }
+      } else {
+        int end = indexOfWhitespace(line, i);
+        value.append(line, i, end);
+        i = end;
+      }
+      if (args.put(key, value.toString()) != null) {
+        throw new IllegalArgumentException("Repeated argument: " + key);
+      }
+    }
+    return args;
+  }
+
+  private static int indexOfWhitespace(String line, int from) {
+    for (int i = from; i < line.length(); i++) {
+      if (Character.isWhitespace(line.charAt(i))) {
+        return i;
+      }
+    }
+    return line.length();
+  }
+}
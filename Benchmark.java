@@ -0,0 +1,364 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Measures the main {@link ProjectManager} code paths against a seeded database and writes the
+ * results as JSON in the same layout as JMH's {@code -rf json} output.
+ *
+ * <p>By default it runs against an in-memory H2 database in MySQL mode, which must be on the class
+ * path:
+ *
+ * <pre>
+ * java -cp .:h2.jar Benchmark --projects 50000 --out results.json
+ * </pre>
+ *
+ * <p>Set {@code -Dpoised.db.url} to measure another database. Because the benchmark inserts and
+ * finalises projects, it refuses to seed anything but an embedded H2 database unless {@code
+ * --force} is given.
+ *
+ * <p>Console output produced by the menu paths is discarded while measuring, so the figures include
+ * building each table but not the terminal's drawing speed.
+ */
+public class Benchmark {
+  private static final String EMBEDDED_URL =
+      "jdbc:h2:mem:poised;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+  private static final String[] PERSON_TABLES = {"Customer", "Architect", "ProjectManager"};
+  private static final String[] BUILDING_TYPES = {
+    "House", "Apartment", "Office", "Warehouse", "School", "Clinic"
+  };
+  private static final String[] STREETS = {
+    "Main Road", "Church Street", "Long Street", "Kloof Street", "Beach Road", "Oak Avenue"
+  };
+  private static final String[] SURNAMES = {
+    "Smith", "Dlamini", "Naidoo", "van der Merwe", "Botha", "Mokoena", "Pillay", "Nkosi"
+  };
+  /** Projects read per call by the repository benchmarks. */
+  private static final int PAGE = 50;
+
+  private final int projects;
+  private final int people;
+  private final int warmupIterations;
+  private final int iterations;
+  private final int opsPerIteration;
+  private final Random random = new Random(42);
+  private final Deque<Integer> unfinalised = new ArrayDeque<>();
+
+  private Benchmark(int projects, int people, int warmup, int iterations, int opsPerIteration) {
+    this.projects = projects;
+    this.people = people;
+    this.warmupIterations = warmup;
+    this.iterations = iterations;
+    this.opsPerIteration = opsPerIteration;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int projects = 10_000;
+    int people = 500;
+    int warmup = 3;
+    int iterations = 10;
+    int ops = 20;
+    Path out = null;
+    String only = null;
+    boolean force = false;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--projects" -> projects = Integer.parseInt(args[++i]);
+        case "--people" -> people = Integer.parseInt(args[++i]);
+        case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+        case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+        case "--ops" -> ops = Integer.parseInt(args[++i]);
+        case "--out" -> out = Path.of(args[++i]);
+        case "--only" -> only = args[++i];
+        case "--force" -> force = true;
+        default -> {
+          System.err.println(
+              "Usage: java Benchmark [--projects N] [--people N] [--warmup N] [--iterations N]"
+                  + " [--ops N] [--only name] [--out file.json] [--force]");
+          System.exit(2);
+        }
+      }
+    }
+
+    // Must be set before DatabaseConnectionManager reads it.
+    if (System.getProperty("poised.db.url") == null) {
+      System.setProperty("poised.db.url", EMBEDDED_URL);
+    }
+    String url = DatabaseConnectionManager.getUrl();
+    if (!url.startsWith("jdbc:h2:") && !force) {
+      System.err.println("Refusing to write benchmark data to " + url + " without --force.");
+      System.exit(2);
+    }
+
+    Benchmark benchmark = new Benchmark(projects, people, warmup, iterations, ops);
+    try {
+      String json = benchmark.run(only);
+      if (out == null) {
+        System.out.println(json);
+      } else {
+        Files.writeString(out, json, StandardCharsets.UTF_8);
+        System.out.println("Results written to " + out);
+      }
+    } finally {
+      DatabaseConnectionManager.shutdown();
+    }
+  }
+
+  /** Seeds the database, runs every benchmark and returns the JSON results. */
+  private String run(String only) throws SQLException, IOException {
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      long start = System.nanoTime();
+      seed(conn);
+      System.err.printf(
+          "Seeded %d projects and %d people per table in %d ms%n",
+          projects, people, (System.nanoTime() - start) / 1_000_000);
+
+      ProjectManager.addListener(ProjectSearchIndex.getInstance());
+      ProjectManager.addListener(DeadlineIndex.getInstance());
+      ProjectSearchIndex.getInstance().rebuild(conn);
+      DeadlineIndex.getInstance().rebuild(conn);
+      for (DeadlineIndex.Entry entry : DeadlineIndex.getInstance().incomplete()) {
+        unfinalised.add(entry.projectId());
+      }
+
+      ProjectRepository jdbc = new JdbcProjectRepository(conn);
+      ProjectRepository memory = InMemoryProjectRepository.copyOf(jdbc);
+      Deque<Integer> unfinalisedInMemory = new ArrayDeque<>(unfinalised);
+
+      List<Case> cases =
+          new ArrayList<>(
+              List.of(
+                  new Case("viewAllProjects", () -> ProjectManager.viewAllProjects(conn, null)),
+                  new Case(
+                      "searchProject", () -> ProjectManager.searchProject(jdbc, searchInput())),
+                  new Case(
+                      "viewOverdueProjects", () -> ProjectManager.viewOverdueProjects(conn, null)),
+                  new Case("insertProject", () -> ProjectManager.insertProject(conn, draft())),
+                  new Case("finaliseProject", () -> finaliseNext(conn))));
+      cases.addAll(repositoryCases("jdbc", jdbc, unfinalised));
+      cases.addAll(repositoryCases("memory", memory, unfinalisedInMemory));
+
+      StringBuilder json = new StringBuilder("[\n");
+      boolean first = true;
+      for (Case c : cases) {
+        if (only != null && !c.name().equals(only)) {
+          continue;
+        }
+        System.err.println("Running " + c.name());
+        double[] samples = measure(c.operation());
+        if (!first) {
+          json.append(",\n");
+        }
+        appendResult(json, c.name(), samples);
+        first = false;
+      }
+      return json.append("\n]\n").toString();
+    }
+  }
+
+  /** Runs the warmup and measured iterations, returning each measured call's time in microseconds. */
+  private double[] measure(Operation operation) throws SQLException, IOException {
+    PrintStream console = System.out;
+    double[] samples = new double[iterations * opsPerIteration];
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      for (int i = 0; i < warmupIterations * opsPerIteration; i++) {
+        operation.run();
+      }
+      for (int i = 0; i < samples.length; i++) {
+        long start = System.nanoTime();
+        operation.run();
+        samples[i] = (System.nanoTime() - start) / 1_000.0;
+      }
+    } finally {
+      System.setOut(console);
+    }
+    return samples;
+  }
+
+  private void appendResult(StringBuilder json, String name, double[] samples) {
+    double[] sorted = samples.clone();
+    Arrays.sort(sorted);
+    double sum = 0;
+    for (double sample : sorted) {
+      sum += sample;
+    }
+    double mean = sum / sorted.length;
+    double variance = 0;
+    for (double sample : sorted) {
+      variance += (sample - mean) * (sample - mean);
+    }
+    // Half-width of the 99.9% confidence interval of the mean, as JMH reports it.
+    double error =
+        sorted.length < 2
+            ? 0
+            : 3.291 * Math.sqrt(variance / (sorted.length - 1) / sorted.length);
+
+    json.append("  {\n");
+    json.append("    \"benchmark\": ").append(Json.quote("Benchmark." + name)).append(",\n");
+    json.append("    \"mode\": \"sample\",\n");
+    json.append("    \"threads\": 1,\n");
+    json.append("    \"warmupIterations\": ").append(warmupIterations).append(",\n");
+    json.append("    \"measurementIterations\": ").append(iterations).append(",\n");
+    json.append("    \"params\": {\"projects\": \"").append(projects);
+    json.append("\", \"people\": \"").append(people).append("\"},\n");
+    json.append("    \"primaryMetric\": {\n");
+    json.append(String.format("      \"score\": %.3f,%n", mean));
+    json.append(String.format("      \"scoreError\": %.3f,%n", error));
+    json.append("      \"scoreUnit\": \"us/op\",\n");
+    json.append("      \"scorePercentiles\": {");
+    double[] percentiles = {0, 50, 90, 99, 99.9, 100};
+    for (int i = 0; i < percentiles.length; i++) {
+      int index = (int) Math.ceil(percentiles[i] / 100 * sorted.length) - 1;
+      json.append(i == 0 ? "" : ", ");
+      json.append(String.format("\"%.1f\": %.3f", percentiles[i], sorted[Math.max(0, index)]));
+    }
+    json.append("}\n    }\n  }");
+  }
+
+  /** Creates the schema if needed and fills it with deterministic sample data. */
+  private void seed(Connection conn) throws SQLException {
+    SchemaMigrator.migrate(conn);
+
+    conn.setAutoCommit(false);
+    try {
+      for (String table : PERSON_TABLES) {
+        try (PreparedStatement pstmt =
+            conn.prepareStatement(
+                "INSERT INTO "
+                    + table
+                    + " (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)")) {
+          for (int i = 1; i <= people; i++) {
+            String surname = SURNAMES[i % SURNAMES.length];
+            pstmt.setString(1, "Person" + i);
+            pstmt.setString(2, surname);
+            pstmt.setString(3, table.toLowerCase(Locale.ROOT) + i + "@example.com");
+            pstmt.setString(4, String.format("082%07d", i));
+            pstmt.setString(5, i + " " + STREETS[i % STREETS.length]);
+            pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+        }
+      }
+
+      LocalDate today = LocalDate.now();
+      try (PreparedStatement pstmt =
+          conn.prepareStatement(
+              "INSERT INTO Project (name, building_type, address, erf_number, total_fee,"
+                  + " amount_paid, deadline, finalised, completion_date, customer_id,"
+                  + " architect_id, project_manager_id, structural_engineer)"
+                  + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+        for (int i = 1; i <= projects; i++) {
+          Project project = draft();
+          boolean finalised = random.nextInt(10) < 3;
+          LocalDate deadline = today.plusDays(random.nextInt(730) - 365);
+          pstmt.setString(1, project.buildingType() + " " + SURNAMES[i % SURNAMES.length] + i);
+          pstmt.setString(2, project.buildingType());
+          pstmt.setString(3, project.address());
+          pstmt.setString(4, project.erfNumber());
+          pstmt.setDouble(5, project.totalFee());
+          pstmt.setDouble(6, project.amountPaid());
+          pstmt.setDate(7, Date.valueOf(deadline));
+          pstmt.setBoolean(8, finalised);
+          pstmt.setDate(9, finalised ? Date.valueOf(deadline) : null);
+          pstmt.setInt(10, project.customerId());
+          pstmt.setInt(11, project.architectId());
+          pstmt.setInt(12, project.projectManagerId());
+          pstmt.setString(13, project.structuralEngineer());
+          pstmt.addBatch();
+          if (i % 1_000 == 0) {
+            pstmt.executeBatch();
+          }
+        }
+        pstmt.executeBatch();
+      }
+      conn.commit();
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
+
+  /** Returns a random project to insert, with a blank name so one is generated. */
+  private Project draft() {
+    return new Project(
+        0,
+        "",
+        BUILDING_TYPES[random.nextInt(BUILDING_TYPES.length)],
+        (1 + random.nextInt(999)) + " " + STREETS[random.nextInt(STREETS.length)],
+        "ERF-" + random.nextInt(100_000),
+        50_000 + random.nextInt(950_000),
+        random.nextInt(50_000),
+        LocalDate.now().plusDays(random.nextInt(365)),
+        false,
+        null,
+        1 + random.nextInt(people),
+        1 + random.nextInt(people),
+        1 + random.nextInt(people),
+        "Engineer " + random.nextInt(100));
+  }
+
+  /**
+   * Returns the same list, search, overdue and finalise calls against one repository, named with a
+   * prefix, so the database and in-memory stores can be compared directly.
+   */
+  private List<Case> repositoryCases(
+      String prefix, ProjectRepository repository, Deque<Integer> toFinalise) {
+    return List.of(
+        new Case(prefix + "List", () -> repository.list(random.nextInt(projects), PAGE)),
+        new Case(prefix + "Search", () -> repository.search(searchTerm(), 0, PAGE)),
+        new Case(
+            prefix + "Overdue",
+            () -> repository.overdue(LocalDate.now(), random.nextInt(projects), PAGE)),
+        new Case(
+            prefix + "Finalise",
+            () -> repository.finalise(nextUnfinalised(toFinalise), LocalDate.now())));
+  }
+
+  /** Answers the search prompt with a random term and stops after the first page. */
+  private Scanner searchInput() {
+    return new Scanner(searchTerm() + "\nq\n");
+  }
+
+  private String searchTerm() {
+    return switch (random.nextInt(3)) {
+      case 0 -> SURNAMES[random.nextInt(SURNAMES.length)];
+      case 1 -> STREETS[random.nextInt(STREETS.length)];
+      default -> String.valueOf(1 + random.nextInt(projects));
+    };
+  }
+
+  private void finaliseNext(Connection conn) throws SQLException {
+    ProjectManager.finaliseProject(conn, nextUnfinalised(unfinalised), LocalDate.now());
+  }
+
+  private static int nextUnfinalised(Deque<Integer> queue) {
+    Integer id = queue.poll();
+    if (id == null) {
+      throw new IllegalStateException("Ran out of unfinalised projects; seed more with --projects");
+    }
+    return id;
+  }
+
+  @FunctionalInterface
+  private interface Operation {
+    void run() throws SQLException, IOException;
+  }
+
+  private record Case(String name, Operation operation) {}
+}
@@ -0,0 +1,625 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * Finalises or deletes every project that matches a filter, as one transaction.
+ *
+ * <p>A filter combines any of: a list of project IDs, an ID range, a deadline before a date, a
+ * building type and a customer; a project must match every criterion given. {@link #preview}
+ * counts the matches, and when deleting the customers, architects and project managers that no
+ * project would refer to any more, without changing anything. {@link #apply} locks the matching
+ * rows, changes them with a single set-based statement and, when deleting and asked to, removes
+ * those people. If anything fails, or the matching rows change between locking and writing, the
+ * whole operation is rolled back.
+ */
+public class BulkProjectOperations {
+  /** The most IDs a filter may list; use a range for more. */
+  public static final int MAX_IDS = 1_000;
+
+  private static final int SAMPLE_SIZE = 20;
+
+  private static final List<PersonReference> PERSON_REFERENCES =
+      List.of(
+          new PersonReference("Customer", "customer_id"),
+          new PersonReference("Architect", "architect_id"),
+          new PersonReference("ProjectManager", "project_manager_id"));
+
+  private BulkProjectOperations() {}
+
+  /**
+   * Prompts for an action and a filter, shows how many projects match, and applies the action once
+   * the user confirms.
+   *
+   * @param conn The database connection.
+   * @param scanner The scanner to read user input.
+   */
+  public static void bulkUpdateProjects(Connection conn, Scanner scanner) {
+    Action action;
+    try {
+      action = Action.parse(InputValidator.getValidString("Enter Action (finalise or delete)"));
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      return;
+    }
+    System.out.println("Leave a criterion blank to ignore it; projects must match all the others.");
+    Map<String, String> args = new HashMap<>();
+    String ids = InputValidator.getValidString("Enter Project IDs (e.g. 3,7,12 or 10-20)", true);
+    int dash = ids.indexOf('-');
+    if (dash > 0) {
+      args.put("from_id", ids.substring(0, dash));
+      args.put("to_id", ids.substring(dash + 1));
+    } else {
+      args.put("ids", ids);
+    }
+    args.put(
+        "deadline_before", InputValidator.getValidDate("Enter Deadline Before (YYYY-MM-DD)", true));
+    args.put("building_type", InputValidator.getValidString("Enter Building Type", true));
+    args.put("customer_id", InputValidator.getValidString("Enter Customer ID", true));
+
+    try {
+      Filter filter = Filter.parse(args);
+      Result preview = preview(conn, action, filter);
+      System.out.println(preview.describe());
+      if (preview.matched() == 0) {
+        return;
+      }
+      LocalDate completionDate = null;
+      if (action == Action.FINALISE) {
+        completionDate =
+            LocalDate.parse(InputValidator.getValidDate("Enter Completion Date"));
+      }
+      String confirm =
+          InputValidator.getValidString(
+              "Type 'yes' to " + action.verb() + " " + preview.matched() + " project(s)", true);
+      if (!confirm.equalsIgnoreCase("yes")) {
+        System.out.println("Nothing changed.");
+        return;
+      }
+      boolean removePeople = false;
+      if (preview.people() > 0) {
+        removePeople =
+            InputValidator.getValidString(
+                    "Type 'yes' to also delete the "
+                        + preview.people()
+                        + " person record(s) no other project refers to",
+                    true)
+                .equalsIgnoreCase("yes");
+      }
+      System.out.println(apply(conn, action, filter, completionDate, removePeople).describe());
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+    } catch (SQLException e) {
+      System.out.println("Error updating projects; nothing was changed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Counts the projects an action would change, and for a delete the people that no project would
+   * refer to afterwards, without changing anything.
+   *
+   * @param conn The database connection.
+   * @param action The action to preview.
+   * @param filter The projects to match.
+   * @return The number of matches, the first few of their IDs and the people left unreferenced.
+   * @throws SQLException If the query fails.
+   */
+  public static Result preview(Connection conn, Action action, Filter filter) throws SQLException {
+    List<Object> params = new ArrayList<>();
+    String where = filter.where(action, params);
+    int matched;
+    try (PreparedStatement pstmt =
+        conn.prepareStatement("SELECT COUNT(*) FROM Project WHERE " + where)) {
+      bind(pstmt, params);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        rs.next();
+        matched = rs.getInt(1);
+      }
+    }
+    List<Integer> sample = new ArrayList<>();
+    if (matched > 0) {
+      try (PreparedStatement pstmt =
+          conn.prepareStatement(
+              "SELECT id FROM Project WHERE " + where + " ORDER BY id LIMIT " + SAMPLE_SIZE)) {
+        bind(pstmt, params);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            sample.add(rs.getInt(1));
+          }
+        }
+      }
+    }
+    int people = action == Action.DELETE && matched > 0 ? countOrphans(conn, filter) : 0;
+    return new Result(action, true, matched, sample, people, false);
+  }
+
+  /**
+   * Finalises or deletes every matching project. If the connection is in auto-commit mode the
+   * operation runs in its own transaction; otherwise it joins the caller's, which must then commit
+   * or roll back.
+   *
+   * @param conn The database connection.
+   * @param action The action to apply.
+   * @param filter The projects to match.
+   * @param completionDate The completion date when finalising; ignored when deleting.
+   * @param removePeople Whether a delete also removes the customers, architects and project
+   *     managers that no project refers to any more; ignored when finalising.
+   * @return The number of projects changed, the first few of their IDs, and how many people were
+   *     left unreferenced and whether they were removed.
+   * @throws SQLException If any statement fails; nothing is changed.
+   */
+  public static Result apply(
+      Connection conn,
+      Action action,
+      Filter filter,
+      LocalDate completionDate,
+      boolean removePeople)
+      throws SQLException {
+    if (action == Action.FINALISE && completionDate == null) {
+      throw new IllegalArgumentException("A completion date is needed to finalise projects");
+    }
+    boolean deleting = action == Action.DELETE;
+    boolean ownTransaction = conn.getAutoCommit();
+    conn.setAutoCommit(false);
+    List<Integer> ids = new ArrayList<>();
+    int changed;
+    int people = 0;
+    boolean peopleRemoved = deleting && removePeople;
+    try {
+      List<Set<Integer>> references = new ArrayList<>();
+      for (int i = 0; i < PERSON_REFERENCES.size(); i++) {
+        references.add(new LinkedHashSet<>());
+      }
+      lock(conn, action, filter, ids, deleting ? references : null);
+      if (deleting && !removePeople && !ids.isEmpty()) {
+        people = countOrphans(conn, filter);
+      }
+      changed = deleting ? delete(conn, filter) : finalise(conn, filter, completionDate);
+      if (changed != ids.size()) {
+        throw new SQLException(
+            ids.size() + " project(s) matched but " + changed + " changed; try again");
+      }
+      if (peopleRemoved) {
+        boolean archive = SchemaMigrator.hasTable(conn, "project_archive");
+        for (int i = 0; i < PERSON_REFERENCES.size(); i++) {
+          people += removeOrphans(conn, PERSON_REFERENCES.get(i), references.get(i), archive);
+        }
+      }
+      ChangeFeed.record(
+          conn, deleting ? ChangeFeed.Type.DELETED : ChangeFeed.Type.SAVED, ids);
+      if (ownTransaction) {
+        conn.commit();
+      }
+    } catch (SQLException | RuntimeException e) {
+      if (ownTransaction) {
+        conn.rollback();
+      }
+      throw e;
+    } finally {
+      if (ownTransaction) {
+        conn.setAutoCommit(true);
+      }
+    }
+
+    if (deleting) {
+      for (int id : ids) {
+        ProjectManager.notifyDeleted(id);
+      }
+    } else {
+      try {
+        ProjectManager.reloadAll(conn, ids);
+      } catch (SQLException e) {
+        // The change is already committed, so it is reported as done rather than as a failure.
+        System.err.println(
+            "Warning: finalised projects could not be read back for the indexes: "
+                + e.getMessage());
+      }
+    }
+    if (peopleRemoved && people > 0) {
+      PersonDirectory.all().values().forEach(PersonDirectory::invalidate);
+    }
+    List<Integer> sample = new ArrayList<>(ids.subList(0, Math.min(SAMPLE_SIZE, ids.size())));
+    return new Result(action, false, changed, sample, people, peopleRemoved);
+  }
+
+  /**
+   * Locks the matching rows so they cannot change before they are written, collecting their IDs
+   * and, when {@code references} is given, the people each refers to.
+   */
+  private static void lock(
+      Connection conn,
+      Action action,
+      Filter filter,
+      List<Integer> ids,
+      List<Set<Integer>> references)
+      throws SQLException {
+    List<Object> params = new ArrayList<>();
+    String where = filter.where(action, params);
+    String columns = "id";
+    for (PersonReference reference : PERSON_REFERENCES) {
+      columns += ", " + reference.column();
+    }
+    try (PreparedStatement pstmt =
+        conn.prepareStatement(
+            "SELECT " + columns + " FROM Project WHERE " + where + " ORDER BY id FOR UPDATE")) {
+      bind(pstmt, params);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          ids.add(rs.getInt(1));
+          if (references != null) {
+            for (int i = 0; i < PERSON_REFERENCES.size(); i++) {
+              references.get(i).add(rs.getInt(i + 2));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts the people that the matching projects refer to and that no other project, live or
+   * archived, does.
+   */
+  private static int countOrphans(Connection conn, Filter filter) throws SQLException {
+    boolean archive = SchemaMigrator.hasTable(conn, "project_archive");
+    int orphans = 0;
+    for (PersonReference reference : PERSON_REFERENCES) {
+      List<Object> params = new ArrayList<>();
+      String where = filter.where(Action.DELETE, params);
+      // Unqualified columns in the filter refer to the innermost Project in each subquery.
+      String sql =
+          "SELECT COUNT(*) FROM "
+              + reference.table()
+              + " p WHERE p.id IN (SELECT "
+              + reference.column()
+              + " FROM Project WHERE "
+              + where
+              + ") AND NOT EXISTS (SELECT 1 FROM Project q WHERE q."
+              + reference.column()
+              + " = p.id AND ("
+              + where
+              + ") IS NOT TRUE)"
+              + (archive
+                  ? " AND NOT EXISTS (SELECT 1 FROM project_archive a WHERE a."
+                      + reference.column()
+                      + " = p.id)"
+                  : "");
+      List<Object> both = new ArrayList<>(params);
+      both.addAll(params);
+      try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        bind(pstmt, both);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          rs.next();
+          orphans += rs.getInt(1);
+        }
+      }
+    }
+    return orphans;
+  }
+
+  private static int finalise(Connection conn, Filter filter, LocalDate completionDate)
+      throws SQLException {
+    List<Object> params = new ArrayList<>();
+    params.add(Date.valueOf(completionDate));
+    String where = filter.where(Action.FINALISE, params);
+    try (PreparedStatement pstmt =
+        conn.prepareStatement(
+            "UPDATE Project SET finalised = TRUE, completion_date = ? WHERE " + where)) {
+      bind(pstmt, params);
+      return pstmt.executeUpdate();
+    }
+  }
+
+  private static int delete(Connection conn, Filter filter) throws SQLException {
+    List<Object> params = new ArrayList<>();
+    String where = filter.where(Action.DELETE, params);
+    try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Project WHERE " + where)) {
+      bind(pstmt, params);
+      return pstmt.executeUpdate();
+    }
+  }
+
+  /**
+   * Deletes the people in one table that the deleted projects referred to and that no remaining
+   * project refers to, including archived projects when the archive table exists.
+   */
+  private static int removeOrphans(
+      Connection conn, PersonReference reference, Set<Integer> ids, boolean archive)
+      throws SQLException {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    int removed = 0;
+    String column = reference.column();
+    try (PreparedStatement pstmt =
+        conn.prepareStatement(
+            "DELETE FROM "
+                + reference.table()
+                + " WHERE id = ? AND NOT EXISTS (SELECT 1 FROM Project WHERE "
+                + column
+                + " = ?)"
+                + (archive
+                    ? " AND NOT EXISTS (SELECT 1 FROM project_archive WHERE " + column + " = ?)"
+                    : ""))) {
+      for (int id : ids) {
+        pstmt.setInt(1, id);
+        pstmt.setInt(2, id);
+        if (archive) {
+          pstmt.setInt(3, id);
+        }
+        pstmt.addBatch();
+      }
+      for (int count : pstmt.executeBatch()) {
+        removed += Math.max(0, count);
+      }
+    }
+    return removed;
+  }
+
+  private static void bind(PreparedStatement pstmt, List<Object> params) throws SQLException {
+    for (int i = 0; i < params.size(); i++) {
+      pstmt.setObject(i + 1, params.get(i));
+    }
+  }
+
+  /** What to do with the matching projects. */
+  public enum Action {
+    FINALISE("finalise"),
+    DELETE("delete");
+
+    private final String verb;
+
+    Action(String verb) {
+      this.verb = verb;
+    }
+
+    /**
+     * Returns the action with the given name.
+     *
+     * @param name {@code finalise} or {@code delete}, in any case.
+     * @return The action.
+     * @throws IllegalArgumentException If the name is neither.
+     */
+    public static Action parse(String name) {
+      return switch (name.trim().toLowerCase(Locale.ROOT)) {
+        case "finalise", "finalize" -> FINALISE;
+        case "delete" -> DELETE;
+        default -> throw new IllegalArgumentException("Unknown action: " + name);
+      };
+    }
+
+    /**
+     * Returns the action's name as used in prompts and JSON.
+     *
+     * @return {@code finalise} or {@code delete}.
+     */
+    public String verb() {
+      return verb;
+    }
+  }
+
+  /**
+   * The projects an operation applies to. Null or empty criteria are ignored; at least one must be
+   * given.
+   *
+   * @param ids Project IDs to match.
+   * @param fromId The lowest project ID to match.
+   * @param toId The highest project ID to match.
+   * @param deadlineBefore Match projects due before this date.
+   * @param buildingType Match projects of this building type.
+   * @param customerId Match projects for this customer.
+   */
+  public record Filter(
+      List<Integer> ids,
+      Integer fromId,
+      Integer toId,
+      LocalDate deadlineBefore,
+      String buildingType,
+      Integer customerId) {
+
+    /** The argument names {@link #parse} reads. */
+    public static final Set<String> ARGUMENTS =
+        Set.of("ids", "from_id", "to_id", "deadline_before", "building_type", "customer_id");
+
+    /**
+     * Creates a filter, checking that it limits the projects somehow.
+     *
+     * @throws IllegalArgumentException If no criterion is given, too many IDs are listed, or the
+     *     range is empty.
+     */
+    public Filter {
+      ids = ids == null ? List.of() : List.copyOf(ids);
+      buildingType = buildingType == null || buildingType.isBlank() ? null : buildingType.trim();
+      if (ids.isEmpty()
+          && fromId == null
+          && toId == null
+          && deadlineBefore == null
+          && buildingType == null
+          && customerId == null) {
+        throw new IllegalArgumentException("Give at least one criterion to match projects by");
+      }
+      if (ids.size() > MAX_IDS) {
+        throw new IllegalArgumentException(
+            "At most " + MAX_IDS + " IDs can be listed; use from_id and to_id instead");
+      }
+      if (fromId != null && toId != null && fromId > toId) {
+        throw new IllegalArgumentException("from_id is greater than to_id");
+      }
+    }
+
+    /**
+     * Builds a filter from named arguments: {@code ids} (comma-separated), {@code from_id}, {@code
+     * to_id}, {@code deadline_before} (YYYY-MM-DD), {@code building_type} and {@code customer_id}.
+     * Other names are ignored, and blank values are treated as absent.
+     *
+     * @param args The arguments, by name.
+     * @return The filter.
+     * @throws IllegalArgumentException If a value is invalid or no criterion is given.
+     */
+    public static Filter parse(Map<String, String> args) {
+      List<Integer> ids = new ArrayList<>();
+      String list = args.getOrDefault("ids", "");
+      for (String id : list.split(",")) {
+        if (!id.isBlank()) {
+          ids.add(integer("ids", id));
+        }
+      }
+      String deadline = value(args, "deadline_before");
+      if (deadline != null && !InputValidator.isValidDate(deadline)) {
+        throw new IllegalArgumentException(
+            "deadline_before must be a date in YYYY-MM-DD format: " + deadline);
+      }
+      return new Filter(
+          ids,
+          optionalInteger(args, "from_id"),
+          optionalInteger(args, "to_id"),
+          deadline == null ? null : LocalDate.parse(deadline),
+          value(args, "building_type"),
+          optionalInteger(args, "customer_id"));
+    }
+
+    /** Returns the WHERE condition for an action, adding its parameters to the list. */
+    private String where(Action action, List<Object> params) {
+      List<String> conditions = new ArrayList<>();
+      if (!ids.isEmpty()) {
+        conditions.add("id IN (" + "?, ".repeat(ids.size() - 1) + "?)");
+        params.addAll(ids);
+      }
+      if (fromId != null) {
+        conditions.add("id >= ?");
+        params.add(fromId);
+      }
+      if (toId != null) {
+        conditions.add("id <= ?");
+        params.add(toId);
+      }
+      if (deadlineBefore != null) {
+        conditions.add("deadline < ?");
+        params.add(Date.valueOf(deadlineBefore));
+      }
+      if (buildingType != null) {
+        conditions.add("building_type = ?");
+        params.add(buildingType);
+      }
+      if (customerId != null) {
+        conditions.add("customer_id = ?");
+        params.add(customerId);
+      }
+      if (action == Action.FINALISE) {
+        conditions.add("finalised = FALSE");
+      }
+      return String.join(" AND ", conditions);
+    }
+
+    private static String value(Map<String, String> args, String name) {
+      String value = args.get(name);
+      return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Integer optionalInteger(Map<String, String> args, String name) {
+      String value = value(args, name);
+      return value == null ? null : integer(name, value);
+    }
+
+    private static int integer(String name, String value) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(name + " must be a whole number: " + value);
+      }
+    }
+  }
+
+  /**
+   * A person table and the Project column that refers to it.
+   *
+   * @param table The person table.
+   * @param column The column in Project holding the person's ID.
+   */
+  private record PersonReference(String table, String column) {}
+
+  /**
+   * The outcome of a preview or an applied operation.
+   *
+   * @param action The action.
+   * @param dryRun Whether nothing was changed.
+   * @param matched The number of projects matched (and, unless a dry run, changed).
+   * @param sampleIds The first few matching project IDs, lowest first.
+   * @param people The number of people no project refers to once the matches are deleted.
+   * @param peopleRemoved Whether those people were deleted too.
+   */
+  public record Result(
+      Action action,
+      boolean dryRun,
+      int matched,
+      List<Integer> sampleIds,
+      int people,
+      boolean peopleRemoved) {
+
+    /**
+     * Describes the outcome in a sentence for the console.
+     *
+     * @return The description.
+     */
+    public String describe() {
+      String ids =
+          sampleIds.isEmpty()
+              ? ""
+              : " (" + joinIds(", ") + (matched > sampleIds.size() ? ", ..." : "") + ")";
+      if (action != Action.DELETE) {
+        return matched + " project(s) " + (dryRun ? "match" : action.verb() + "d") + ids + ".";
+      }
+      if (dryRun) {
+        return matched
+            + " project(s) match"
+            + ids
+            + "; "
+            + people
+            + " person record(s) would be left with no project.";
+      }
+      return matched
+          + " project(s) deleted"
+          + ids
+          + "; "
+          + people
+          + (peopleRemoved ? " unused people removed." : " unused people kept.");
+    }
+
+    /**
+     * Returns the outcome as a JSON object.
+     *
+     * @return The JSON text.
+     */
+    public String toJson() {
+      StringBuilder json = new StringBuilder("{\"action\":");
+      json.append(Json.quote(action.verb()));
+      json.append(",\"dry_run\":").append(dryRun);
+      json.append(",\"matched\":").append(matched);
+      json.append(",\"sample_ids\":[").append(joinIds(",")).append(']');
+      if (action == Action.DELETE) {
+        json.append(",\"people_unreferenced\":").append(people);
+        json.append(",\"people_removed\":").append(peopleRemoved);
+      }
+      return json.append('}').toString();
+    }
+
+    private String joinIds(String separator) {
+      StringBuilder ids = new StringBuilder();
+      for (int id : sampleIds) {
+        ids.append(ids.length() == 0 ? "" : separator).append(id);
+      }
+      return ids.toString();
+    }
+  }
+}
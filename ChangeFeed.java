@@ -0,0 +1,302 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets several copies of the application share one database without their in-memory views going
+ * stale.
+ *
+ * <p>Every write to the {@code Project} table also adds a row to {@code project_change}, in the
+ * same transaction, naming the project and the process that changed it. Each process polls that
+ * table for rows newer than the last sequence number it has seen and hands the changes made by
+ * other processes to its {@link Subscriber}s, which re-read only those projects.
+ *
+ * <p>Sequence numbers are handed out when a row is inserted, not when its transaction commits, so a
+ * slow transaction can commit a lower number after a higher one has been read. Numbers skipped over
+ * are therefore looked for again on each poll for {@code poised.changes.gapSeconds}, after which
+ * they are taken to belong to transactions that rolled back.
+ *
+ * <p>Set {@code poised.changes=false} to neither record nor poll, e.g. when only one copy of the
+ * application runs or the database account may not create the {@code project_change} table.
+ */
+public class ChangeFeed {
+  /** Whether writes are recorded and the feed can be polled. */
+  static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("poised.changes", "true"));
+
+  private static final long POLL_MILLIS = Long.getLong("poised.changes.pollMillis", 2_000);
+  private static final int BATCH_SIZE = Integer.getInteger("poised.changes.batchSize", 500);
+  private static final long GAP_NANOS =
+      TimeUnit.SECONDS.toNanos(Long.getLong("poised.changes.gapSeconds", 30));
+  private static final Duration RETENTION =
+      Duration.ofDays(Long.getLong("poised.changes.retentionDays", 7));
+  /** Larger jumps are left untracked; they come from rolled-back bulk writes, not slow commits. */
+  private static final int MAX_GAP = 1_000;
+
+  /** Identifies the changes this process made, so they are not applied a second time. */
+  private static final String ORIGIN = UUID.randomUUID().toString();
+
+  private static final ChangeFeed INSTANCE = new ChangeFeed();
+
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private ScheduledExecutorService poller;
+
+  private long lastSeq;
+  /** Sequence numbers skipped over, and when each was first missed. */
+  private TreeMap<Long, Long> gaps = new TreeMap<>();
+
+  private long polls;
+  private long received;
+  private long failures;
+  private String lastError;
+
+  private ChangeFeed() {}
+
+  /**
+   * Returns the shared feed.
+   *
+   * @return The application-wide change feed.
+   */
+  public static ChangeFeed getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Records that a project was added, changed or deleted. Call on the connection that made the
+   * change, before it commits, so the record is kept or discarded with the change itself.
+   *
+   * @param conn The database connection that wrote the project.
+   * @param type What happened to the project.
+   * @param projectId The project.
+   * @throws SQLException If the record cannot be written.
+   */
+  public static void record(Connection conn, Type type, int projectId) throws SQLException {
+    record(conn, type, List.of(projectId));
+  }
+
+  /**
+   * Records the same change to several projects in one batch.
+   *
+   * @param conn The database connection that wrote the projects.
+   * @param type What happened to the projects.
+   * @param projectIds The projects.
+   * @throws SQLException If the records cannot be written.
+   */
+  public static void record(Connection conn, Type type, Collection<Integer> projectIds)
+      throws SQLException {
+    if (!ENABLED || projectIds.isEmpty()) {
+      return;
+    }
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.INSERT_PROJECT_CHANGE);
+    for (int projectId : projectIds) {
+      pstmt.setInt(1, projectId);
+      pstmt.setString(2, type.name());
+      pstmt.setString(3, ORIGIN);
+      pstmt.addBatch();
+    }
+    pstmt.executeBatch();
+  }
+
+  /**
+   * Registers a subscriber to be given every change made by other processes.
+   *
+   * @param subscriber The subscriber to add.
+   */
+  public void addSubscriber(Subscriber subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Skips every change recorded so far. Call before loading a fresh view of the projects, so
+   * changes made while it loads are still delivered.
+   *
+   * @param conn The database connection.
+   * @throws SQLException If the feed cannot be read.
+   */
+  public synchronized void seekToEnd(Connection conn) throws SQLException {
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_LAST_PROJECT_CHANGE);
+    try (ResultSet rs = pstmt.executeQuery()) {
+      lastSeq = rs.next() ? rs.getLong(1) : 0;
+    }
+    gaps = new TreeMap<>();
+  }
+
+  /**
+   * Reads the changes recorded since the last poll and gives those made by other processes to the
+   * subscribers. If a subscriber fails, the same changes are delivered again on the next poll.
+   *
+   * @param conn The database connection.
+   * @return The number of changes delivered.
+   * @throws SQLException If the feed cannot be read or a subscriber fails.
+   */
+  public synchronized int poll(Connection conn) throws SQLException {
+    polls++;
+    long now = System.nanoTime();
+    TreeMap<Long, Long> pending = new TreeMap<>(gaps);
+    pending.values().removeIf(missedAt -> now - missedAt > GAP_NANOS);
+    long last = lastSeq;
+    long after = pending.isEmpty() ? last : pending.firstKey() - 1;
+    List<Change> changes = new ArrayList<>();
+
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PROJECT_CHANGES);
+    int rows;
+    do {
+      pstmt.setLong(1, after);
+      pstmt.setInt(2, BATCH_SIZE);
+      rows = 0;
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          rows++;
+          long seq = rs.getLong("seq");
+          after = seq;
+          if (seq <= last) {
+            if (pending.remove(seq) == null) {
+              continue; // Already delivered.
+            }
+          } else {
+            if (seq - last - 1 <= MAX_GAP) {
+              for (long missing = last + 1; missing < seq; missing++) {
+                pending.put(missing, now);
+              }
+            }
+            last = seq;
+          }
+          if (!ORIGIN.equals(rs.getString("origin"))) {
+            Timestamp changedAt = rs.getTimestamp("changed_at");
+            changes.add(
+                new Change(
+                    seq,
+                    rs.getInt("project_id"),
+                    Type.valueOf(rs.getString("change_type")),
+                    changedAt == null ? null : changedAt.toInstant()));
+          }
+        }
+      }
+    } while (rows == BATCH_SIZE);
+
+    if (!changes.isEmpty()) {
+      for (Subscriber subscriber : subscribers) {
+        subscriber.changesReceived(conn, changes);
+      }
+    }
+    lastSeq = last;
+    gaps = pending;
+    received += changes.size();
+    return changes.size();
+  }
+
+  /**
+   * Deletes change records older than {@code poised.changes.retentionDays}.
+   *
+   * @param conn The database connection.
+   * @return The number of records deleted.
+   * @throws SQLException If the delete fails.
+   */
+  public static int prune(Connection conn) throws SQLException {
+    PreparedStatement pstmt =
+        StatementRegistry.prepare(conn, SqlQuery.DELETE_PROJECT_CHANGES_BEFORE);
+    pstmt.setTimestamp(1, Timestamp.from(Instant.now().minus(RETENTION)));
+    return pstmt.executeUpdate();
+  }
+
+  /**
+   * Starts polling in the background every {@code poised.changes.pollMillis}, each time on a
+   * connection borrowed from the pool. Failures are counted and the poll is retried next time.
+   */
+  public synchronized void start() {
+    stop();
+    if (!ENABLED) {
+      return;
+    }
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "change-feed");
+              thread.setDaemon(true);
+              return thread;
+            });
+    poller.scheduleWithFixedDelay(
+        this::pollInBackground, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops polling, if the feed is being polled. */
+  public synchronized void stop() {
+    if (poller != null) {
+      poller.shutdownNow();
+      poller = null;
+    }
+  }
+
+  /**
+   * Returns a one-line summary of the feed.
+   *
+   * @return Whether it is polled, the last sequence number seen and the poll counters.
+   */
+  public synchronized String describeStats() {
+    if (!ENABLED) {
+      return "off";
+    }
+    return String.format(
+        "%s, at #%d, %d polls, %d changes from other instances, %d gaps pending, %d failures%s",
+        poller == null ? "not polling" : "polling every " + POLL_MILLIS + " ms",
+        lastSeq,
+        polls,
+        received,
+        gaps.size(),
+        failures,
+        lastError == null ? "" : " (last: " + lastError + ")");
+  }
+
+  private void pollInBackground() {
+    // An exception escaping a scheduled task would cancel every later poll.
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      poll(conn);
+    } catch (SQLException | RuntimeException e) {
+      synchronized (this) {
+        failures++;
+        lastError = e.getMessage();
+      }
+    }
+  }
+
+  /** What happened to a project. */
+  public enum Type {
+    SAVED,
+    DELETED
+  }
+
+  /**
+   * One recorded change.
+   *
+   * @param seq The change's position in the feed.
+   * @param projectId The project that changed.
+   * @param type What happened to it.
+   * @param changedAt When the change was recorded, by the database's clock.
+   */
+  public record Change(long seq, int projectId, Type type, Instant changedAt) {}
+
+  /** Receives the changes made by other processes. */
+  @FunctionalInterface
+  public interface Subscriber {
+    /**
+     * Called from the polling thread with each batch of new changes, oldest first.
+     *
+     * @param conn The connection the feed was read on, for re-reading the changed projects.
+     * @param changes The changes.
+     * @throws SQLException If the changed projects cannot be read.
+     */
+    void changesReceived(Connection conn, List<Change> changes) throws SQLException;
+  }
+}
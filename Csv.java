@@ -0,0 +1,122 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reads and writes records of comma-separated values. */
+public class Csv {
+  /**
+   * Most physical lines one record may span, so a stray quote cannot swallow the rest of a file.
+   */
+  public static final int MAX_RECORD_LINES = 100;
+
+  private Csv() {}
+
+  /**
+   * Reads one CSV record, which is one line unless a quoted field contains line breaks; in that
+   * case lines are joined with {@code \n} until the field is closed, so values written by {@link
+   * #appendField} read back whole. If the quote is still open after {@link #MAX_RECORD_LINES} lines
+   * or at the end of the input, the lines read so far are returned and {@link #parseLine} rejects
+   * them.
+   *
+   * @param reader The reader to take lines from.
+   * @return The record without its final line break, or {@code null} at the end of the input.
+   * @throws IOException If reading fails.
+   */
+  public static String readRecord(BufferedReader reader) throws IOException {
+    String line = reader.readLine();
+    if (line == null || !quoteOpenAfter(line, false)) {
+      return line;
+    }
+    StringBuilder record = new StringBuilder(line);
+    boolean quoted = true;
+    for (int lines = 1; quoted && lines < MAX_RECORD_LINES; lines++) {
+      line = reader.readLine();
+      if (line == null) {
+        break;
+      }
+      record.append('\n').append(line);
+      quoted = quoteOpenAfter(line, quoted);
+    }
+    return record.toString();
+  }
+
+  /** Returns whether a quoted field is still open after {@code line}, given its state before. */
+  private static boolean quoteOpenAfter(String line, boolean quoted) {
+    for (int i = 0; i < line.length(); i++) {
+      if (line.charAt(i) == '"') {
+        quoted = !quoted;
+      }
+    }
+    return quoted;
+  }
+
+  /**
+   * Splits one CSV record into fields. Fields may be wrapped in double quotes, in which case commas
+   * and line breaks are kept and a doubled quote stands for a literal quote.
+   *
+   * @param line The record to split, as returned by {@link #readRecord}.
+   * @return The field values, with surrounding quotes removed.
+   * @throws IllegalArgumentException If a quoted field is not closed.
+   */
+  public static List<String> parseLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("Unterminated quoted field");
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * Appends a value as a CSV field, quoting it only if it contains a comma, quote or line break.
+   *
+   * @param out The builder to append to.
+   * @param value The field value; {@code null} is written as an empty field.
+   * @return The builder, for chaining.
+   */
+  public static StringBuilder appendField(StringBuilder out, String value) {
+    if (value == null) {
+      return out;
+    }
+    boolean needsQuotes = false;
+    for (int i = 0; i < value.length() && !needsQuotes; i++) {
+      char c = value.charAt(i);
+      needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!needsQuotes) {
+      return out.append(value);
+    }
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        out.append('"');
+      }
+      out.append(c);
+    }
+    return out.append('"');
+  }
+}
@@ -0,0 +1,307 @@
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shows on one screen how many projects are open and overdue, the most overdue projects, those due
+ * in the coming week, each project manager's open projects and the fees still to be paid. Like the
+ * {@link FinancialReport}, fee totals leave out archived projects.
+ *
+ * <p>Each panel is one query and none depends on another, so they run at the same time: the first
+ * on the caller's connection and the rest on connections borrowed from the pool, on virtual threads
+ * where the JVM has them. The screen takes as long as the slowest query rather than their sum. A
+ * query is given {@code poised.dashboard.timeoutMillis} to finish; a panel that runs over or fails
+ * says so and the other panels are shown as usual.
+ */
+public class Dashboard {
+  private static final long TIMEOUT_MILLIS = Long.getLong("poised.dashboard.timeoutMillis", 5_000);
+  /** Rows shown in each list panel. */
+  private static final int ROWS = Integer.getInteger("poised.dashboard.rows", 5);
+  private static final int DUE_SOON_DAYS = 7;
+
+  /** Runs the panels after the first; created on first use and kept for later dashboards. */
+  private static ExecutorService workers;
+
+  private Dashboard() {}
+
+  /**
+   * Loads every panel and prints them.
+   *
+   * @param conn The database connection, used for the first panel.
+   */
+  public static void viewDashboard(Connection conn) {
+    LocalDate today = LocalDate.now();
+    long start = System.nanoTime();
+    Map<Panel, Result> results = load(conn, today);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    System.out.println("\n=== Dashboard for " + today + " ===");
+    Result summary = results.get(Panel.SUMMARY);
+    if (summary.failed()) {
+      System.out.println("Open projects: " + summary.problem());
+    } else {
+      long[] counts = (long[]) summary.rows().get(0);
+      System.out.printf(
+          "Open projects: %,d   Overdue: %,d   Due in the next %d days: %,d%n",
+          counts[0], counts[1], DUE_SOON_DAYS, counts[2]);
+    }
+    Result outstanding = results.get(Panel.OUTSTANDING);
+    if (outstanding.failed()) {
+      System.out.println("Outstanding fees: " + outstanding.problem());
+    } else {
+      Object[] totals = (Object[]) outstanding.rows().get(0);
+      BigDecimal fees = (BigDecimal) totals[1];
+      BigDecimal paid = (BigDecimal) totals[2];
+      System.out.printf(
+          "Outstanding fees: %,.2f on %,d projects (%,.2f billed, %,.2f paid on live projects)%n",
+          fees.subtract(paid), (Long) totals[0], fees, paid);
+    }
+
+    printProjects(results.get(Panel.OVERDUE), "Most Overdue", "Days Late", today);
+    printProjects(
+        results.get(Panel.DUE_SOON),
+        "Due in the Next " + DUE_SOON_DAYS + " Days",
+        "Days Left",
+        today);
+
+    System.out.println("\n--- Open Projects by Project Manager ---");
+    Result workload = results.get(Panel.WORKLOAD);
+    if (workload.failed()) {
+      System.out.println(workload.problem());
+    } else {
+      TableWriter table =
+          TableWriter.toConsole(
+              new String[] {"Project Manager", "Open", "Overdue"}, new int[] {30, 9, 9});
+      table.writeHeader();
+      for (Object row : workload.rows()) {
+        table.writeRow((Object[]) row);
+      }
+      table.flush();
+    }
+
+    Panel slowest = Panel.SUMMARY;
+    for (Panel panel : Panel.values()) {
+      if (results.get(panel).millis() > results.get(slowest).millis()) {
+        slowest = panel;
+      }
+    }
+    System.out.printf(
+        "%nLoaded %d panels in %d ms; the slowest, %s, took %d ms.%n",
+        results.size(), elapsedMillis, slowest.title(), results.get(slowest).millis());
+  }
+
+  /**
+   * Runs every panel's query at the same time and waits for them, at most {@code
+   * poised.dashboard.timeoutMillis} in all.
+   *
+   * @param conn The database connection, used for the first panel.
+   * @param today The date deadlines are measured from.
+   * @return Each panel's rows, or why it has none.
+   */
+  static Map<Panel, Result> load(Connection conn, LocalDate today) {
+    Panel[] all = Panel.values();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+    ExecutorService executor = workers(all.length - 1);
+    List<Future<Result>> pending = new ArrayList<>();
+    for (int i = 1; i < all.length; i++) {
+      Panel panel = all[i];
+      pending.add(
+          executor.submit(
+              () -> {
+                try (Connection borrowed = DatabaseConnectionManager.connect()) {
+                  return run(borrowed, panel, today);
+                }
+              }));
+    }
+    Map<Panel, Result> results = new EnumMap<>(Panel.class);
+    results.put(all[0], runCaught(conn, all[0], today));
+    for (int i = 1; i < all.length; i++) {
+      results.put(all[i], await(pending.get(i - 1), deadline));
+    }
+    return results;
+  }
+
+  private static Result runCaught(Connection conn, Panel panel, LocalDate today) {
+    try {
+      return run(conn, panel, today);
+    } catch (SQLException e) {
+      return Result.failed("(error: " + e.getMessage() + ")", 0);
+    }
+  }
+
+  private static Result run(Connection conn, Panel panel, LocalDate today) throws SQLException {
+    long start = System.nanoTime();
+    Date now = Date.valueOf(today);
+    Date dueBy = Date.valueOf(today.plusDays(DUE_SOON_DAYS + 1));
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, panel.query());
+    pstmt.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(TIMEOUT_MILLIS)));
+    try {
+      return new Result(
+          query(pstmt, panel, now, dueBy),
+          null,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } finally {
+      // The statement is cached for the connection, so the timeout would otherwise stay on it.
+      pstmt.setQueryTimeout(0);
+    }
+  }
+
+  private static List<Object> query(PreparedStatement pstmt, Panel panel, Date now, Date dueBy)
+      throws SQLException {
+    switch (panel) {
+      case SUMMARY -> {
+        pstmt.setDate(1, now);
+        pstmt.setDate(2, now);
+        pstmt.setDate(3, dueBy);
+      }
+      case OVERDUE, WORKLOAD -> {
+        pstmt.setDate(1, now);
+        pstmt.setInt(2, ROWS);
+      }
+      case DUE_SOON -> {
+        pstmt.setDate(1, now);
+        pstmt.setDate(2, dueBy);
+        pstmt.setInt(3, ROWS);
+      }
+      case OUTSTANDING -> {}
+    }
+    List<Object> rows = new ArrayList<>();
+    try (ResultSet rs = pstmt.executeQuery()) {
+      while (rs.next()) {
+        rows.add(read(rs, panel));
+      }
+    }
+    return rows;
+  }
+
+  private static Object read(ResultSet rs, Panel panel) throws SQLException {
+    return switch (panel) {
+      case SUMMARY ->
+          new long[] {rs.getLong("open_projects"), rs.getLong("overdue"), rs.getLong("due_soon")};
+      case OVERDUE, DUE_SOON -> {
+        Date deadline = rs.getDate("deadline");
+        yield new Object[] {rs.getInt("id"), rs.getString("name"), deadline.toLocalDate()};
+      }
+      case WORKLOAD -> {
+        String label;
+        if (rs.getObject("person_id") == null) {
+          label = "(none)";
+        } else {
+          String firstName = rs.getString("first_name");
+          label =
+              firstName == null
+                  ? "#" + rs.getInt("person_id")
+                  : firstName + " " + rs.getString("last_name");
+        }
+        yield new Object[] {label, rs.getLong("projects"), rs.getLong("overdue")};
+      }
+      case OUTSTANDING ->
+          new Object[] {rs.getLong("owing"), rs.getBigDecimal("fees"), rs.getBigDecimal("paid")};
+    };
+  }
+
+  private static void printProjects(Result result, String title, String days, LocalDate today) {
+    System.out.println("\n--- " + title + " ---");
+    if (result.failed()) {
+      System.out.println(result.problem());
+      return;
+    }
+    if (result.rows().isEmpty()) {
+      System.out.println("None.");
+      return;
+    }
+    TableWriter table =
+        TableWriter.toConsole(
+            new String[] {"ID", "Project Name", "Deadline", days}, new int[] {6, 36, 10, 9});
+    table.writeHeader();
+    for (Object row : result.rows()) {
+      Object[] cells = (Object[]) row;
+      LocalDate deadline = (LocalDate) cells[2];
+      table.writeRow(
+          cells[0], cells[1], deadline, Math.abs(ChronoUnit.DAYS.between(today, deadline)));
+    }
+    table.flush();
+  }
+
+  private static Result await(Future<Result> future, long deadline) {
+    try {
+      return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(false);
+      return Result.failed("(timed out after " + TIMEOUT_MILLIS + " ms)", TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Result.failed("(interrupted)", 0);
+    } catch (ExecutionException e) {
+      return Result.failed("(error: " + e.getCause().getMessage() + ")", 0);
+    }
+  }
+
+  /**
+   * Returns the executor the panels run on, creating it on first use. A query that ran past its
+   * panel's deadline is left to its statement timeout rather than interrupted, since interrupting a
+   * thread inside a JDBC call can break its connection; it then returns the connection as usual.
+   */
+  private static synchronized ExecutorService workers(int threads) {
+    if (workers == null) {
+      workers = WorkerThreads.newExecutor("dashboard", threads);
+    }
+    return workers;
+  }
+
+  /** The parts of the dashboard, each loaded by one query. */
+  enum Panel {
+    SUMMARY("Summary", SqlQuery.DASHBOARD_SUMMARY),
+    OVERDUE("Most Overdue", SqlQuery.DASHBOARD_OVERDUE),
+    DUE_SOON("Due Soon", SqlQuery.DASHBOARD_DUE_SOON),
+    WORKLOAD("Project Managers", SqlQuery.DASHBOARD_WORKLOAD),
+    OUTSTANDING("Outstanding Fees", SqlQuery.DASHBOARD_OUTSTANDING);
+
+    private final String title;
+    private final SqlQuery query;
+
+    Panel(String title, SqlQuery query) {
+      this.title = title;
+      this.query = query;
+    }
+
+    String title() {
+      return title;
+    }
+
+    SqlQuery query() {
+      return query;
+    }
+  }
+
+  /**
+   * One panel's outcome.
+   *
+   * @param rows The rows read, one per line of the panel.
+   * @param problem Why the panel could not be loaded, or {@code null} if it was.
+   * @param millis How long the query took.
+   */
+  record Result(List<Object> rows, String problem, long millis) {
+    static Result failed(String problem, long millis) {
+      return new Result(List.of(), problem, millis);
+    }
+
+    boolean failed() {
+      return problem != null;
+    }
+  }
+}
@@ -0,0 +1,326 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Fills a database with realistic sample projects and people, for reproducing production-scale
+ * behaviour locally.
+ *
+ * <p>Values are skewed the way real registers are: a few surnames, streets and building types are
+ * far more common than the rest, a few customers own most of the projects, deadlines bunch around
+ * today and at month ends, and most past-due projects are finalised. Rows are added in JDBC batches
+ * and committed every {@value #COMMIT_EVERY} projects, and a new database gets its indexes only
+ * after loading. The same seed always produces the same data.
+ *
+ * <p>By default it writes to an H2 database in {@code ./poised-load}, which {@link WorkloadDriver}
+ * also uses; H2 must be on the class path:
+ *
+ * <pre>
+ * java -cp .:h2.jar DataGenerator --projects 1000000
+ * </pre>
+ *
+ * <p>Set {@code -Dpoised.db.url} to fill another database. Anything but H2 needs {@code --force}.
+ */
+public class DataGenerator {
+  /** The database load-testing tools use unless {@code poised.db.url} is set. */
+  static final String LOAD_TEST_URL = "jdbc:h2:./poised-load;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+  static final String[] SURNAMES = {
+    "Dlamini", "Nkosi", "Naidoo", "Smith", "Botha", "Mokoena", "van der Merwe", "Pillay",
+    "Khumalo", "Ndlovu", "Pretorius", "Jacobs", "Mahlangu", "Govender", "Williams", "du Plessis",
+    "Sithole", "Coetzee", "Zulu", "Fourie", "Mthembu", "Steyn", "Molefe", "Kruger"
+  };
+  static final String[] STREETS = {
+    "Main Road", "Church Street", "Long Street", "Oak Avenue", "Beach Road", "Kloof Street",
+    "Voortrekker Road", "Jan Smuts Avenue", "Victoria Road", "High Street", "Station Road",
+    "Nelson Mandela Drive", "Loop Street", "Park Lane", "Bree Street", "Marine Drive"
+  };
+  static final String[] BUILDING_TYPES = {
+    "House", "Apartment", "Townhouse", "Office", "Warehouse", "Retail", "School", "Clinic",
+    "Church", "Factory"
+  };
+  private static final String[] FIRST_NAMES = {
+    "Thabo", "Sipho", "Johan", "Priya", "Lerato", "Anele", "Pieter", "Nomvula", "David", "Ayesha",
+    "Themba", "Karin", "Bongani", "Zanele", "Michael", "Fatima", "Kagiso", "Annelie", "Ravi",
+    "Lindiwe"
+  };
+  private static final String[] PERSON_TABLES = {"Customer", "Architect", "ProjectManager"};
+
+  private static final int BATCH_SIZE = 1_000;
+  private static final int COMMIT_EVERY = 10_000;
+  private static final int MAX_PROJECTS = 5_000_000;
+
+  private final Random random;
+  private final Zipf surnames = new Zipf(SURNAMES.length, 1.1);
+  private final Zipf firstNames = new Zipf(FIRST_NAMES.length, 0.8);
+  private final Zipf streets = new Zipf(STREETS.length, 1.0);
+  private final Zipf buildingTypes = new Zipf(BUILDING_TYPES.length, 1.2);
+  private final LocalDate today = LocalDate.now();
+
+  /**
+   * Creates a generator.
+   *
+   * @param seed The random seed; the same seed gives the same data.
+   */
+  public DataGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  public static void main(String[] args) throws SQLException {
+    int projects = 100_000;
+    int people = -1;
+    long seed = 42;
+    boolean force = false;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--projects" -> projects = Integer.parseInt(args[++i]);
+        case "--people" -> people = Integer.parseInt(args[++i]);
+        case "--seed" -> seed = Long.parseLong(args[++i]);
+        case "--force" -> force = true;
+        default -> {
+          System.err.println(
+              "Usage: java DataGenerator [--projects N] [--people N] [--seed N] [--force]");
+          System.exit(2);
+        }
+      }
+    }
+    if (projects < 1 || projects > MAX_PROJECTS) {
+      System.err.println("--projects must be between 1 and " + MAX_PROJECTS);
+      System.exit(2);
+    }
+    useLocalDatabase(force);
+
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      populate(conn, projects, people < 0 ? peopleFor(projects) : people, seed);
+    } finally {
+      DatabaseConnectionManager.shutdown();
+    }
+  }
+
+  /**
+   * Points the application at {@link #LOAD_TEST_URL} unless {@code poised.db.url} is set, and exits
+   * if the database is not H2 and {@code force} is false, so test data never lands in a real
+   * database by accident. Must be called before the first connection is made.
+   *
+   * @param force Whether to allow databases other than H2.
+   */
+  static void useLocalDatabase(boolean force) {
+    if (System.getProperty("poised.db.url") == null) {
+      System.setProperty("poised.db.url", LOAD_TEST_URL);
+    }
+    String url = DatabaseConnectionManager.getUrl();
+    if (!url.startsWith("jdbc:h2:") && !force) {
+      System.err.println("Refusing to write test data to " + url + " without --force.");
+      System.exit(2);
+    }
+  }
+
+  /**
+   * Creates the schema if needed and adds generated people and projects. On a new database only
+   * the tables are created before loading, and the indexes are built once the rows are in.
+   *
+   * @param conn The database connection; it must be in auto-commit mode.
+   * @param projects The number of projects to add.
+   * @param people The number of people to add to each person table.
+   * @param seed The random seed.
+   * @throws SQLException If the schema cannot be created or an insert fails.
+   */
+  static void populate(Connection conn, int projects, int people, long seed) throws SQLException {
+    SchemaMigrator.migrate(conn, 1);
+    new DataGenerator(seed).generate(conn, projects, people);
+    long start = System.nanoTime();
+    List<String> applied = SchemaMigrator.migrate(conn);
+    if (!applied.isEmpty()) {
+      System.err.printf(
+          "Built indexes in %,d ms (migrations %s)%n",
+          (System.nanoTime() - start) / 1_000_000,
+          String.join("; ", applied));
+    }
+  }
+
+  /**
+   * Returns a sensible number of people per table for a number of projects.
+   *
+   * @param projects The number of projects.
+   * @return One person per 20 projects, and at least 10.
+   */
+  static int peopleFor(int projects) {
+    return Math.max(10, projects / 20);
+  }
+
+  /**
+   * Adds people and projects to the database. Existing rows are kept and new projects refer to the
+   * people added in this run.
+   *
+   * @param conn The database connection; it must be in auto-commit mode.
+   * @param projects The number of projects to add.
+   * @param people The number of people to add to each person table.
+   * @throws SQLException If an insert fails; batches already committed stay.
+   */
+  public void generate(Connection conn, int projects, int people) throws SQLException {
+    long start = System.nanoTime();
+    conn.setAutoCommit(false);
+    try {
+      int[][] personIds = new int[PERSON_TABLES.length][];
+      for (int t = 0; t < PERSON_TABLES.length; t++) {
+        personIds[t] = insertPeople(conn, PERSON_TABLES[t], people);
+      }
+      conn.commit();
+      System.err.printf(
+          "Added %,d people to each of %s%n", people, String.join(", ", PERSON_TABLES));
+
+      // A few customers own many projects; architects and managers are spread more evenly.
+      Zipf customers = new Zipf(people, 1.0);
+      Zipf architects = new Zipf(people, 0.5);
+      Zipf managers = new Zipf(people, 0.8);
+      try (PreparedStatement pstmt =
+          conn.prepareStatement(
+              "INSERT INTO Project (name, building_type, address, erf_number, total_fee,"
+                  + " amount_paid, deadline, finalised, completion_date, customer_id,"
+                  + " architect_id, project_manager_id, structural_engineer)"
+                  + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+        for (int i = 1; i <= projects; i++) {
+          bindProject(
+              pstmt,
+              personIds[0][customers.next(random)],
+              personIds[1][architects.next(random)],
+              personIds[2][managers.next(random)]);
+          pstmt.addBatch();
+          if (i % BATCH_SIZE == 0) {
+            pstmt.executeBatch();
+          }
+          if (i % COMMIT_EVERY == 0) {
+            conn.commit();
+          }
+          if (i % 100_000 == 0) {
+            System.err.printf("  %,d projects%n", i);
+          }
+        }
+        pstmt.executeBatch();
+      }
+      conn.commit();
+    } catch (SQLException | RuntimeException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    System.err.printf(
+        "Added %,d projects in %,d ms (%,.0f rows/s)%n",
+        projects, millis, projects * 1000.0 / Math.max(1, millis));
+  }
+
+  /** Inserts people and returns their IDs. */
+  private int[] insertPeople(Connection conn, String table, int count) throws SQLException {
+    int[] ids = new int[count];
+    int next = 0;
+    try (PreparedStatement pstmt =
+        conn.prepareStatement(
+            "INSERT INTO "
+                + table
+                + " (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS)) {
+      for (int i = 1; i <= count; i++) {
+        String firstName = FIRST_NAMES[firstNames.next(random)];
+        String surname = SURNAMES[surnames.next(random)];
+        pstmt.setString(1, firstName);
+        pstmt.setString(2, surname);
+        pstmt.setString(
+            3,
+            (firstName + "." + surname.replace(" ", "") + i + "@" + table + ".example.com")
+                .toLowerCase(Locale.ROOT));
+        pstmt.setString(
+            4, String.format("0%d%08d", 6 + random.nextInt(3), random.nextInt(100_000_000)));
+        pstmt.setString(5, address());
+        pstmt.addBatch();
+        if (i % BATCH_SIZE == 0 || i == count) {
+          pstmt.executeBatch();
+          try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            while (keys.next() && next < count) {
+              ids[next++] = keys.getInt(1);
+            }
+          }
+        }
+      }
+    }
+    if (next != count) {
+      throw new SQLException("Only " + next + " of " + count + " new " + table + " IDs returned");
+    }
+    return ids;
+  }
+
+  private void bindProject(
+      PreparedStatement pstmt, int customerId, int architectId, int projectManagerId)
+      throws SQLException {
+    String buildingType = BUILDING_TYPES[buildingTypes.next(random)];
+    LocalDate deadline = deadline();
+    // Most past-due work has been signed off; a little future work is finished early.
+    boolean finalised = random.nextDouble() < (deadline.isBefore(today) ? 0.7 : 0.05);
+    // Fees are roughly log-normal around R250,000.
+    double fee = Math.round(250_000 * Math.exp(random.nextGaussian() * 0.8) * 100) / 100.0;
+    double paid =
+        finalised && random.nextDouble() < 0.8
+            ? fee
+            : Math.round(fee * random.nextDouble() * 100) / 100.0;
+
+    pstmt.setString(1, buildingType + " " + SURNAMES[surnames.next(random)]);
+    pstmt.setString(2, buildingType);
+    pstmt.setString(3, address());
+    pstmt.setString(4, "ERF-" + (1 + random.nextInt(200_000)));
+    pstmt.setDouble(5, fee);
+    pstmt.setDouble(6, paid);
+    pstmt.setDate(7, Date.valueOf(deadline));
+    pstmt.setBoolean(8, finalised);
+    pstmt.setDate(
+        9, finalised ? Date.valueOf(deadline.minusDays(random.nextInt(30))) : null);
+    pstmt.setInt(10, customerId);
+    pstmt.setInt(11, architectId);
+    pstmt.setInt(12, projectManagerId);
+    pstmt.setString(13, random.nextInt(4) == 0 ? "" : SURNAMES[surnames.next(random)] + " Eng");
+  }
+
+  /** Returns a deadline within about a year of today, with two in five moved to a month end. */
+  private LocalDate deadline() {
+    long offset = Math.round(random.nextGaussian() * 120);
+    LocalDate deadline = today.plusDays(Math.max(-730, Math.min(730, offset)));
+    return random.nextInt(5) < 2 ? deadline.withDayOfMonth(deadline.lengthOfMonth()) : deadline;
+  }
+
+  private String address() {
+    return (1 + random.nextInt(400)) + " " + STREETS[streets.next(random)];
+  }
+
+  /**
+   * Draws indexes from {@code 0} to {@code n - 1} with Zipf-distributed frequencies: index 0 is the
+   * most common, and index {@code k} is drawn about {@code 1 / (k + 1)^exponent} as often.
+   */
+  static final class Zipf {
+    private final double[] cumulative;
+
+    Zipf(int n, double exponent) {
+      cumulative = new double[n];
+      double sum = 0;
+      for (int k = 0; k < n; k++) {
+        sum += 1 / Math.pow(k + 1, exponent);
+        cumulative[k] = sum;
+      }
+      for (int k = 0; k < n; k++) {
+        cumulative[k] /= sum;
+      }
+    }
+
+    int next(Random random) {
+      int index = Arrays.binarySearch(cumulative, random.nextDouble());
+      return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+  }
+}
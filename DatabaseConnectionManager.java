@@ -1,20 +1,323 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-/** Manages database connections for the PoisePMS application. */
+/**
+ * Manages database connections for the PoisePMS application.
+ *
+ * <p>Connections are kept in a bounded pool. A borrowed connection is validated before it is
+ * handed out, and calling {@link Connection#close()} on it returns it to the pool instead of
+ * closing the underlying socket. Idle connections that have not been used for a while are retired.
+ */
 public class DatabaseConnectionManager {
-  private static final String DB_URL = "jdbc:mysql://localhost:3306/PoisePMS";
-  private static final String USER = "otheruser";
-  private static final String PASS = "swordfish";
+  private static final String DB_URL =
+      System.getProperty("poised.db.url", "jdbc:mysql://localhost:3306/PoisePMS");
+  private static final String USER = System.getProperty("poised.db.user", "otheruser");
+  private static final String PASS = System.getProperty("poised.db.password", "swordfish");
+
+  private static final int MAX_POOL_SIZE = Integer.getInteger("poised.pool.maxSize", 8);
+  private static final long BORROW_TIMEOUT_MILLIS =
+      Long.getLong("poised.pool.borrowTimeoutMillis", 5_000L);
+  private static final long IDLE_TIMEOUT_NANOS =
+      TimeUnit.MILLISECONDS.toNanos(Long.getLong("poised.pool.idleTimeoutMillis", 300_000L));
+  private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+  private static final Semaphore permits = new Semaphore(MAX_POOL_SIZE, true);
+  private static final Deque<PooledConnection> idle = new ArrayDeque<>();
+  /** Set by {@link #shutdown()}; from then on returned connections are closed, not pooled. */
+  private static volatile boolean closed;
+
+  private static final AtomicInteger activeCount = new AtomicInteger();
+  private static final AtomicLong borrowCount = new AtomicLong();
+  private static final AtomicLong timeoutCount = new AtomicLong();
+  private static final AtomicLong createdCount = new AtomicLong();
+  private static final AtomicLong retiredCount = new AtomicLong();
+  private static final AtomicLong totalWaitNanos = new AtomicLong();
+  private static final AtomicLong maxWaitNanos = new AtomicLong();
 
   /**
-   * Establishes a connection to the database.
+   * Borrows a connection from the pool, opening a new one if no valid idle connection is available.
+   * Closing the returned connection hands it back to the pool.
    *
    * @return Connection object.
-   * @throws SQLException If the connection fails.
+   * @throws SQLException If the connection fails, no connection becomes free in time, or the pool
+   *     has been shut down.
    */
   public static Connection connect() throws SQLException {
-    return DriverManager.getConnection(DB_URL, USER, PASS);
+    if (closed) {
+      throw new SQLException("The connection pool has been shut down");
+    }
+    long start = System.nanoTime();
+    Metrics.Timing wait = Metrics.start("pool.wait");
+    try {
+      if (!permits.tryAcquire(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        timeoutCount.incrementAndGet();
+        throw new SQLTimeoutException(
+            "Timed out after " + BORROW_TIMEOUT_MILLIS + " ms waiting for a database connection");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection", e);
+    } finally {
+      wait.stop();
+    }
+    recordWait(System.nanoTime() - start);
+
+    try {
+      PooledConnection pooled = takeValidIdle();
+      if (pooled == null) {
+        pooled = new PooledConnection(DriverManager.getConnection(DB_URL, USER, PASS));
+        createdCount.incrementAndGet();
+      }
+      activeCount.incrementAndGet();
+      borrowCount.incrementAndGet();
+      return pooled.lease();
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the JDBC URL connections are opened with.
+   *
+   * @return The database URL.
+   */
+  public static String getUrl() {
+    return DB_URL;
+  }
+
+  /**
+   * Returns a snapshot of the pool counters.
+   *
+   * @return The current pool statistics.
+   */
+  public static PoolStats getPoolStats() {
+    int idleCount;
+    synchronized (idle) {
+      idleCount = idle.size();
+    }
+    long borrows = borrowCount.get();
+    return new PoolStats(
+        activeCount.get(),
+        idleCount,
+        MAX_POOL_SIZE,
+        borrows,
+        timeoutCount.get(),
+        createdCount.get(),
+        retiredCount.get(),
+        borrows == 0 ? 0 : totalWaitNanos.get() / borrows / 1_000_000.0,
+        maxWaitNanos.get() / 1_000_000.0);
+  }
+
+  /**
+   * Closes every idle connection and stops handing out new ones. Connections still on loan are
+   * closed when they are returned.
+   */
+  public static void shutdown() {
+    closed = true;
+    synchronized (idle) {
+      for (PooledConnection pooled : idle) {
+        retire(pooled);
+      }
+      idle.clear();
+    }
+  }
+
+  /**
+   * Takes the most recently used idle connection that is still alive, retiring any that have
+   * expired or fail validation.
+   */
+  private static PooledConnection takeValidIdle() {
+    while (true) {
+      PooledConnection pooled;
+      synchronized (idle) {
+        pooled = idle.pollFirst();
+      }
+      if (pooled == null) {
+        return null;
+      }
+      if (pooled.isExpired(System.nanoTime()) || !pooled.isValid()) {
+        retire(pooled);
+        continue;
+      }
+      return pooled;
+    }
+  }
+
+  /**
+   * Puts a connection back into the idle list, or closes it once the pool is shut down, and
+   * releases its permit.
+   */
+  private static void release(PooledConnection pooled) {
+    try {
+      boolean pooledAgain = false;
+      if (!closed && pooled.resetForReuse()) {
+        synchronized (idle) {
+          // Checked again under the lock, so a shutdown that has already drained the list wins.
+          if (!closed) {
+            idle.addFirst(pooled);
+            pooledAgain = true;
+          }
+        }
+      }
+      if (!pooledAgain) {
+        retire(pooled);
+      }
+      retireExpiredIdle();
+    } finally {
+      activeCount.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  /** Retires idle connections that have been unused for longer than the idle timeout. */
+  private static void retireExpiredIdle() {
+    long now = System.nanoTime();
+    synchronized (idle) {
+      Iterator<PooledConnection> it = idle.descendingIterator();
+      while (it.hasNext()) {
+        PooledConnection pooled = it.next();
+        if (!pooled.isExpired(now)) {
+          break;
+        }
+        it.remove();
+        retire(pooled);
+      }
+    }
+  }
+
+  private static void retire(PooledConnection pooled) {
+    retiredCount.incrementAndGet();
+    StatementRegistry.forget(pooled.physical);
+    try {
+      pooled.physical.close();
+    } catch (SQLException e) {
+      // The connection is being discarded anyway.
+    }
+  }
+
+  private static void recordWait(long waitNanos) {
+    totalWaitNanos.addAndGet(waitNanos);
+    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  /**
+   * Point-in-time pool counters.
+   *
+   * @param active Connections currently on loan.
+   * @param idle Connections waiting in the pool.
+   * @param maxSize The maximum number of open connections.
+   * @param borrows Total successful borrows.
+   * @param timeouts Borrowers that gave up waiting for a free connection.
+   * @param created Physical connections opened.
+   * @param retired Physical connections closed because they expired or failed validation.
+   * @param averageWaitMillis Mean time a borrower waited for a free slot.
+   * @param maxWaitMillis Longest time a borrower waited for a free slot.
+   */
+  public record PoolStats(
+      int active,
+      int idle,
+      int maxSize,
+      long borrows,
+      long timeouts,
+      long created,
+      long retired,
+      double averageWaitMillis,
+      double maxWaitMillis) {}
+
+  /** A physical connection owned by the pool. */
+  private static final class PooledConnection {
+    private final Connection physical;
+    private long lastReturnedNanos = System.nanoTime();
+
+    private PooledConnection(Connection physical) {
+      this.physical = physical;
+    }
+
+    private boolean isExpired(long now) {
+      return now - lastReturnedNanos > IDLE_TIMEOUT_NANOS;
+    }
+
+    private boolean isValid() {
+      try {
+        return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+      } catch (SQLException e) {
+        return false;
+      }
+    }
+
+    /**
+     * Restores the default session state so the next borrower gets a clean connection.
+     *
+     * @return Whether the connection can go back into the pool.
+     */
+    private boolean resetForReuse() {
+      try {
+        if (physical.isClosed()) {
+          return false;
+        }
+        if (!physical.getAutoCommit()) {
+          physical.rollback();
+          physical.setAutoCommit(true);
+        }
+        lastReturnedNanos = System.nanoTime();
+        return true;
+      } catch (SQLException e) {
+        return false;
+      }
+    }
+
+    /** Wraps the physical connection in a handle whose {@code close()} returns it to the pool. */
+    private Connection lease() {
+      AtomicBoolean returned = new AtomicBoolean();
+      InvocationHandler handler = (proxy, method, args) -> invoke(proxy, returned, method, args);
+      return (Connection)
+          Proxy.newProxyInstance(
+              Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+    }
+
+    private Object invoke(Object proxy, AtomicBoolean returned, Method method, Object[] args)
+        throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "close":
+          if (returned.compareAndSet(false, true)) {
+            release(this);
+          }
+          return null;
+        case "isClosed":
+          return returned.get() || physical.isClosed();
+        default:
+          if (returned.get()) {
+            throw new SQLException("Connection has already been returned to the pool");
+          }
+          if (method.getName().equals("unwrap") && args[0] == Connection.class) {
+            // Lets per-connection caches key on the physical connection behind each lease.
+            return physical;
+          }
+          try {
+            return method.invoke(physical, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
   }
 }
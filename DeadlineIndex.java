@@ -0,0 +1,389 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps every unfinalised project ordered by deadline, so incomplete and overdue projects can be
+ * listed without querying the database.
+ *
+ * <p>The index is loaded once and kept current through {@link ProjectListener} notifications. A
+ * reload reads the database outside the index's monitor and swaps the result in, so lookups are
+ * answered from the current index meanwhile. A background watcher can scan it periodically and
+ * report projects that are about to fall due or have just become overdue.
+ */
+public class DeadlineIndex implements ProjectListener {
+  private static final Comparator<Entry> BY_DEADLINE =
+      Comparator.comparing(Entry::deadline).thenComparingInt(Entry::projectId);
+
+  private static final DeadlineIndex INSTANCE = new DeadlineIndex();
+
+  private NavigableSet<Entry> byDeadline = new TreeSet<>(BY_DEADLINE);
+  private Map<Integer, Entry> byId = new HashMap<>();
+  /** Held while the database is read, so only one caller loads it; not the monitor. */
+  private final Lock loading = new ReentrantLock();
+  /**
+   * The latest change to each project reported while a load is reading, or {@code null} for a
+   * deletion; replayed once the new index is in place. {@code null} when no load is running.
+   */
+  private Map<Integer, Project> changedDuringLoad;
+  /** The last event reported for each project, so the watcher reports each change only once. */
+  private final Map<Integer, DeadlineEvent> reported = new HashMap<>();
+  /** Whether the next scan only records each project's state, without reporting it. */
+  private boolean baseline = true;
+  private boolean loaded;
+  private ScheduledExecutorService watcher;
+
+  /**
+   * Returns the shared index.
+   *
+   * @return The application-wide deadline index.
+   */
+  public static DeadlineIndex getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Reloads every unfinalised project from the database. Lookups are answered from the current
+   * index until the new one is complete.
+   *
+   * @param conn The database connection.
+   * @throws SQLException If the query fails; the current index is kept.
+   */
+  public void rebuild(Connection conn) throws SQLException {
+    loading.lock();
+    try {
+      synchronized (this) {
+        changedDuringLoad = new HashMap<>();
+      }
+      try {
+        NavigableSet<Entry> freshByDeadline = new TreeSet<>(BY_DEADLINE);
+        Map<Integer, Entry> freshById = new HashMap<>();
+        PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_OPEN_DEADLINES);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            Date deadline = rs.getDate("deadline");
+            if (deadline != null) {
+              Entry entry =
+                  new Entry(rs.getInt("id"), rs.getString("name"), deadline.toLocalDate());
+              freshById.put(entry.projectId(), entry);
+              freshByDeadline.add(entry);
+            }
+          }
+        }
+        synchronized (this) {
+          byDeadline = freshByDeadline;
+          byId = freshById;
+          Map<Integer, Project> changes = changedDuringLoad;
+          changedDuringLoad = null;
+          for (Map.Entry<Integer, Project> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+              projectDeleted(change.getKey());
+            } else {
+              projectSaved(change.getValue());
+            }
+          }
+          forgetReported();
+          loaded = true;
+        }
+      } finally {
+        synchronized (this) {
+          changedDuringLoad = null;
+        }
+      }
+    } finally {
+      loading.unlock();
+    }
+  }
+
+  /**
+   * Discards the index and reloads it from projects already in memory, such as a {@link
+   * ProjectSnapshot}.
+   *
+   * @param projects The projects to index; finalised ones are skipped.
+   */
+  public synchronized void rebuild(Collection<Project> projects) {
+    byDeadline.clear();
+    byId.clear();
+    for (Project project : projects) {
+      if (!project.finalised() && project.deadline() != null) {
+        add(new Entry(project.id(), project.name(), project.deadline()));
+      }
+    }
+    forgetReported();
+    loaded = true;
+  }
+
+  /**
+   * Loads the index unless it has already been loaded.
+   *
+   * @param conn The database connection.
+   * @throws SQLException If the query fails.
+   */
+  public void ensureLoaded(Connection conn) throws SQLException {
+    if (isLoaded()) {
+      return;
+    }
+    loading.lock();
+    try {
+      if (!isLoaded()) {
+        rebuild(conn);
+      }
+    } finally {
+      loading.unlock();
+    }
+  }
+
+  /**
+   * Returns whether the index has been loaded and can answer queries.
+   *
+   * @return Whether {@link #rebuild} has completed.
+   */
+  public synchronized boolean isLoaded() {
+    return loaded;
+  }
+
+  @Override
+  public synchronized void projectSaved(Project project) {
+    if (changedDuringLoad != null) {
+      changedDuringLoad.put(project.id(), project);
+    }
+    remove(project.id());
+    if (!project.finalised() && project.deadline() != null) {
+      // What was reported stays, so an edit that keeps the deadline is not reported again.
+      add(new Entry(project.id(), project.name(), project.deadline()));
+    } else {
+      reported.remove(project.id());
+    }
+  }
+
+  @Override
+  public synchronized void projectDeleted(int projectId) {
+    if (changedDuringLoad != null) {
+      changedDuringLoad.put(projectId, null);
+    }
+    remove(projectId);
+    reported.remove(projectId);
+  }
+
+  /**
+   * Returns every unfinalised project, earliest deadline first.
+   *
+   * @return The incomplete projects.
+   */
+  public synchronized List<Entry> incomplete() {
+    return new ArrayList<>(byDeadline);
+  }
+
+  /**
+   * Returns unfinalised projects whose deadline is before the given date, earliest first.
+   *
+   * @param today The date to compare deadlines against.
+   * @return The overdue projects.
+   */
+  public synchronized List<Entry> overdueAsOf(LocalDate today) {
+    return new ArrayList<>(byDeadline.headSet(new Entry(Integer.MIN_VALUE, "", today), false));
+  }
+
+  /**
+   * Returns one page of unfinalised projects, earliest deadline first and then by project number,
+   * for paging through the list a page at a time.
+   *
+   * @param dueBefore Only projects due before this date are included, or all if {@code null}.
+   * @param after The last entry of the previous page, or {@code null} for the first page. Only its
+   *     deadline and project number are used, so it need not still be in the index.
+   * @param limit The most projects to return.
+   * @return The page, and how many projects the whole list holds.
+   */
+  public synchronized Page page(LocalDate dueBefore, Entry after, int limit) {
+    NavigableSet<Entry> all =
+        dueBefore == null
+            ? byDeadline
+            : byDeadline.headSet(new Entry(Integer.MIN_VALUE, "", dueBefore), false);
+    NavigableSet<Entry> rest = after == null ? all : all.tailSet(after, false);
+    List<Entry> entries = new ArrayList<>(Math.min(limit, rest.size()));
+    for (Entry entry : rest) {
+      if (entries.size() == limit) {
+        break;
+      }
+      entries.add(entry);
+    }
+    return new Page(all.size(), entries);
+  }
+
+  /**
+   * Returns the entry for a project.
+   *
+   * @param projectId The project number.
+   * @return The entry, or {@code null} if the project is finalised, has no deadline or does not
+   *     exist.
+   */
+  public synchronized Entry find(int projectId) {
+    return byId.get(projectId);
+  }
+
+  /**
+   * Returns unfinalised projects due on or after {@code from} and on or before {@code to}.
+   *
+   * @param from The first date to include.
+   * @param to The last date to include.
+   * @return The matching projects, earliest deadline first.
+   */
+  public synchronized List<Entry> dueBetween(LocalDate from, LocalDate to) {
+    return new ArrayList<>(
+        byDeadline.subSet(
+            new Entry(Integer.MIN_VALUE, "", from), true,
+            new Entry(Integer.MAX_VALUE, "", to), true));
+  }
+
+  /**
+   * Starts a daemon thread that scans the index at a fixed rate and reports projects that fall due
+   * within {@code warningDays} or become overdue. Each project is reported once per state.
+   *
+   * <p>The first scan, straight away, only notes which projects are already due or overdue, so
+   * starting the watcher does not report every one of them; later scans report what changed since.
+   *
+   * @param warningDays How many days ahead of a deadline to start warning.
+   * @param periodMinutes How often to scan.
+   * @param sink Receives the events.
+   */
+  public synchronized void startWatcher(
+      int warningDays, long periodMinutes, Consumer<DeadlineEvent> sink) {
+    stopWatcher();
+    baseline = true;
+    watcher =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "deadline-watcher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    watcher.scheduleAtFixedRate(
+        () -> scan(LocalDate.now(), warningDays).forEach(sink),
+        0,
+        periodMinutes,
+        TimeUnit.MINUTES);
+  }
+
+  /** Stops the background watcher, if one is running. */
+  public synchronized void stopWatcher() {
+    if (watcher != null) {
+      watcher.shutdownNow();
+      watcher = null;
+    }
+  }
+
+  /**
+   * Returns a one-line summary of the index.
+   *
+   * @return The number of open projects and how many are overdue.
+   */
+  public synchronized String describeStats() {
+    if (!loaded) {
+      return "not loaded";
+    }
+    return byId.size() + " open projects, " + overdueAsOf(LocalDate.now()).size() + " overdue";
+  }
+
+  /** Finds projects whose reminder state changed since they were last reported. */
+  synchronized List<DeadlineEvent> scan(LocalDate today, int warningDays) {
+    boolean quiet = baseline;
+    baseline = false;
+    List<DeadlineEvent> events = new ArrayList<>();
+    for (Entry entry : dueBetween(LocalDate.MIN, today.plusDays(warningDays))) {
+      long days = ChronoUnit.DAYS.between(today, entry.deadline());
+      DeadlineEvent event = new DeadlineEvent(entry, days < 0, days);
+      DeadlineEvent previous = reported.get(entry.projectId());
+      if (previous == null
+          || previous.overdue() != event.overdue()
+          || !previous.entry().deadline().equals(entry.deadline())) {
+        reported.put(entry.projectId(), event);
+        if (!quiet) {
+          events.add(event);
+        }
+      }
+    }
+    return events;
+  }
+
+  private void add(Entry entry) {
+    byId.put(entry.projectId(), entry);
+    byDeadline.add(entry);
+  }
+
+  private void remove(int projectId) {
+    Entry previous = byId.remove(projectId);
+    if (previous != null) {
+      byDeadline.remove(previous);
+    }
+  }
+
+  /**
+   * Drops what was reported for projects no longer in the index and makes the next scan a silent
+   * baseline again: a reload can bring in many projects at once that did not change, such as those
+   * added elsewhere while working from the snapshot.
+   */
+  private void forgetReported() {
+    reported.keySet().retainAll(byId.keySet());
+    baseline = true;
+  }
+
+  /**
+   * An unfinalised project and its deadline.
+   *
+   * @param projectId The project number.
+   * @param name The project name.
+   * @param deadline The project deadline.
+   */
+  public record Entry(int projectId, String name, LocalDate deadline) {}
+
+  /**
+   * One page of projects from the index.
+   *
+   * @param total The number of projects across all pages.
+   * @param entries The projects on this page, in deadline order.
+   */
+  public record Page(int total, List<Entry> entries) {}
+
+  /**
+   * A reminder raised by the watcher.
+   *
+   * @param entry The project concerned.
+   * @param overdue Whether the deadline has passed.
+   * @param daysUntilDue Days until the deadline; negative once overdue.
+   */
+  public record DeadlineEvent(Entry entry, boolean overdue, long daysUntilDue) {
+
+    /**
+     * Describes the event for display.
+     *
+     * @return A one-line reminder.
+     */
+    public String describe() {
+      String project = "Project " + entry.projectId() + " (" + entry.name() + ")";
+      if (overdue) {
+        return project + " is now overdue; the deadline was " + entry.deadline() + ".";
+      }
+      return daysUntilDue == 0
+          ? project + " is due today."
+          : project + " is due in " + daysUntilDue + " day(s), on " + entry.deadline() + ".";
+    }
+  }
+}
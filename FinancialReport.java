@@ -0,0 +1,292 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Totals fees, payments and outstanding balances across every live project, grouped by customer,
+ * project manager, building type and month of deadline.
+ *
+ * <p>Projects moved to the archive by {@link ProjectArchive} are not included. They are all paid in
+ * full, so outstanding balances are the same either way, but project counts and fee and paid
+ * totals only cover projects still in {@code Project}.
+ *
+ * <p>The database does the grouping and summing, so only one row per group is read back. Amounts
+ * are carried as whole cents in {@code long}s, so totals are exact. The sections do not depend on
+ * each other: the first runs on the caller's connection while the rest run at the same time on
+ * connections borrowed from the pool.
+ */
+public class FinancialReport {
+  private static final Comparator<Line> LARGEST_BALANCE_FIRST =
+      Comparator.comparingLong(Line::outstandingCents).reversed().thenComparing(Line::label);
+
+  /** Runs the sections after the first; created on first use and kept for later reports. */
+  private static ExecutorService workers;
+
+  private final Map<Section, List<Line>> sections;
+  private final Line total;
+
+  private FinancialReport(Map<Section, List<Line>> sections) {
+    this.sections = sections;
+    long projects = 0;
+    long feeCents = 0;
+    long paidCents = 0;
+    // Every project falls in exactly one building type group, so that section sums to the total.
+    for (Line line : sections.get(Section.BUILDING_TYPE)) {
+      projects += line.projects();
+      feeCents = Math.addExact(feeCents, line.feeCents());
+      paidCents = Math.addExact(paidCents, line.paidCents());
+    }
+    this.total = new Line("Total", projects, feeCents, paidCents);
+  }
+
+  /**
+   * Generates the report and prints each section as a table.
+   *
+   * @param conn The database connection.
+   */
+  public static void viewFinancialReport(Connection conn) {
+    FinancialReport report;
+    try {
+      report = generate(conn);
+    } catch (SQLException e) {
+      System.out.println("Error generating report: " + e.getMessage());
+      return;
+    }
+    System.out.println("\n(Live projects only; archived projects are paid in full and left out.)");
+    for (Section section : Section.values()) {
+      System.out.println("\n--- Outstanding by " + section.title() + " ---");
+      TableWriter table =
+          TableWriter.toConsole(
+              new String[] {section.title(), "Projects", "Total Fee", "Paid", "Outstanding"},
+              new int[] {30, 9, 16, 16, 16});
+      table.writeHeader();
+      for (Line line : report.lines(section)) {
+        writeLine(table, line);
+      }
+      writeLine(table, report.total());
+      table.flush();
+    }
+  }
+
+  /**
+   * Runs every section of the report.
+   *
+   * @param conn The database connection, used for the first section.
+   * @return The report.
+   * @throws SQLException If a section's query fails or no connection is free for it.
+   */
+  public static FinancialReport generate(Connection conn) throws SQLException {
+    Section[] all = Section.values();
+    ExecutorService executor = workers(all.length - 1);
+    List<Future<List<Line>>> pending = new ArrayList<>();
+    for (int i = 1; i < all.length; i++) {
+      Section section = all[i];
+      pending.add(
+          executor.submit(
+              () -> {
+                try (Connection borrowed = DatabaseConnectionManager.connect()) {
+                  return run(borrowed, section);
+                }
+              }));
+    }
+    Map<Section, List<Line>> sections = new EnumMap<>(Section.class);
+    sections.put(all[0], run(conn, all[0]));
+    for (int i = 1; i < all.length; i++) {
+      sections.put(all[i], await(pending.get(i - 1)));
+    }
+    return new FinancialReport(sections);
+  }
+
+  private static synchronized ExecutorService workers(int threads) {
+    if (workers == null) {
+      workers = WorkerThreads.newExecutor("report", threads);
+    }
+    return workers;
+  }
+
+  /**
+   * Returns one section's groups.
+   *
+   * @param section The section.
+   * @return The groups, largest balance first, or by month for {@link Section#DEADLINE_MONTH}.
+   */
+  public List<Line> lines(Section section) {
+    return sections.get(section);
+  }
+
+  /**
+   * Returns the totals over every live project.
+   *
+   * @return The portfolio totals, labelled {@code Total}.
+   */
+  public Line total() {
+    return total;
+  }
+
+  /**
+   * Formats the report as a JSON object with a {@code scope} of {@code live}, a {@code total} and
+   * one array per section.
+   *
+   * @return The JSON text.
+   */
+  public String toJson() {
+    StringBuilder json = new StringBuilder(4096);
+    json.append("{\"scope\":\"live\",\"total\":");
+    appendJson(json, total);
+    for (Map.Entry<Section, List<Line>> entry : sections.entrySet()) {
+      json.append(",\"").append(entry.getKey().name().toLowerCase(Locale.ROOT)).append("\":[");
+      boolean first = true;
+      for (Line line : entry.getValue()) {
+        json.append(first ? "" : ",");
+        appendJson(json, line);
+        first = false;
+      }
+      json.append(']');
+    }
+    return json.append('}').toString();
+  }
+
+  private static List<Line> run(Connection conn, Section section) throws SQLException {
+    List<Line> lines = new ArrayList<>();
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, section.query());
+    try (ResultSet rs = pstmt.executeQuery()) {
+      while (rs.next()) {
+        lines.add(
+            new Line(
+                label(rs, section),
+                rs.getLong("projects"),
+                cents(rs.getBigDecimal("fees")),
+                cents(rs.getBigDecimal("paid"))));
+      }
+    }
+    lines.sort(
+        section == Section.DEADLINE_MONTH
+            ? Comparator.comparing(Line::label)
+            : LARGEST_BALANCE_FIRST);
+    return lines;
+  }
+
+  private static String label(ResultSet rs, Section section) throws SQLException {
+    return switch (section) {
+      case CUSTOMER, PROJECT_MANAGER -> {
+        if (rs.getObject("person_id") == null) {
+          yield "(none)";
+        }
+        String firstName = rs.getString("first_name");
+        yield firstName == null
+            ? "#" + rs.getInt("person_id")
+            : firstName + " " + rs.getString("last_name");
+      }
+      case BUILDING_TYPE -> {
+        String type = rs.getString("building_type");
+        yield type == null || type.isBlank() ? "(none)" : type;
+      }
+      case DEADLINE_MONTH ->
+          rs.getObject("deadline_year") == null
+              ? "(no deadline)"
+              : String.format(
+                  "%04d-%02d", rs.getInt("deadline_year"), rs.getInt("deadline_month"));
+    };
+  }
+
+  private static List<Line> await(Future<List<Line>> future) throws SQLException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while generating the report", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SQLException sqlException) {
+        throw sqlException;
+      }
+      throw new IllegalStateException("Report section failed", e.getCause());
+    }
+  }
+
+  private static long cents(BigDecimal amount) {
+    return amount == null
+        ? 0
+        : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+  }
+
+  private static String amount(long cents) {
+    return BigDecimal.valueOf(cents, 2).toPlainString();
+  }
+
+  private static void writeLine(TableWriter table, Line line) {
+    table.writeRow(
+        line.label(),
+        line.projects(),
+        String.format("%,.2f", BigDecimal.valueOf(line.feeCents(), 2)),
+        String.format("%,.2f", BigDecimal.valueOf(line.paidCents(), 2)),
+        String.format("%,.2f", BigDecimal.valueOf(line.outstandingCents(), 2)));
+  }
+
+  private static void appendJson(StringBuilder json, Line line) {
+    json.append("{\"label\":").append(Json.quote(line.label()));
+    json.append(",\"projects\":").append(line.projects());
+    json.append(",\"total_fee\":").append(amount(line.feeCents()));
+    json.append(",\"amount_paid\":").append(amount(line.paidCents()));
+    json.append(",\"outstanding\":").append(amount(line.outstandingCents())).append('}');
+  }
+
+  /** The ways the report groups projects. */
+  public enum Section {
+    CUSTOMER("Customer", SqlQuery.REPORT_BY_CUSTOMER),
+    PROJECT_MANAGER("Project Manager", SqlQuery.REPORT_BY_PROJECT_MANAGER),
+    BUILDING_TYPE("Building Type", SqlQuery.REPORT_BY_BUILDING_TYPE),
+    DEADLINE_MONTH("Deadline Month", SqlQuery.REPORT_BY_DEADLINE_MONTH);
+
+    private final String title;
+    private final SqlQuery query;
+
+    Section(String title, SqlQuery query) {
+      this.title = title;
+      this.query = query;
+    }
+
+    /**
+     * Returns the heading used for the section.
+     *
+     * @return The title.
+     */
+    public String title() {
+      return title;
+    }
+
+    SqlQuery query() {
+      return query;
+    }
+  }
+
+  /**
+   * One group of projects and its totals.
+   *
+   * @param label The customer, manager, building type or {@code yyyy-MM} month.
+   * @param projects The number of projects in the group.
+   * @param feeCents The sum of the total fees, in cents.
+   * @param paidCents The sum of the amounts paid, in cents.
+   */
+  public record Line(String label, long projects, long feeCents, long paidCents) {
+    /**
+     * Returns what is still owed on the group's projects.
+     *
+     * @return The fees less the payments, in cents.
+     */
+    public long outstandingCents() {
+      return Math.subtractExact(feeCents, paidCents);
+    }
+  }
+}
@@ -0,0 +1,446 @@
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps projects in memory only, a column per field: project numbers, fees, deadlines and
+ * completion dates (as epoch days) and person references in primitive arrays, and the finalised
+ * flags in a {@link BitSet}. A project is a row number into every column. Rows are kept in project
+ * number order, so a project is found by binary search and paging by number walks rows in order.
+ *
+ * <p>Three secondary indexes answer the other lookups: the open (not finalised, not deleted) rows
+ * as a bit set for the incomplete list, the rows sorted by deadline for the overdue list, and a
+ * {@link ProjectSearchIndex} of its own for search. Deleted rows stay in place, marked as gone.
+ *
+ * <p>Changes are not written anywhere else, and {@link ProjectListener}s, the cache and the change
+ * feed are not told about them. Safe for use from several threads.
+ */
+public class InMemoryProjectRepository implements ProjectRepository {
+  private static final int NO_DATE = Integer.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 1_024;
+  private static final int COPY_PAGE_SIZE = 1_000;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ProjectSearchIndex searchIndex = new ProjectSearchIndex();
+
+  private int size;
+  private int[] ids = new int[INITIAL_CAPACITY];
+  private double[] fees = new double[INITIAL_CAPACITY];
+  private double[] paid = new double[INITIAL_CAPACITY];
+  private int[] deadlines = new int[INITIAL_CAPACITY];
+  private int[] completions = new int[INITIAL_CAPACITY];
+  private int[] customers = new int[INITIAL_CAPACITY];
+  private int[] architects = new int[INITIAL_CAPACITY];
+  private int[] managers = new int[INITIAL_CAPACITY];
+  private String[] names = new String[INITIAL_CAPACITY];
+  private String[] buildingTypes = new String[INITIAL_CAPACITY];
+  private String[] addresses = new String[INITIAL_CAPACITY];
+  private String[] erfNumbers = new String[INITIAL_CAPACITY];
+  private String[] engineers = new String[INITIAL_CAPACITY];
+  private final BitSet live = new BitSet();
+  private final BitSet finalised = new BitSet();
+  private final BitSet open = new BitSet();
+
+  /**
+   * Rows with a deadline, sorted by it: each entry holds the deadline in its high 32 bits and the
+   * row number in its low 32 bits, so sorting the entries sorts by deadline and then row.
+   */
+  private long[] byDeadline = new long[INITIAL_CAPACITY];
+  private int withDeadline;
+
+  /** Creates an empty repository. New projects are numbered from 1. */
+  public InMemoryProjectRepository() {
+    searchIndex.rebuild(List.of());
+  }
+
+  /**
+   * Creates a repository holding the given projects, keeping their numbers.
+   *
+   * @param projects The projects, in any order.
+   * @return The repository.
+   * @throws IllegalArgumentException If two projects have the same number.
+   */
+  public static InMemoryProjectRepository of(Collection<Project> projects) {
+    List<Project> sorted = new ArrayList<>(projects);
+    sorted.sort(Comparator.comparingInt(Project::id));
+    InMemoryProjectRepository repository = new InMemoryProjectRepository();
+    for (Project project : sorted) {
+      if (repository.size > 0 && repository.ids[repository.size - 1] == project.id()) {
+        throw new IllegalArgumentException("Duplicate project ID " + project.id());
+      }
+      repository.append(project);
+    }
+    // Sorted once at the end instead of inserting each row into place.
+    for (int row = 0; row < repository.size; row++) {
+      if (repository.deadlines[row] != NO_DATE) {
+        repository.addDeadline(row);
+      }
+    }
+    Arrays.sort(repository.byDeadline, 0, repository.withDeadline);
+    repository.searchIndex.rebuild(sorted);
+    return repository;
+  }
+
+  /**
+   * Creates a repository holding a copy of every project in another one, such as the database.
+   *
+   * @param source The repository to copy.
+   * @return The copy.
+   * @throws SQLException If the source cannot be read.
+   */
+  public static InMemoryProjectRepository copyOf(ProjectRepository source) throws SQLException {
+    List<Project> projects = new ArrayList<>();
+    List<Project> page;
+    int afterId = 0;
+    do {
+      page = source.list(afterId, COPY_PAGE_SIZE);
+      projects.addAll(page);
+      if (!page.isEmpty()) {
+        afterId = page.get(page.size() - 1).id();
+      }
+    } while (page.size() == COPY_PAGE_SIZE);
+    return of(projects);
+  }
+
+  /**
+   * Returns the number of projects held.
+   *
+   * @return The number of projects not deleted.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return live.cardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Project find(int projectId) {
+    lock.readLock().lock();
+    try {
+      int row = row(projectId);
+      return row < 0 ? null : project(row);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Project> list(int afterId, int limit) {
+    return page(live, afterId, limit);
+  }
+
+  @Override
+  public SearchPage search(String query, int offset, int limit) {
+    lock.readLock().lock();
+    try {
+      ProjectSearchIndex.SearchResult result = searchIndex.search(query, offset, limit);
+      List<Project> projects = new ArrayList<>(result.hits().size());
+      for (ProjectSearchIndex.Hit hit : result.hits()) {
+        int row = row(hit.projectId());
+        if (row >= 0) {
+          projects.add(project(row));
+        }
+      }
+      return new SearchPage(result.total(), projects);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Project> incomplete(int afterId, int limit) {
+    return page(open, afterId, limit);
+  }
+
+  @Override
+  public List<Project> overdue(LocalDate asOf, int afterId, int limit) {
+    int asOfDay = (int) asOf.toEpochDay();
+    lock.readLock().lock();
+    try {
+      int start = firstRowAfter(afterId);
+      int due = lowerBound((long) asOfDay << 32);
+      List<Project> projects = new ArrayList<>();
+      if (due < (size - start) / 8) {
+        // Few projects are due: visit just those through the deadline index.
+        BitSet rows = new BitSet(size);
+        for (int i = 0; i < due; i++) {
+          int row = (int) byDeadline[i];
+          if (row >= start && open.get(row)) {
+            rows.set(row);
+          }
+        }
+        for (int row = rows.nextSetBit(0);
+            row >= 0 && projects.size() < limit;
+            row = rows.nextSetBit(row + 1)) {
+          projects.add(project(row));
+        }
+      } else {
+        // Many are due: checking open rows' deadlines in number order fills a page sooner.
+        for (int row = open.nextSetBit(start);
+            row >= 0 && projects.size() < limit;
+            row = open.nextSetBit(row + 1)) {
+          if (deadlines[row] != NO_DATE && deadlines[row] < asOfDay) {
+            projects.add(project(row));
+          }
+        }
+      }
+      return projects;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a project, numbered one higher than the highest number ever held. A blank name is replaced
+   * with the building type followed by the project number.
+   *
+   * @param draft The project to add; its ID, finalised flag and completion date are ignored.
+   * @return The project as stored.
+   */
+  @Override
+  public Project insert(Project draft) {
+    lock.writeLock().lock();
+    try {
+      int id = size == 0 ? 1 : ids[size - 1] + 1;
+      String name = draft.name();
+      if (name == null || name.isBlank()) {
+        name = draft.buildingType() + " " + id;
+      }
+      Project project =
+          new Project(
+              id,
+              name,
+              draft.buildingType(),
+              draft.address(),
+              draft.erfNumber(),
+              draft.totalFee(),
+              draft.amountPaid(),
+              draft.deadline(),
+              false,
+              null,
+              draft.customerId(),
+              draft.architectId(),
+              draft.projectManagerId(),
+              draft.structuralEngineer());
+      int row = append(project);
+      if (deadlines[row] != NO_DATE) {
+        insertDeadline(row);
+      }
+      searchIndex.projectSaved(project);
+      return project;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Project update(int projectId, String name, LocalDate deadline) {
+    lock.writeLock().lock();
+    try {
+      int row = row(projectId);
+      if (row < 0) {
+        return null;
+      }
+      if (name != null && !name.isBlank()) {
+        names[row] = name;
+      }
+      if (deadline != null && epochDay(deadline) != deadlines[row]) {
+        if (deadlines[row] != NO_DATE) {
+          removeDeadline(row);
+        }
+        deadlines[row] = epochDay(deadline);
+        insertDeadline(row);
+      }
+      Project project = project(row);
+      searchIndex.projectSaved(project);
+      return project;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Project finalise(int projectId, LocalDate completionDate) {
+    lock.writeLock().lock();
+    try {
+      int row = row(projectId);
+      if (row < 0) {
+        return null;
+      }
+      finalised.set(row);
+      open.clear(row);
+      completions[row] = epochDay(completionDate);
+      return project(row);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean delete(int projectId) {
+    lock.writeLock().lock();
+    try {
+      int row = row(projectId);
+      if (row < 0) {
+        return false;
+      }
+      // The row stays in the deadline index; lookups through it skip rows that are not open.
+      live.clear(row);
+      open.clear(row);
+      searchIndex.projectDeleted(projectId);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Returns up to {@code limit} projects from the set rows numbered above {@code afterId}. */
+  private List<Project> page(BitSet rows, int afterId, int limit) {
+    lock.readLock().lock();
+    try {
+      List<Project> projects = new ArrayList<>(Math.min(limit, size));
+      for (int row = rows.nextSetBit(firstRowAfter(afterId));
+          row >= 0 && projects.size() < limit;
+          row = rows.nextSetBit(row + 1)) {
+        projects.add(project(row));
+      }
+      return projects;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns the row of a project that has not been deleted, or -1. */
+  private int row(int projectId) {
+    int row = Arrays.binarySearch(ids, 0, size, projectId);
+    return row >= 0 && live.get(row) ? row : -1;
+  }
+
+  private int firstRowAfter(int projectId) {
+    int row = Arrays.binarySearch(ids, 0, size, projectId);
+    return row >= 0 ? row + 1 : -row - 1;
+  }
+
+  /** Returns the position of the first deadline index entry not less than {@code key}. */
+  private int lowerBound(long key) {
+    int low = 0;
+    int high = withDeadline;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (byDeadline[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private Project project(int row) {
+    return new Project(
+        ids[row],
+        names[row],
+        buildingTypes[row],
+        addresses[row],
+        erfNumbers[row],
+        fees[row],
+        paid[row],
+        date(deadlines[row]),
+        finalised.get(row),
+        date(completions[row]),
+        customers[row],
+        architects[row],
+        managers[row],
+        engineers[row]);
+  }
+
+  /** Stores a project in a new last row, which must keep the rows in project number order. */
+  private int append(Project project) {
+    if (size == ids.length) {
+      grow(size * 2);
+    }
+    int row = size++;
+    ids[row] = project.id();
+    names[row] = project.name();
+    buildingTypes[row] = project.buildingType();
+    addresses[row] = project.address();
+    erfNumbers[row] = project.erfNumber();
+    fees[row] = project.totalFee();
+    paid[row] = project.amountPaid();
+    deadlines[row] = epochDay(project.deadline());
+    completions[row] = epochDay(project.completionDate());
+    customers[row] = project.customerId();
+    architects[row] = project.architectId();
+    managers[row] = project.projectManagerId();
+    engineers[row] = project.structuralEngineer();
+    live.set(row);
+    if (project.finalised()) {
+      finalised.set(row);
+    } else {
+      open.set(row);
+    }
+    return row;
+  }
+
+  /** Adds a row's entry to the end of the deadline index, which the caller puts into order. */
+  private void addDeadline(int row) {
+    if (withDeadline == byDeadline.length) {
+      byDeadline = Arrays.copyOf(byDeadline, withDeadline * 2);
+    }
+    byDeadline[withDeadline++] = deadlineKey(row);
+  }
+
+  /** Adds a row's entry to the deadline index in its sorted place. */
+  private void insertDeadline(int row) {
+    long key = deadlineKey(row);
+    int at = lowerBound(key);
+    addDeadline(row);
+    System.arraycopy(byDeadline, at, byDeadline, at + 1, withDeadline - at - 1);
+    byDeadline[at] = key;
+  }
+
+  /** Takes a row's entry, for the deadline it holds now, out of the deadline index. */
+  private void removeDeadline(int row) {
+    int at = lowerBound(deadlineKey(row));
+    System.arraycopy(byDeadline, at + 1, byDeadline, at, withDeadline - at - 1);
+    withDeadline--;
+  }
+
+  private long deadlineKey(int row) {
+    return (long) deadlines[row] << 32 | row;
+  }
+
+  private void grow(int capacity) {
+    ids = Arrays.copyOf(ids, capacity);
+    fees = Arrays.copyOf(fees, capacity);
+    paid = Arrays.copyOf(paid, capacity);
+    deadlines = Arrays.copyOf(deadlines, capacity);
+    completions = Arrays.copyOf(completions, capacity);
+    customers = Arrays.copyOf(customers, capacity);
+    architects = Arrays.copyOf(architects, capacity);
+    managers = Arrays.copyOf(managers, capacity);
+    names = Arrays.copyOf(names, capacity);
+    buildingTypes = Arrays.copyOf(buildingTypes, capacity);
+    addresses = Arrays.copyOf(addresses, capacity);
+    erfNumbers = Arrays.copyOf(erfNumbers, capacity);
+    engineers = Arrays.copyOf(engineers, capacity);
+  }
+
+  private static int epochDay(LocalDate date) {
+    return date == null ? NO_DATE : (int) date.toEpochDay();
+  }
+
+  private static LocalDate date(int epochDay) {
+    return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+}
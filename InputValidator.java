@@ -5,7 +5,19 @@ import java.util.Scanner;
 
 /** Validates user inputs for the PoisePMS application. */
 public class InputValidator {
-  private static final Scanner scanner = new Scanner(System.in);
+  private static final Scanner scanner =
+      new Scanner(Metrics.timeReads(System.in, "console.input"));
+
+  /**
+   * Returns the scanner every prompt reads from. Callers reading console input must use it rather
+   * than opening their own, since two scanners on {@code System.in} each buffer input ahead and
+   * steal lines from one another when input is piped.
+   *
+   * @return The shared console scanner.
+   */
+  public static Scanner getScanner() {
+    return scanner;
+  }
 
   /**
    * Reads a valid string input.
@@ -51,11 +63,11 @@ public class InputValidator {
   public static double getValidDouble(String prompt) {
     while (true) {
       System.out.print(prompt + ": ");
-      try {
-        return Double.parseDouble(scanner.nextLine());
-      } catch (NumberFormatException e) {
-        System.out.println("Invalid input. Please enter a valid number (e.g., 150000.00).");
+      String input = scanner.nextLine();
+      if (isValidDouble(input)) {
+        return Double.parseDouble(input.trim());
       }
+      System.out.println("Invalid input. Please enter a valid number (e.g., 150000.00).");
     }
   }
 
@@ -69,12 +81,10 @@ public class InputValidator {
     while (true) {
       System.out.print(prompt + " (YYYY-MM-DD): ");
       String input = scanner.nextLine();
-      try {
-        LocalDate.parse(input, DateTimeFormatter.ISO_LOCAL_DATE);
+      if (isValidDate(input)) {
         return input;
-      } catch (DateTimeParseException e) {
-        System.out.println("Invalid date format. Please use YYYY-MM-DD.");
       }
+      System.out.println("Invalid date format. Please use YYYY-MM-DD.");
     }
   }
 
@@ -83,8 +93,8 @@ public class InputValidator {
    *
    * @param prompt The prompt message to display.
    * @param allowBlank Whether to allow blank input.
-   * @return A valid date in the format YYYY-MM-DD (or an empty string if blank input is allowed and
-   *     provided).
+   * @return A valid date in the format YYYY-MM-DD that {@link LocalDate#parse} accepts (or an empty
+   *     string if blank input is allowed and provided).
    */
   public static String getValidDate(String prompt, boolean allowBlank) {
     while (true) {
@@ -96,14 +106,50 @@ public class InputValidator {
         return "";
       }
 
-      // Validate date format
-      if (input.matches("\\d{4}-\\d{2}-\\d{2}")) {
+      // A well-formed but impossible date such as 2024-02-30 is rejected too
+      if (isValidDate(input)) {
         return input;
       }
 
       // Invalid input, show an error message
       System.out.println(
-          "Invalid date format. Please enter in YYYY-MM-DD format or leave blank if allowed.");
+          "Invalid date. Please enter a real date in YYYY-MM-DD format or leave blank if allowed.");
+    }
+  }
+
+  /**
+   * Checks whether a value is a valid decimal number, without prompting.
+   *
+   * @param input The value to check.
+   * @return Whether the value parses as a number.
+   */
+  public static boolean isValidDouble(String input) {
+    if (input == null) {
+      return false;
+    }
+    try {
+      double value = Double.parseDouble(input.trim());
+      return !Double.isNaN(value) && !Double.isInfinite(value);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Checks whether a value is a valid date in YYYY-MM-DD format, without prompting.
+   *
+   * @param input The value to check.
+   * @return Whether the value is a valid ISO date.
+   */
+  public static boolean isValidDate(String input) {
+    if (input == null) {
+      return false;
+    }
+    try {
+      LocalDate.parse(input, DateTimeFormatter.ISO_LOCAL_DATE);
+      return true;
+    } catch (DateTimeParseException e) {
+      return false;
     }
   }
 }
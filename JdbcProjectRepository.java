@@ -0,0 +1,94 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps projects in the database, through the same paths as the menu: reads go through {@link
+ * ProjectCache}, search through {@link ProjectSearchIndex}, and writes are recorded in the {@link
+ * ChangeFeed} and reported to {@link ProjectListener}s.
+ */
+public class JdbcProjectRepository implements ProjectRepository {
+  private final Connection conn;
+
+  /**
+   * Creates a repository that works on one connection.
+   *
+   * @param conn The database connection, owned by the caller.
+   */
+  public JdbcProjectRepository(Connection conn) {
+    this.conn = conn;
+  }
+
+  @Override
+  public Project find(int projectId) throws SQLException {
+    return ProjectManager.loadProject(conn, projectId);
+  }
+
+  @Override
+  public List<Project> list(int afterId, int limit) throws SQLException {
+    return ProjectManager.listProjects(conn, afterId, limit);
+  }
+
+  @Override
+  public SearchPage search(String query, int offset, int limit) throws SQLException {
+    ProjectSearchIndex index = ProjectSearchIndex.getInstance();
+    index.ensureLoaded(conn);
+    ProjectSearchIndex.SearchResult result = index.search(query, offset, limit);
+    return new SearchPage(result.total(), ProjectManager.loadProjects(conn, result.hits()));
+  }
+
+  @Override
+  public List<Project> incomplete(int afterId, int limit) throws SQLException {
+    PreparedStatement pstmt =
+        StatementRegistry.prepare(conn, SqlQuery.SELECT_INCOMPLETE_PROJECTS_PAGE);
+    pstmt.setInt(1, afterId);
+    pstmt.setInt(2, limit);
+    return read(pstmt);
+  }
+
+  @Override
+  public List<Project> overdue(LocalDate asOf, int afterId, int limit) throws SQLException {
+    PreparedStatement pstmt =
+        StatementRegistry.prepare(conn, SqlQuery.SELECT_OVERDUE_PROJECTS_PAGE);
+    pstmt.setDate(1, Date.valueOf(asOf));
+    pstmt.setInt(2, afterId);
+    pstmt.setInt(3, limit);
+    return read(pstmt);
+  }
+
+  @Override
+  public Project insert(Project draft) throws SQLException {
+    return ProjectManager.insertProject(conn, draft);
+  }
+
+  @Override
+  public Project update(int projectId, String name, LocalDate deadline) throws SQLException {
+    return ProjectManager.updateProject(
+        conn, projectId, name, deadline == null ? "" : deadline.toString());
+  }
+
+  @Override
+  public Project finalise(int projectId, LocalDate completionDate) throws SQLException {
+    return ProjectManager.finaliseProject(conn, projectId, completionDate);
+  }
+
+  @Override
+  public boolean delete(int projectId) throws SQLException {
+    return ProjectManager.deleteProject(conn, projectId);
+  }
+
+  private static List<Project> read(PreparedStatement pstmt) throws SQLException {
+    List<Project> projects = new ArrayList<>();
+    try (ResultSet rs = pstmt.executeQuery()) {
+      while (rs.next()) {
+        projects.add(ProjectManager.readProject(rs));
+      }
+    }
+    return projects;
+  }
+}
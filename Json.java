@@ -0,0 +1,175 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Writes JSON string literals and reads flat JSON objects. */
+public class Json {
+
+  private Json() {}
+
+  /**
+   * Appends a value as a quoted JSON string, escaping quotes, backslashes and control characters.
+   *
+   * @param out The builder to append to.
+   * @param value The value; {@code null} is written as the JSON literal {@code null}.
+   * @return The builder, for chaining.
+   */
+  public static StringBuilder appendString(StringBuilder out, String value) {
+    if (value == null) {
+      return out.append("null");
+    }
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            out.append(String.format("\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+        }
+      }
+    }
+    return out.append('"');
+  }
+
+  /**
+   * Returns a value as a quoted JSON string.
+   *
+   * @param value The value; {@code null} becomes the JSON literal {@code null}.
+   * @return The JSON representation.
+   */
+  public static String quote(String value) {
+    return appendString(new StringBuilder(), value).toString();
+  }
+
+  /**
+   * Parses a JSON object whose values are strings, numbers, booleans or {@code null}, such as an
+   * HTTP request body. Values are returned as text and {@code null} members are left out.
+   *
+   * @param text The JSON text.
+   * @return The members, in the order given.
+   * @throws IllegalArgumentException If the text is not such an object.
+   */
+  public static Map<String, String> parseFlatObject(String text) {
+    Map<String, String> members = new LinkedHashMap<>();
+    int[] pos = {skipWhitespace(text, 0)};
+    expect(text, pos, '{');
+    pos[0] = skipWhitespace(text, pos[0]);
+    if (peek(text, pos[0]) == '}') {
+      pos[0]++;
+    } else {
+      while (true) {
+        pos[0] = skipWhitespace(text, pos[0]);
+        String name = readString(text, pos);
+        pos[0] = skipWhitespace(text, pos[0]);
+        expect(text, pos, ':');
+        pos[0] = skipWhitespace(text, pos[0]);
+        String value = readValue(text, pos);
+        if (value != null && members.put(name, value) != null) {
+          throw new IllegalArgumentException("Duplicate member: " + name);
+        }
+        pos[0] = skipWhitespace(text, pos[0]);
+        if (peek(text, pos[0]) == ',') {
+          pos[0]++;
+          continue;
+        }
+        expect(text, pos, '}');
+        break;
+      }
+    }
+    if (skipWhitespace(text, pos[0]) != text.length()) {
+      throw new IllegalArgumentException("Unexpected text after the JSON object");
+    }
+    return members;
+  }
+
+  private static String readValue(String text, int[] pos) {
+    char c = peek(text, pos[0]);
+    if (c == '"') {
+      return readString(text, pos);
+    }
+    if (c == '{' || c == '[') {
+      throw new IllegalArgumentException("Nested objects and arrays are not supported");
+    }
+    int start = pos[0];
+    while (pos[0] < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos[0])) < 0) {
+      pos[0]++;
+    }
+    String token = text.substring(start, pos[0]);
+    if (token.equals("null")) {
+      return null;
+    }
+    if (token.equals("true")
+        || token.equals("false")
+        || token.matches("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?")) {
+      return token;
+    }
+    throw new IllegalArgumentException("Invalid JSON value at offset " + start);
+  }
+
+  private static String readString(String text, int[] pos) {
+    expect(text, pos, '"');
+    StringBuilder out = new StringBuilder();
+    while (true) {
+      if (pos[0] >= text.length()) {
+        throw new IllegalArgumentException("Unterminated JSON string");
+      }
+      char c = text.charAt(pos[0]++);
+      if (c == '"') {
+        return out.toString();
+      }
+      if (c != '\\') {
+        out.append(c);
+        continue;
+      }
+      if (pos[0] >= text.length()) {
+        throw new IllegalArgumentException("Unterminated JSON string");
+      }
+      char escape = text.charAt(pos[0]++);
+      switch (escape) {
+        case '"', '\\', '/' -> out.append(escape);
+        case 'b' -> out.append('\b');
+        case 'f' -> out.append('\f');
+        case 'n' -> out.append('\n');
+        case 'r' -> out.append('\r');
+        case 't' -> out.append('\t');
+        case 'u' -> {
+          if (pos[0] + 4 > text.length()) {
+            throw new IllegalArgumentException("Invalid unicode escape");
+          }
+          try {
+            out.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid unicode escape");
+          }
+          pos[0] += 4;
+        }
+        default -> throw new IllegalArgumentException("Invalid escape: \\" + escape);
+      }
+    }
+  }
+
+  private static void expect(String text, int[] pos, char expected) {
+    if (peek(text, pos[0]) != expected) {
+      throw new IllegalArgumentException("Expected '" + expected + "' at offset " + pos[0]);
+    }
+    pos[0]++;
+  }
+
+  private static char peek(String text, int pos) {
+    return pos < text.length() ? text.charAt(pos) : '\0';
+  }
+
+  private static int skipWhitespace(String text, int pos) {
+    while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+}
@@ -0,0 +1,136 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records a distribution of durations in nanoseconds with bounded relative error, in the manner of
+ * an HDR histogram.
+ *
+ * <p>Values are counted in buckets whose width doubles with each power of two, split into {@code
+ * 2^SUB_BUCKET_BITS} equal sub-buckets, so any recorded value is reported to within about 3% while
+ * the whole range of a {@code long} fits in under two thousand counters. Recording is lock-free and
+ * may be done from any thread.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records one value.
+   *
+   * @param nanos The duration; negative values are recorded as zero.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Returns how many values have been recorded.
+   *
+   * @return The number of values.
+   */
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * Returns the sum of all recorded values.
+   *
+   * @return The total in nanoseconds.
+   */
+  public long totalNanos() {
+    return sum.get();
+  }
+
+  /**
+   * Returns the largest recorded value.
+   *
+   * @return The maximum in nanoseconds, or 0 if nothing has been recorded.
+   */
+  public long maxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the recorded values.
+   *
+   * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+   */
+  public double meanNanos() {
+    long n = count.get();
+    return n == 0 ? 0 : (double) sum.get() / n;
+  }
+
+  /**
+   * Returns the value at or below which the given percentage of recorded values fall.
+   *
+   * @param percentile The percentile, from 0 to 100.
+   * @return The highest value in the bucket holding that percentile, capped at the maximum, or 0 if
+   *     nothing has been recorded.
+   */
+  public long percentileNanos(double percentile) {
+    long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValueIn(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Formats a duration in nanoseconds with a unit suited to its size.
+   *
+   * @param nanos The duration.
+   * @return For example {@code 850 ns}, {@code 12.4 us}, {@code 3.07 ms} or {@code 1.52 s}.
+   */
+  public static String format(double nanos) {
+    if (nanos < 1_000) {
+      return String.format("%.0f ns", nanos);
+    }
+    if (nanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+      return String.format("%.1f us", nanos / 1e3);
+    }
+    if (nanos < TimeUnit.SECONDS.toNanos(1)) {
+      return String.format("%.2f ms", nanos / 1e6);
+    }
+    return String.format("%.2f s", nanos / 1e9);
+  }
+
+  /** Values below {@code 2 * SUB_BUCKETS} map to themselves; larger ones keep 5 significant bits. */
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int mantissa = (int) (value >>> shift);
+    return (shift + 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+  }
+
+  private static long highestValueIn(int bucket) {
+    int block = bucket / SUB_BUCKETS;
+    if (block == 0) {
+      return bucket;
+    }
+    int shift = block - 1;
+    long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+}
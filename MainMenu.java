@@ -1,15 +1,83 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.ZoneId;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /** Main menu for the PoisePMS application. */
 public class MainMenu {
+  /** Days before a deadline that the watcher starts reminding about a project. */
+  private static final int DEADLINE_WARNING_DAYS =
+      Integer.getInteger("poised.deadlines.warningDays", 7);
+  /** Minutes between deadline watcher scans. */
+  private static final long DEADLINE_CHECK_MINUTES =
+      Long.getLong("poised.deadlines.checkMinutes", 60);
+  /** Seconds between attempts to reach the database while running from the local snapshot. */
+  private static final long OFFLINE_RETRY_SECONDS = Long.getLong("poised.offline.retrySeconds", 15);
+
+  /** The snapshot read-only options are served from until the database is reached. */
+  private static volatile Offline offline;
+  /** Keeps the local snapshot current, or {@code null} if snapshots are turned off. */
+  private static ProjectSnapshot.Writer snapshotWriter;
+
+  /**
+   * Starts the interactive menu, or with {@code --batch <file>} runs a command script instead (see
+   * {@link BatchRunner}). Use {@code -} as the file to read the script from standard input, and add
+   * {@code --transaction} to run the whole script in one transaction. {@code --serve [port]} starts
+   * the HTTP API (see {@link ApiServer}) instead.
+   *
+   * @param args The command-line arguments.
+   */
   public static void main(String[] args) {
-    try (Connection conn = DatabaseConnectionManager.connect();
-        Scanner scanner = new Scanner(System.in)) {
+    if (args.length > 0 && args[0].equals("--serve")) {
+      serve(args);
+      return;
+    }
+    if (args.length > 0) {
+      System.exit(runBatch(args));
+    }
+    try (Scanner scanner = InputValidator.getScanner()) {
+      ProjectManager.addListener(ProjectSearchIndex.getInstance());
+      ProjectManager.addListener(DeadlineIndex.getInstance());
+      ChangeFeed.getInstance().addSubscriber(ProjectManager::applyChanges);
+      Path snapshotPath = ProjectSnapshot.defaultPath();
+      if (snapshotPath != null) {
+        snapshotWriter = new ProjectSnapshot.Writer(snapshotPath);
+        ProjectManager.addListener(snapshotWriter);
+      }
+      ProjectSnapshot snapshot = readSnapshot(snapshotPath);
+      if (snapshot != null) {
+        // Serve the read-only options from the snapshot while the database is reached behind it.
+        DeadlineIndex.getInstance().rebuild(snapshot.projects());
+        offline = new Offline(snapshot, InMemoryProjectRepository.of(snapshot.projects()));
+        startDeadlineWatcher();
+        startConnector();
+      } else {
+        // Fail fast if the database is unreachable; the connection goes back into the pool warm.
+        goOnline();
+        startDeadlineWatcher();
+        startDaemon("snapshot-refresh", MainMenu::refreshSnapshot);
+      }
 
       int choice;
       do {
         System.out.println("\n=== PoisePMS Menu ===");
+        Offline current = offline;
+        if (current != null) {
+          System.out.println(
+              "(Offline: showing projects saved "
+                  + current.snapshot().writtenAt().atZone(ZoneId.systemDefault()).toLocalDateTime()
+                  + "; only options 1, 6, 7, 8 and 9 are available)");
+        }
         System.out.println("1. View All Projects");
         System.out.println("2. Add New Project");
         System.out.println("3. Update Existing Project");
@@ -18,27 +86,399 @@ public class MainMenu {
         System.out.println("6. View Incomplete Projects");
         System.out.println("7. View Overdue Projects");
         System.out.println("8. Search Project by Number or Name");
+        System.out.println("9. Diagnostics");
+        System.out.println("10. Import Projects from CSV");
+        System.out.println("11. Export Projects to CSV/JSON");
+        System.out.println("12. Financial Report");
+        System.out.println("13. Bulk Finalise or Delete Projects");
+        System.out.println("14. Search Archived Projects");
+        System.out.println("15. Dashboard");
         System.out.println("0. Exit");
         System.out.print("Enter your choice: ");
-        choice = scanner.nextInt();
-        scanner.nextLine(); // Consume the newline character
+        if (!scanner.hasNextLine()) {
+          break;
+        }
+        String input = scanner.nextLine().trim();
+        choice = input.matches("\\d{1,2}") ? Integer.parseInt(input) : -1;
 
         switch (choice) {
-          case 1 -> ProjectManager.viewAllProjects(conn);
-          case 2 -> ProjectManager.addNewProject(conn, scanner);
-          case 3 -> ProjectManager.updateProject(conn, scanner);
-          case 4 -> ProjectManager.deleteProject(conn, scanner);
-          case 5 -> ProjectManager.finaliseProject(conn, scanner);
-          case 6 -> ProjectManager.viewIncompleteProjects(conn);
-          case 7 -> ProjectManager.viewOverdueProjects(conn);
-          case 8 -> ProjectManager.searchProject(conn, scanner);
           case 0 -> System.out.println("Exiting application.");
-          default -> System.out.println("Invalid choice. Please try again.");
+          case 9 -> diagnosticsMenu(scanner);
+          default -> runAction(choice, scanner);
         }
       } while (choice != 0);
 
     } catch (Exception e) {
       System.out.println("An unexpected error occurred: " + e.getMessage());
+    } finally {
+      DeadlineIndex.getInstance().stopWatcher();
+      ChangeFeed.getInstance().stop();
+      ProjectArchive.getInstance().stop();
+      if (snapshotWriter != null) {
+        snapshotWriter.close();
+      }
+      DatabaseConnectionManager.shutdown();
+    }
+  }
+
+  /**
+   * Reads the local snapshot, if there is one.
+   *
+   * @param path The snapshot file, or {@code null} if snapshots are turned off.
+   * @return The snapshot, or {@code null} if there is none or it cannot be read.
+   */
+  private static ProjectSnapshot readSnapshot(Path path) {
+    if (path == null || !Files.exists(path)) {
+      return null;
+    }
+    try {
+      return ProjectSnapshot.read(path);
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Ignoring the local snapshot: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Migrates the schema, reloads both indexes from the database, and starts following changes made
+   * by other instances and archiving old finalised projects.
+   *
+   * @throws SQLException If the database cannot be reached or prepared.
+   */
+  private static void goOnline() throws SQLException {
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      SchemaMigrator.prepare(conn);
+      if (ChangeFeed.ENABLED) {
+        ChangeFeed.prune(conn);
+        ChangeFeed.getInstance().seekToEnd(conn);
+      }
+      ProjectSearchIndex.getInstance().rebuild(conn);
+      DeadlineIndex.getInstance().rebuild(conn);
+    }
+    ChangeFeed.getInstance().start();
+    ProjectArchive.getInstance().start();
+  }
+
+  /** Tries to reach the database in the background until it succeeds, then leaves offline mode. */
+  private static void startConnector() {
+    startDaemon(
+        "database-connector",
+        () -> {
+          boolean reported = false;
+          while (true) {
+            try {
+              goOnline();
+              offline = null;
+              System.out.println("\n[Online] Connected to the database; all options available.");
+              refreshSnapshot();
+              return;
+            } catch (SQLException e) {
+              if (!reported) {
+                System.out.println("\n[Offline] Database unavailable: " + e.getMessage());
+                reported = true;
+              }
+            }
+            try {
+              Thread.sleep(TimeUnit.SECONDS.toMillis(OFFLINE_RETRY_SECONDS));
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+        });
+  }
+
+  /** Rewrites the local snapshot from the database, if snapshots are turned on. */
+  private static void refreshSnapshot() {
+    if (snapshotWriter == null) {
+      return;
+    }
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      snapshotWriter.refresh(conn);
+    } catch (SQLException | IOException e) {
+      System.out.println("\nError saving the local snapshot: " + e.getMessage());
+    }
+  }
+
+  private static void startDaemon(String name, Runnable task) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void startDeadlineWatcher() {
+    DeadlineIndex.getInstance()
+        .startWatcher(
+            DEADLINE_WARNING_DAYS,
+            DEADLINE_CHECK_MINUTES,
+            event -> System.out.println("\n[Reminder] " + event.describe()));
+  }
+
+  /**
+   * Starts the HTTP API and leaves it running until the process is stopped.
+   *
+   * @param args The command-line arguments; the second, if present, is the port.
+   */
+  private static void serve(String[] args) {
+    int port = 8080;
+    if (args.length > 1) {
+      if (!args[1].matches("\\d{1,5}")) {
+        System.err.println("Usage: java MainMenu --serve [port]");
+        System.exit(2);
+      }
+      port = Integer.parseInt(args[1]);
+    }
+    try {
+      prepareSchema();
+      ApiServer server = ApiServer.start(port);
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread(
+                  () -> {
+                    server.stop(2);
+                    DatabaseConnectionManager.shutdown();
+                  }));
+      System.out.println(
+          "Serving on http://" + server.host() + ":" + server.port() + "/projects");
+      if (!server.acceptsWrites()) {
+        System.out.println("Read-only: set -Dpoised.http.token to accept changes.");
+      }
+    } catch (IOException e) {
+      System.err.println("Error starting server: " + e.getMessage());
+      System.exit(2);
+    } catch (SQLException e) {
+      System.err.println("Database unavailable: " + e.getMessage());
+      DatabaseConnectionManager.shutdown();
+      System.exit(2);
+    }
+  }
+
+  /** Migrates the schema and checks query plans on a connection borrowed for the purpose. */
+  private static void prepareSchema() throws SQLException {
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      SchemaMigrator.prepare(conn);
     }
   }
+
+  /**
+   * Runs a command script and returns the process exit status.
+   *
+   * @param args The command-line arguments.
+   * @return 0 if every command succeeded, 1 if any failed, 2 for a usage or I/O error.
+   */
+  private static int runBatch(String[] args) {
+    String source = null;
+    boolean transactional = false;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--batch") && i + 1 < args.length) {
+        source = args[++i];
+      } else if (args[i].equals("--transaction")) {
+        transactional = true;
+      } else {
+        source = null;
+        break;
+      }
+    }
+    if (source == null) {
+      System.err.println("Usage: java MainMenu [--batch <file>|- [--transaction]]");
+      return 2;
+    }
+
+    PrintWriter out =
+        new PrintWriter(
+            new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    try (BufferedReader script =
+        source.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+      prepareSchema();
+      ProjectManager.addListener(ProjectSearchIndex.getInstance());
+      ProjectManager.addListener(DeadlineIndex.getInstance());
+      return BatchRunner.run(script, out, transactional) ? 0 : 1;
+    } catch (IOException e) {
+      System.err.println("Error reading script: " + e.getMessage());
+      return 2;
+    } catch (SQLException e) {
+      System.err.println("Database unavailable: " + e.getMessage());
+      return 2;
+    } finally {
+      out.flush();
+      DatabaseConnectionManager.shutdown();
+    }
+  }
+
+  /**
+   * Borrows a pooled connection for the duration of a single menu action.
+   *
+   * @param choice The menu option selected.
+   * @param scanner The scanner to read user input.
+   */
+  private static void runAction(int choice, Scanner scanner) {
+    // Time spent waiting for the user to type is left out of the action's latency.
+    long inputBefore = Metrics.totalNanos("console.input");
+    Metrics.Timing timing = Metrics.start("menu." + actionName(choice));
+    try {
+      Offline local = offline;
+      if (local != null) {
+        runOffline(choice, scanner, local);
+        return;
+      }
+      try (Connection conn = DatabaseConnectionManager.connect()) {
+        ProjectRepository projects = new JdbcProjectRepository(conn);
+        switch (choice) {
+          case 1 -> ProjectManager.viewAllProjects(conn, scanner);
+          case 2 -> ProjectManager.addNewProject(conn, projects, scanner);
+          case 3 -> ProjectManager.updateProject(projects, scanner);
+          case 4 -> ProjectManager.deleteProject(projects, scanner);
+          case 5 -> ProjectManager.finaliseProject(projects, scanner);
+          case 6 -> ProjectManager.viewIncompleteProjects(conn, scanner);
+          case 7 -> ProjectManager.viewOverdueProjects(conn, scanner);
+          case 8 -> ProjectManager.searchProject(projects, scanner);
+          case 10 -> ProjectImporter.importProjects(conn, scanner);
+          case 11 -> ProjectExporter.exportProjects(conn, scanner);
+          case 12 -> FinancialReport.viewFinancialReport(conn);
+          case 13 -> BulkProjectOperations.bulkUpdateProjects(conn, scanner);
+          case 14 -> ProjectArchive.searchArchive(conn, scanner);
+          case 15 -> Dashboard.viewDashboard(conn);
+          default -> System.out.println("Invalid choice. Please try again.");
+        }
+      }
+    } catch (SQLException e) {
+      System.out.println("Database unavailable: " + e.getMessage());
+    } finally {
+      timing.stop(Metrics.totalNanos("console.input") - inputBefore);
+    }
+  }
+
+  /**
+   * Runs a read-only menu action from the local snapshot, without a database connection.
+   *
+   * @param choice The menu option selected.
+   * @param scanner The scanner to read user input.
+   * @param local The snapshot and the projects loaded from it.
+   */
+  private static void runOffline(int choice, Scanner scanner, Offline local) {
+    switch (choice) {
+      case 1 -> ProjectManager.viewAllProjects(local.snapshot(), scanner);
+      // The deadline index was loaded from the snapshot, so no connection is needed.
+      case 6 -> ProjectManager.viewIncompleteProjects(null, scanner);
+      case 7 -> ProjectManager.viewOverdueProjects(null, scanner);
+      case 8 -> ProjectManager.searchProject(local.projects(), scanner);
+      default ->
+          System.out.println(
+              actionName(choice).equals("invalid")
+                  ? "Invalid choice. Please try again."
+                  : "Not available offline. Waiting for the database to become reachable.");
+    }
+  }
+
+  private static String actionName(int choice) {
+    return switch (choice) {
+      case 1 -> "viewAllProjects";
+      case 2 -> "addNewProject";
+      case 3 -> "updateProject";
+      case 4 -> "deleteProject";
+      case 5 -> "finaliseProject";
+      case 6 -> "viewIncompleteProjects";
+      case 7 -> "viewOverdueProjects";
+      case 8 -> "searchProject";
+      case 10 -> "importProjects";
+      case 11 -> "exportProjects";
+      case 12 -> "financialReport";
+      case 13 -> "bulkUpdateProjects";
+      case 14 -> "searchArchive";
+      case 15 -> "dashboard";
+      default -> "invalid";
+    };
+  }
+
+  /**
+   * Shows the diagnostics sub-menu: counters, latency metrics, and dumping or resetting them.
+   *
+   * @param scanner The scanner to read user input.
+   */
+  private static void diagnosticsMenu(Scanner scanner) {
+    while (true) {
+      System.out.println("\n=== Diagnostics ===");
+      System.out.println("1. View System Statistics");
+      System.out.println("2. View Latency Metrics");
+      System.out.println("3. Dump Metrics to File");
+      System.out.println("4. Reset Metrics");
+      System.out.println("5. Turn Project Cache On/Off");
+      System.out.println("6. Archive Old Finalised Projects Now");
+      System.out.println("0. Back");
+      System.out.print("Enter your choice: ");
+      if (!scanner.hasNextLine()) {
+        return;
+      }
+      switch (scanner.nextLine().trim()) {
+        case "0" -> {
+          return;
+        }
+        case "1" -> printStatistics();
+        case "2" -> Metrics.describe().forEach(System.out::println);
+        case "3" -> {
+          String file =
+              InputValidator.getValidString(
+                  "Enter Output File Path (leave blank for poised-metrics.json)", true);
+          Path target = Path.of(file.isEmpty() ? "poised-metrics.json" : file);
+          try {
+            Metrics.dump(target);
+            System.out.println("Metrics written to " + target.toAbsolutePath());
+          } catch (IOException e) {
+            System.out.println("Error writing metrics: " + e.getMessage());
+          }
+        }
+        case "4" -> {
+          Metrics.reset();
+          System.out.println("Metrics reset.");
+        }
+        case "5" -> {
+          ProjectCache cache = ProjectCache.getInstance();
+          cache.setEnabled(!cache.isEnabled());
+          System.out.println("Project cache " + (cache.isEnabled() ? "on." : "off."));
+        }
+        case "6" -> {
+          try (Connection conn = DatabaseConnectionManager.connect()) {
+            int moved = ProjectArchive.getInstance().archive(conn);
+            System.out.println(moved + " project(s) moved to the archive.");
+          } catch (SQLException e) {
+            System.out.println("Error archiving projects: " + e.getMessage());
+          }
+        }
+        default -> System.out.println("Invalid choice. Please try again.");
+      }
+    }
+  }
+
+  /** Displays the connection pool and cache counters. */
+  private static void printStatistics() {
+    DatabaseConnectionManager.PoolStats stats = DatabaseConnectionManager.getPoolStats();
+    System.out.println("\nActive Connections: " + stats.active() + " / " + stats.maxSize());
+    System.out.println("Idle Connections: " + stats.idle());
+    System.out.println("Borrows: " + stats.borrows() + " (timeouts: " + stats.timeouts() + ")");
+    System.out.println(
+        "Connections Opened: " + stats.created() + " (retired: " + stats.retired() + ")");
+    System.out.printf(
+        "Wait Time: avg %.2f ms, max %.2f ms%n", stats.averageWaitMillis(), stats.maxWaitMillis());
+    System.out.println("Search Index: " + ProjectSearchIndex.getInstance().describeStats());
+    System.out.println("Deadline Index: " + DeadlineIndex.getInstance().describeStats());
+    System.out.println("Change Feed: " + ChangeFeed.getInstance().describeStats());
+    System.out.println("Archive: " + ProjectArchive.getInstance().describeStats());
+    System.out.println("Project Cache: " + ProjectCache.getInstance().describeStats());
+    for (PersonDirectory directory : PersonDirectory.all().values()) {
+      System.out.println("Directory " + directory.describeStats());
+    }
+    System.out.println("Prepared Statements:");
+    for (String line : StatementRegistry.describeStats()) {
+      System.out.println("  " + line);
+    }
+  }
+
+  /**
+   * What the menu works from while the database cannot be reached.
+   *
+   * @param snapshot The local snapshot, for the people it holds and when it was saved.
+   * @param projects The snapshot's projects, loaded into memory for searching.
+   */
+  private record Offline(ProjectSnapshot snapshot, InMemoryProjectRepository projects) {}
 }
@@ -0,0 +1,254 @@
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Collects latency histograms for menu actions, SQL statements, connection waits and console I/O.
+ *
+ * <p>Metric names are prefixed by what they measure: {@code menu.} for menu actions, {@code sql.}
+ * for statements run through {@link StatementRegistry}, {@code pool.wait} for time spent waiting
+ * for a pooled connection, {@code http.} for API requests, and {@code console.output} and {@code
+ * console.input} for writing tables and waiting for the user to type. Menu actions are recorded without the time spent waiting for
+ * input, so they show how long the system itself took.
+ *
+ * <p>Every timing is also emitted as a {@code poised.Operation} JFR event, so a flight recording
+ * shows the same operations alongside GC and I/O activity.
+ */
+public class Metrics {
+  private static final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private Metrics() {}
+
+  /**
+   * Starts timing an operation. Call {@link Timing#stop()} when it finishes.
+   *
+   * @param name The metric name.
+   * @return The running timing.
+   */
+  public static Timing start(String name) {
+    Timing timing = new Timing();
+    timing.name = name;
+    timing.begin();
+    timing.startNanos = System.nanoTime();
+    return timing;
+  }
+
+  /**
+   * Adds to the number of rows an operation returned.
+   *
+   * @param name The metric name.
+   * @param rows The number of rows.
+   */
+  public static void addRows(String name, long rows) {
+    metric(name).rows.addAndGet(rows);
+  }
+
+  /**
+   * Returns the total time recorded under a name.
+   *
+   * @param name The metric name.
+   * @return The total in nanoseconds, or 0 if nothing has been recorded.
+   */
+  public static long totalNanos(String name) {
+    Metric metric = metrics.get(name);
+    return metric == null ? 0 : metric.histogram.totalNanos();
+  }
+
+  /**
+   * Wraps a stream so the time spent in each write and flush is recorded.
+   *
+   * @param out The stream to wrap.
+   * @param name The metric name.
+   * @return The wrapped stream.
+   */
+  public static OutputStream timeWrites(OutputStream out, String name) {
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        Timing timing = start(name);
+        try {
+          out.write(b, off, len);
+        } finally {
+          timing.stop();
+        }
+      }
+
+      @Override
+      public void flush() throws IOException {
+        Timing timing = start(name);
+        try {
+          out.flush();
+        } finally {
+          timing.stop();
+        }
+      }
+    };
+  }
+
+  /**
+   * Wraps a stream so the time spent blocked in each read is recorded.
+   *
+   * @param in The stream to wrap.
+   * @param name The metric name.
+   * @return The wrapped stream.
+   */
+  public static InputStream timeReads(InputStream in, String name) {
+    return new FilterInputStream(in) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        Timing timing = start(name);
+        try {
+          return in.read(b, off, len);
+        } finally {
+          timing.stop();
+        }
+      }
+    };
+  }
+
+  /**
+   * Describes every metric, one per line, sorted by name.
+   *
+   * @return The formatted lines, with a heading first.
+   */
+  public static List<String> describe() {
+    List<String> lines = new ArrayList<>();
+    lines.add(
+        String.format(
+            "%-40s %8s %10s %10s %10s %10s %10s %10s",
+            "Metric", "Count", "Mean", "p50", "p90", "p99", "Max", "Rows"));
+    for (Map.Entry<String, Metric> entry : new TreeMap<>(metrics).entrySet()) {
+      LatencyHistogram h = entry.getValue().histogram;
+      lines.add(
+          String.format(
+              "%-40s %8d %10s %10s %10s %10s %10s %10s",
+              entry.getKey(),
+              h.count(),
+              LatencyHistogram.format(h.meanNanos()),
+              LatencyHistogram.format(h.percentileNanos(50)),
+              LatencyHistogram.format(h.percentileNanos(90)),
+              LatencyHistogram.format(h.percentileNanos(99)),
+              LatencyHistogram.format(h.maxNanos()),
+              entry.getValue().rows.get() == 0 ? "" : entry.getValue().rows.get()));
+    }
+    return lines;
+  }
+
+  /**
+   * Writes every metric to a JSON file, with times in microseconds.
+   *
+   * @param target The file to create or overwrite.
+   * @throws IOException If the file cannot be written.
+   */
+  public static void dump(Path target) throws IOException {
+    StringBuilder json = new StringBuilder(4096);
+    json.append("{\"generated_at\":").append(Json.quote(Instant.now().toString()));
+    DatabaseConnectionManager.PoolStats pool = DatabaseConnectionManager.getPoolStats();
+    json.append(",\"pool\":{\"active\":").append(pool.active());
+    json.append(",\"idle\":").append(pool.idle());
+    json.append(",\"max_size\":").append(pool.maxSize());
+    json.append(",\"borrows\":").append(pool.borrows());
+    json.append(",\"timeouts\":").append(pool.timeouts()).append('}');
+    json.append(",\"metrics\":[");
+    boolean first = true;
+    for (Map.Entry<String, Metric> entry : new TreeMap<>(metrics).entrySet()) {
+      LatencyHistogram h = entry.getValue().histogram;
+      json.append(first ? "\n" : ",\n");
+      json.append("{\"name\":").append(Json.quote(entry.getKey()));
+      json.append(",\"count\":").append(h.count());
+      json.append(",\"rows\":").append(entry.getValue().rows.get());
+      json.append(String.format(",\"mean_us\":%.3f", h.meanNanos() / 1e3));
+      for (double percentile : PERCENTILES) {
+        json.append(String.format(",\"p%s_us\":%.3f", label(percentile), percentile(h, percentile)));
+      }
+      json.append(String.format(",\"max_us\":%.3f}", h.maxNanos() / 1e3));
+      first = false;
+    }
+    json.append("\n]}\n");
+    Files.writeString(target, json, StandardCharsets.UTF_8);
+  }
+
+  /** Discards everything recorded so far. */
+  public static void reset() {
+    metrics.clear();
+  }
+
+  private static Metric metric(String name) {
+    return metrics.computeIfAbsent(name, n -> new Metric());
+  }
+
+  private static double percentile(LatencyHistogram h, double percentile) {
+    return h.percentileNanos(percentile) / 1e3;
+  }
+
+  /** Turns 99.9 into {@code 999} and 50 into {@code 50}, for use in field names. */
+  private static String label(double percentile) {
+    return percentile == Math.rint(percentile)
+        ? String.valueOf((long) percentile)
+        : String.valueOf(percentile).replace(".", "");
+  }
+
+  /** A histogram plus the number of rows the measured operations returned. */
+  private static final class Metric {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLong rows = new AtomicLong();
+  }
+
+  /** A running measurement, recorded as a histogram value and a JFR event when stopped. */
+  @Name("poised.Operation")
+  @Label("PoisePMS Operation")
+  @Category("PoisePMS")
+  @Description("A timed menu action, SQL statement, connection wait or console read or write")
+  public static final class Timing extends Event {
+    @Label("Name")
+    String name;
+
+    @Label("Excluded Time")
+    @Description("Time within the operation spent waiting for user input, left out of the metric")
+    @Timespan(Timespan.NANOSECONDS)
+    long excludedNanos;
+
+    private transient long startNanos;
+
+    private Timing() {}
+
+    /** Stops the measurement and records it. */
+    public void stop() {
+      stop(0);
+    }
+
+    /**
+     * Stops the measurement and records it, leaving out time the operation spent idle.
+     *
+     * @param excludedNanos Nanoseconds to subtract from the recorded duration.
+     */
+    public void stop(long excludedNanos) {
+      long elapsed = System.nanoTime() - startNanos;
+      metric(name).histogram.record(elapsed - excludedNanos);
+      this.excludedNanos = excludedNanos;
+      end();
+      if (shouldCommit()) {
+        commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+/**
+ * A customer, architect or project manager.
+ *
+ * @param id The row ID in its person table.
+ * @param firstName The first name.
+ * @param lastName The last name.
+ * @param email The email address.
+ * @param phone The phone number.
+ * @param address The physical address.
+ */
+public record Person(
+    int id, String firstName, String lastName, String email, String phone, String address) {
+
+  /**
+   * Returns the person's full name.
+   *
+   * @return The first and last name separated by a space.
+   */
+  public String fullName() {
+    return firstName + " " + lastName;
+  }
+}
@@ -0,0 +1,308 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory directory of the people in one person table (Customer, Architect or ProjectManager).
+ *
+ * <p>The table is read once, on first use, and kept current as people are added through {@link
+ * #add(Person)}. Lookups by ID that miss the cache fall through to the database so rows inserted
+ * by other users are still found. Name searches are answered from sorted prefix indexes on first
+ * and last name, so only matching people are shown.
+ *
+ * <p>Database reads happen outside the directory's monitor, which is held only to look up or
+ * publish rows, so concurrent lookups do not queue behind one another's queries. The first load
+ * runs once, under a lock of its own, while other callers wait for it.
+ */
+public class PersonDirectory {
+  /** The tables that hold people. Table names are never taken from user input. */
+  public static final Set<String> PERSON_TABLES = Set.of("Customer", "Architect", "ProjectManager");
+
+  private static final Map<String, PersonDirectory> directories = new HashMap<>();
+
+  /** Separates the name from the ID in index keys; sorts before any printable character. */
+  private static final char KEY_SEPARATOR = '\u0000';
+
+  private final String tableName;
+  private final Map<Integer, Person> byId = new HashMap<>();
+  private final NavigableMap<String, Person> byLastName = new TreeMap<>();
+  private final NavigableMap<String, Person> byFirstName = new TreeMap<>();
+  private final Map<String, Person> byEmail = new HashMap<>();
+  /** Held while the table is read, so only one caller loads it; not the monitor. */
+  private final Lock loading = new ReentrantLock();
+  private volatile boolean loaded;
+  /** Bumped by {@link #invalidate()}, so a load that started before it is not published. */
+  private long generation;
+
+  private long hits;
+  private long misses;
+  private long refreshes;
+
+  private PersonDirectory(String tableName) {
+    this.tableName = tableName;
+  }
+
+  /**
+   * Returns the shared directory for a person table.
+   *
+   * @param tableName One of {@link #PERSON_TABLES}.
+   * @return The directory for that table.
+   * @throws IllegalArgumentException If the table does not hold people.
+   */
+  public static PersonDirectory forTable(String tableName) {
+    if (!PERSON_TABLES.contains(tableName)) {
+      throw new IllegalArgumentException("Not a person table: " + tableName);
+    }
+    synchronized (directories) {
+      return directories.computeIfAbsent(tableName, PersonDirectory::new);
+    }
+  }
+
+  /**
+   * Returns the directories that have been used so far.
+   *
+   * @return The directories, keyed by table name.
+   */
+  public static Map<String, PersonDirectory> all() {
+    synchronized (directories) {
+      return new LinkedHashMap<>(directories);
+    }
+  }
+
+  /**
+   * Finds a person by ID, reading through to the database on a cache miss.
+   *
+   * @param conn The database connection.
+   * @param id The person ID.
+   * @return The person, or {@code null} if no such person exists.
+   * @throws SQLException If the database read fails.
+   */
+  public Person find(Connection conn, int id) throws SQLException {
+    ensureLoaded(conn);
+    synchronized (this) {
+      Person person = byId.get(id);
+      if (person != null) {
+        hits++;
+        return person;
+      }
+      misses++;
+    }
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PERSON, tableName);
+    pstmt.setInt(1, id);
+    return readThrough(pstmt);
+  }
+
+  /**
+   * Finds people whose first or last name starts with the given text, ordered by last name.
+   *
+   * @param conn The database connection.
+   * @param prefix The text to match, ignoring case.
+   * @param limit The maximum number of matches to return.
+   * @return The matching people.
+   * @throws SQLException If the directory has to be loaded and the read fails.
+   */
+  public List<Person> search(Connection conn, String prefix, int limit) throws SQLException {
+    ensureLoaded(conn);
+    String from = prefix.toLowerCase(Locale.ROOT);
+    String to = from + Character.MAX_VALUE;
+
+    Map<Integer, Person> matches = new LinkedHashMap<>();
+    synchronized (this) {
+      hits++;
+      for (Person person : byLastName.subMap(from, to).values()) {
+        if (matches.size() >= limit) {
+          break;
+        }
+        matches.put(person.id(), person);
+      }
+      for (Person person : byFirstName.subMap(from, to).values()) {
+        if (matches.size() >= limit) {
+          break;
+        }
+        matches.putIfAbsent(person.id(), person);
+      }
+    }
+    return new ArrayList<>(matches.values());
+  }
+
+  /**
+   * Finds a person by email address, ignoring case, reading through to the database on a miss.
+   *
+   * @param conn The database connection.
+   * @param email The email address.
+   * @return The person, or {@code null} if nobody has that address.
+   * @throws SQLException If the database read fails.
+   */
+  public Person findByEmail(Connection conn, String email) throws SQLException {
+    ensureLoaded(conn);
+    synchronized (this) {
+      Person person = byEmail.get(email.toLowerCase(Locale.ROOT));
+      if (person != null) {
+        hits++;
+        return person;
+      }
+      misses++;
+    }
+    PreparedStatement pstmt =
+        StatementRegistry.prepare(conn, SqlQuery.SELECT_PERSON_BY_EMAIL, tableName);
+    pstmt.setString(1, email);
+    return readThrough(pstmt);
+  }
+
+  /**
+   * Finds a cached person with exactly the given first and last name, ignoring case.
+   *
+   * @param conn The database connection.
+   * @param firstName The first name.
+   * @param lastName The last name.
+   * @return The first matching person, or {@code null} if there is none.
+   * @throws SQLException If the directory has to be loaded and the read fails.
+   */
+  public Person findByName(Connection conn, String firstName, String lastName)
+      throws SQLException {
+    ensureLoaded(conn);
+    String from = lastName.toLowerCase(Locale.ROOT) + KEY_SEPARATOR;
+    synchronized (this) {
+      for (Person person : byLastName.subMap(from, from + Character.MAX_VALUE).values()) {
+        if (person.firstName() != null && person.firstName().equalsIgnoreCase(firstName)) {
+          hits++;
+          return person;
+        }
+      }
+      misses++;
+      return null;
+    }
+  }
+
+  /**
+   * Adds a newly created person to the directory.
+   *
+   * @param person The person that was inserted.
+   */
+  public synchronized void add(Person person) {
+    if (loaded) {
+      index(person);
+    }
+  }
+
+  /** Drops the cached rows so the next lookup reloads the table. */
+  public synchronized void invalidate() {
+    loaded = false;
+    generation++;
+    byId.clear();
+    byLastName.clear();
+    byFirstName.clear();
+    byEmail.clear();
+  }
+
+  /**
+   * Returns a one-line summary of the cache counters.
+   *
+   * @return The table name, cached row count and hit, miss and refresh counters.
+   */
+  public synchronized String describeStats() {
+    return String.format(
+        "%s: %d cached, %d hits, %d misses, %d refreshes",
+        tableName, byId.size(), hits, misses, refreshes);
+  }
+
+  /**
+   * Reads the whole table unless it is already loaded. Callers that arrive while another is
+   * loading wait for that load rather than starting their own.
+   */
+  private void ensureLoaded(Connection conn) throws SQLException {
+    if (loaded) {
+      return;
+    }
+    loading.lock();
+    try {
+      long startedAt;
+      synchronized (this) {
+        if (loaded) {
+          return;
+        }
+        startedAt = generation;
+      }
+      List<Person> people = new ArrayList<>();
+      PreparedStatement pstmt =
+          StatementRegistry.prepare(conn, SqlQuery.SELECT_PEOPLE, tableName);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          people.add(readPerson(rs));
+        }
+      }
+      synchronized (this) {
+        if (generation != startedAt) {
+          // Invalidated while reading; the next lookup loads again.
+          return;
+        }
+        for (Person person : people) {
+          index(person);
+        }
+        loaded = true;
+        refreshes++;
+      }
+    } finally {
+      loading.unlock();
+    }
+  }
+
+  /** Runs a single-person query and caches the row it finds. */
+  private Person readThrough(PreparedStatement pstmt) throws SQLException {
+    Person person = null;
+    try (ResultSet rs = pstmt.executeQuery()) {
+      if (rs.next()) {
+        person = readPerson(rs);
+      }
+    }
+    if (person != null) {
+      synchronized (this) {
+        index(person);
+      }
+    }
+    return person;
+  }
+
+  private void index(Person person) {
+    Person previous = byId.put(person.id(), person);
+    if (previous != null) {
+      byLastName.remove(key(previous.lastName(), previous));
+      byFirstName.remove(key(previous.firstName(), previous));
+      if (previous.email() != null) {
+        byEmail.remove(previous.email().toLowerCase(Locale.ROOT), previous);
+      }
+    }
+    byLastName.put(key(person.lastName(), person), person);
+    byFirstName.put(key(person.firstName(), person), person);
+    if (person.email() != null && !person.email().isEmpty()) {
+      byEmail.putIfAbsent(person.email().toLowerCase(Locale.ROOT), person);
+    }
+  }
+
+  private static String key(String name, Person person) {
+    String normalised = name == null ? "" : name.toLowerCase(Locale.ROOT);
+    return normalised + KEY_SEPARATOR + person.id();
+  }
+
+  private static Person readPerson(ResultSet rs) throws SQLException {
+    return new Person(
+        rs.getInt("id"),
+        rs.getString("first_name"),
+        rs.getString("last_name"),
+        rs.getString("email"),
+        rs.getString("phone"),
+        rs.getString("address"));
+  }
+}
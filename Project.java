@@ -0,0 +1,67 @@
+import java.time.LocalDate;
+
+/**
+ * A row of the {@code Project} table.
+ *
+ * @param id The project number.
+ * @param name The project name.
+ * @param buildingType The type of building being designed.
+ * @param address The physical address.
+ * @param erfNumber The ERF number.
+ * @param totalFee The total fee charged for the project.
+ * @param amountPaid The total amount paid to date.
+ * @param deadline The project deadline.
+ * @param finalised Whether the project has been finalised.
+ * @param completionDate The completion date, or {@code null} if not finalised.
+ * @param customerId The customer's ID.
+ * @param architectId The architect's ID.
+ * @param projectManagerId The project manager's ID.
+ * @param structuralEngineer The structural engineer's name.
+ */
+public record Project(
+    int id,
+    String name,
+    String buildingType,
+    String address,
+    String erfNumber,
+    double totalFee,
+    double amountPaid,
+    LocalDate deadline,
+    boolean finalised,
+    LocalDate completionDate,
+    int customerId,
+    int architectId,
+    int projectManagerId,
+    String structuralEngineer) {
+
+  /**
+   * Returns the project as a JSON object, using the same field names as {@link ProjectExporter}.
+   *
+   * @return The JSON text.
+   */
+  public String toJson() {
+    StringBuilder out = new StringBuilder(256);
+    out.append("{\"id\":").append(id);
+    out.append(",\"name\":");
+    Json.appendString(out, name);
+    out.append(",\"building_type\":");
+    Json.appendString(out, buildingType);
+    out.append(",\"address\":");
+    Json.appendString(out, address);
+    out.append(",\"erf_number\":");
+    Json.appendString(out, erfNumber);
+    out.append(",\"total_fee\":").append(totalFee);
+    out.append(",\"amount_paid\":").append(amountPaid);
+    out.append(",\"deadline\":");
+    Json.appendString(out, deadline == null ? null : deadline.toString());
+    out.append(",\"finalised\":").append(finalised);
+    out.append(",\"completion_date\":");
+    Json.appendString(out, completionDate == null ? null : completionDate.toString());
+    out.append(",\"customer_id\":").append(customerId);
+    out.append(",\"architect_id\":").append(architectId);
+    out.append(",\"project_manager_id\":").append(projectManagerId);
+    out.append(",\"structural_engineer\":");
+    Json.appendString(out, structuralEngineer);
+    return out.append('}').toString();
+  }
+}
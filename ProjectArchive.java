@@ -0,0 +1,296 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves finalised projects out of the {@code Project} table once they are old, so listing,
+ * searching and the deadline queries only work through projects that can still change.
+ *
+ * <p>A project is archived when it was finalised more than {@code poised.archive.afterDays} ago
+ * and is paid in full. Projects are moved into {@code project_archive}, which is stored by
+ * completion year, in batches of {@code poised.archive.batchSize}: each batch is copied and deleted
+ * in one transaction and recorded in the {@link ChangeFeed} as deletions, so every instance drops
+ * the projects from its indexes.
+ *
+ * <p>Archived projects are not in the search index; {@link #search} reads them from the archive
+ * table when asked to. The {@link FinancialReport} and {@link Dashboard} cover live projects only:
+ * archiving leaves outstanding balances as they were, but takes the archived projects out of their
+ * project counts and fee and paid totals.
+ *
+ * <p>Background archiving is off unless {@code poised.archive=true}; the Diagnostics menu can
+ * still run it once on request.
+ */
+public class ProjectArchive {
+  /** Whether projects are archived in the background. */
+  static final boolean ENABLED = Boolean.getBoolean("poised.archive");
+
+  private static final int AFTER_DAYS = Integer.getInteger("poised.archive.afterDays", 365);
+  private static final int BATCH_SIZE = Integer.getInteger("poised.archive.batchSize", 500);
+  private static final long INTERVAL_MINUTES = Long.getLong("poised.archive.intervalMinutes", 60);
+  /** Time between batches, so a large backlog does not hold the database's attention. */
+  private static final long PAUSE_MILLIS = Long.getLong("poised.archive.pauseMillis", 200);
+  private static final int PAGE_SIZE = Integer.getInteger("poised.list.pageSize", 50);
+
+  private static final ProjectArchive INSTANCE = new ProjectArchive();
+
+  /** Held while moving projects, so a manual run and the background run take turns. */
+  private final Object moving = new Object();
+  private ScheduledExecutorService mover;
+
+  private long runs;
+  private long archived;
+  private long failures;
+  private String lastError;
+
+  private ProjectArchive() {}
+
+  /**
+   * Returns the shared archive.
+   *
+   * @return The application-wide project archive.
+   */
+  public static ProjectArchive getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Moves every project due for archiving, a batch at a time. Batches already moved stay moved if
+   * a later one fails.
+   *
+   * @param conn The database connection; it must be in auto-commit mode.
+   * @return The number of projects archived.
+   * @throws SQLException If a batch cannot be moved.
+   */
+  public int archive(Connection conn) throws SQLException {
+    LocalDate cutoff = LocalDate.now().minusDays(AFTER_DAYS);
+    int total = 0;
+    synchronized (moving) {
+      synchronized (this) {
+        runs++;
+      }
+      while (true) {
+        int moved = moveBatch(conn, cutoff);
+        total += moved;
+        synchronized (this) {
+          archived += moved;
+        }
+        if (moved < BATCH_SIZE) {
+          return total;
+        }
+        try {
+          Thread.sleep(PAUSE_MILLIS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return total;
+        }
+      }
+    }
+  }
+
+  /**
+   * Searches archived projects by number, or by any part of their name, address or ERF number,
+   * most recently completed first. Unlike project search this reads the archive table itself.
+   *
+   * @param conn The database connection.
+   * @param term The project number or text to look for; blank matches every project.
+   * @param year The completion year to search, or {@code null} for every year.
+   * @param offset The number of matches to skip.
+   * @param limit The most matches to return.
+   * @return The matching archived projects.
+   * @throws SQLException If the archive cannot be read.
+   */
+  public static List<Project> search(
+      Connection conn, String term, Integer year, int offset, int limit) throws SQLException {
+    String text = term.trim();
+    int id = text.matches("\\d{1,9}") ? Integer.parseInt(text) : -1;
+    String pattern = "%" + escapeLike(text.toLowerCase(Locale.ROOT)) + "%";
+
+    PreparedStatement pstmt =
+        StatementRegistry.prepare(
+            conn, year == null ? SqlQuery.SEARCH_ARCHIVE : SqlQuery.SEARCH_ARCHIVE_IN_YEAR);
+    int i = 1;
+    if (year != null) {
+      pstmt.setInt(i++, year);
+    }
+    pstmt.setInt(i++, id);
+    pstmt.setString(i++, pattern);
+    pstmt.setString(i++, pattern);
+    pstmt.setString(i++, pattern);
+    pstmt.setInt(i++, limit);
+    pstmt.setInt(i, offset);
+    List<Project> projects = new ArrayList<>();
+    try (ResultSet rs = pstmt.executeQuery()) {
+      while (rs.next()) {
+        projects.add(ProjectManager.readProject(rs));
+      }
+    }
+    return projects;
+  }
+
+  /**
+   * Prompts for a search term and completion year and lists the matching archived projects one
+   * page at a time.
+   *
+   * @param conn The database connection.
+   * @param scanner The scanner to read user input.
+   */
+  public static void searchArchive(Connection conn, Scanner scanner) {
+    System.out.print("Enter Project ID or Name to search the archive: ");
+    String input = scanner.nextLine();
+    System.out.print("Enter Completion Year (leave blank for any year): ");
+    String yearInput = scanner.nextLine().trim();
+    if (!yearInput.isEmpty() && !yearInput.matches("\\d{4}")) {
+      System.out.println("Invalid year. Please enter a year such as 2021.");
+      return;
+    }
+    Integer year = yearInput.isEmpty() ? null : Integer.valueOf(yearInput);
+
+    TableWriter table =
+        TableWriter.toConsole(
+            new String[] {"ID", "Project Name", "Building Type", "Completed"},
+            new int[] {6, 36, 14, 10});
+    try {
+      int shown = 0;
+      while (true) {
+        // One extra row tells whether another page follows without counting every match.
+        List<Project> page = search(conn, input, year, shown, PAGE_SIZE + 1);
+        if (page.isEmpty() && shown == 0) {
+          System.out.println("No archived project found with the given ID or name.");
+          return;
+        }
+        if (shown == 0) {
+          table.writeHeader();
+        }
+        for (Project project : page.subList(0, Math.min(PAGE_SIZE, page.size()))) {
+          table.writeRow(
+              project.id(), project.name(), project.buildingType(), project.completionDate());
+        }
+        shown += Math.min(PAGE_SIZE, page.size());
+        table.writeLine(shown + " archived match(es) shown.");
+        table.flush();
+        if (page.size() <= PAGE_SIZE) {
+          return;
+        }
+        System.out.print("Press Enter for the next page or 'q' to stop: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+          return;
+        }
+      }
+    } catch (SQLException e) {
+      System.out.println("Error searching the archive: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Starts archiving in the background every {@code poised.archive.intervalMinutes}, each time on
+   * a connection borrowed from the pool. The first run starts straight away.
+   */
+  public synchronized void start() {
+    stop();
+    if (!ENABLED) {
+      return;
+    }
+    mover =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "project-archiver");
+              thread.setDaemon(true);
+              return thread;
+            });
+    mover.scheduleWithFixedDelay(
+        this::archiveInBackground, 0, INTERVAL_MINUTES, TimeUnit.MINUTES);
+  }
+
+  /** Stops archiving in the background, if it was started. A batch in progress is finished. */
+  public synchronized void stop() {
+    if (mover != null) {
+      mover.shutdownNow();
+      mover = null;
+    }
+  }
+
+  /**
+   * Returns a one-line summary of the archiver.
+   *
+   * @return What is archived, how often, and the counters since startup.
+   */
+  public synchronized String describeStats() {
+    return String.format(
+        "%s, finalised over %d days ago and paid in full; %d archived in %d runs, %d failures%s",
+        mover == null ? "not running" : "every " + INTERVAL_MINUTES + " min",
+        AFTER_DAYS,
+        archived,
+        runs,
+        failures,
+        lastError == null ? "" : " (last: " + lastError + ")");
+  }
+
+  private void archiveInBackground() {
+    // An exception escaping a scheduled task would cancel every later run.
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      archive(conn);
+    } catch (SQLException | RuntimeException e) {
+      synchronized (this) {
+        failures++;
+        lastError = e.getMessage();
+      }
+    }
+  }
+
+  /**
+   * Copies one batch of due projects into the archive and deletes them from {@code Project}, in
+   * one transaction, then tells listeners they are gone.
+   */
+  private static int moveBatch(Connection conn, LocalDate cutoff) throws SQLException {
+    List<Integer> ids = new ArrayList<>();
+    conn.setAutoCommit(false);
+    try {
+      PreparedStatement select =
+          StatementRegistry.prepare(conn, SqlQuery.SELECT_ARCHIVE_CANDIDATES);
+      select.setDate(1, Date.valueOf(cutoff));
+      select.setInt(2, BATCH_SIZE);
+      try (ResultSet rs = select.executeQuery()) {
+        while (rs.next()) {
+          ids.add(rs.getInt(1));
+        }
+      }
+      if (!ids.isEmpty()) {
+        PreparedStatement copy = StatementRegistry.prepare(conn, SqlQuery.ARCHIVE_PROJECT);
+        PreparedStatement delete = StatementRegistry.prepare(conn, SqlQuery.DELETE_PROJECT);
+        for (int id : ids) {
+          copy.setInt(1, id);
+          copy.addBatch();
+          delete.setInt(1, id);
+          delete.addBatch();
+        }
+        copy.executeBatch();
+        delete.executeBatch();
+        ChangeFeed.record(conn, ChangeFeed.Type.DELETED, ids);
+      }
+      conn.commit();
+    } catch (SQLException | RuntimeException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+    for (int id : ids) {
+      ProjectManager.notifyDeleted(id);
+    }
+    return ids.size();
+  }
+
+  private static String escapeLike(String text) {
+    return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
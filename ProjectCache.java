@@ -0,0 +1,183 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of recently read projects and the people they refer to, so repeated lookups of the
+ * same project do not go back to the database.
+ *
+ * <p>Entries are added as projects are read through {@link ProjectManager}, and dropped when the
+ * project is updated, finalised or deleted, when the cache holds more than {@code
+ * poised.cache.projects.maxSize} projects (least recently used first), or once they are older than
+ * {@code poised.cache.projects.ttlSeconds}, so changes made by other processes are picked up. Set
+ * {@code poised.cache.projects=false} to turn the cache off; it can also be switched at runtime
+ * from the diagnostics menu.
+ */
+public class ProjectCache {
+  private static final int MAX_ENTRIES =
+      Integer.getInteger("poised.cache.projects.maxSize", 10_000);
+  private static final long TTL_NANOS =
+      TimeUnit.SECONDS.toNanos(Long.getLong("poised.cache.projects.ttlSeconds", 300));
+
+  private static final ProjectCache INSTANCE = new ProjectCache();
+
+  private final Map<Integer, Cached> entries =
+      new LinkedHashMap<>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Cached> eldest) {
+          if (size() > MAX_ENTRIES) {
+            evictions++;
+            return true;
+          }
+          return false;
+        }
+      };
+  private boolean enabled =
+      Boolean.parseBoolean(System.getProperty("poised.cache.projects", "true"));
+
+  /** Incremented on every invalidation, so a read that raced with a write is not cached. */
+  private long generation;
+
+  private long hits;
+  private long misses;
+  private long expirations;
+  private long evictions;
+  private long invalidations;
+
+  private ProjectCache() {}
+
+  /**
+   * Returns the shared cache.
+   *
+   * @return The cache.
+   */
+  public static ProjectCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns a cached project, counting a hit or a miss.
+   *
+   * @param projectId The project ID.
+   * @return The cached project, or {@code null} if it is not cached, has expired or the cache is
+   *     off.
+   */
+  public synchronized ProjectDetails lookup(int projectId) {
+    if (!enabled) {
+      return null;
+    }
+    Cached cached = entries.get(projectId);
+    if (cached != null && System.nanoTime() - cached.loadedAt < TTL_NANOS) {
+      hits++;
+      return cached.details;
+    }
+    if (cached != null) {
+      entries.remove(projectId);
+      expirations++;
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Returns a stamp to pass to {@link #store} for a project about to be read from the database.
+   *
+   * @return The current invalidation count.
+   */
+  public synchronized long stamp() {
+    return generation;
+  }
+
+  /**
+   * Resolves a project's people and caches the result, unless a project was invalidated since the
+   * stamp was taken, in which case the row read may already be out of date.
+   *
+   * @param conn The database connection, used to look up people not yet in {@link PersonDirectory}.
+   * @param project The project as just read from the database.
+   * @param stamp The value of {@link #stamp()} taken before the project was read.
+   * @return The project with its people.
+   * @throws SQLException If a person cannot be read.
+   */
+  public ProjectDetails store(Connection conn, Project project, long stamp) throws SQLException {
+    ProjectDetails details =
+        new ProjectDetails(
+            project,
+            PersonDirectory.forTable("Customer").find(conn, project.customerId()),
+            PersonDirectory.forTable("Architect").find(conn, project.architectId()),
+            PersonDirectory.forTable("ProjectManager").find(conn, project.projectManagerId()));
+    synchronized (this) {
+      if (enabled && generation == stamp) {
+        entries.put(project.id(), new Cached(details, System.nanoTime()));
+      }
+    }
+    return details;
+  }
+
+  /**
+   * Drops a project from the cache. {@link ProjectManager} calls this whenever it writes a project.
+   *
+   * @param projectId The project that changed.
+   */
+  public synchronized void invalidate(int projectId) {
+    generation++;
+    if (entries.remove(projectId) != null) {
+      invalidations++;
+    }
+  }
+
+  /** Drops every cached project, e.g. after a rolled-back transaction. */
+  public synchronized void clear() {
+    generation++;
+    invalidations += entries.size();
+    entries.clear();
+  }
+
+  /**
+   * Turns the cache on or off. Turning it off empties it.
+   *
+   * @param enabled Whether to cache projects.
+   */
+  public synchronized void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    if (!enabled) {
+      clear();
+    }
+  }
+
+  /**
+   * Returns whether the cache is on.
+   *
+   * @return Whether projects are cached.
+   */
+  public synchronized boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns a one-line summary of the cache counters.
+   *
+   * @return Whether the cache is on, its size and hit rate, and expiry, eviction and invalidation
+   *     counts.
+   */
+  public synchronized String describeStats() {
+    long lookups = hits + misses;
+    return String.format(
+        "%s, %d of %d cached, %d hits, %d misses (%.1f%% hit rate), %d expired, %d evicted,"
+            + " %d invalidated",
+        enabled ? "on" : "off",
+        entries.size(),
+        MAX_ENTRIES,
+        hits,
+        misses,
+        lookups == 0 ? 0.0 : 100.0 * hits / lookups,
+        expirations,
+        evictions,
+        invalidations);
+  }
+
+  private record Cached(ProjectDetails details, long loadedAt) {}
+}
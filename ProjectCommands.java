@@ -0,0 +1,355 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs project operations named by a command and a map of arguments, and returns the result as
+ * JSON. Used wherever operations arrive without a person at the console to answer prompts.
+ *
+ * <p>Commands and their arguments (optional ones in brackets):
+ *
+ * <ul>
+ *   <li>{@code add} building_type, address, erf_number, total_fee, amount_paid, deadline,
+ *       customer_id, architect_id, project_manager_id, [name], [structural_engineer]
+ *   <li>{@code get} id
+ *   <li>{@code update} id, [name], [deadline]
+ *   <li>{@code finalise} id, [completion_date] (defaults to today)
+ *   <li>{@code delete} id
+ *   <li>{@code search} query, [offset], [limit], [archive] (true searches archived projects
+ *       instead; see {@link ProjectArchive}), [year] (completion year, with archive only)
+ *   <li>{@code list} [filter] (all, incomplete or overdue), [after] (the last project number of
+ *       the previous page; incomplete and overdue pages run in deadline order), [limit]
+ *   <li>{@code report} (outstanding balances; see {@link FinancialReport})
+ *   <li>{@code finalise_matching} and {@code delete_matching} [ids], [from_id], [to_id],
+ *       [deadline_before], [building_type], [customer_id] (at least one), [dry_run], for
+ *       finalising [completion_date], and for deleting [remove_people] (true also deletes the
+ *       people no project refers to any more; see {@link BulkProjectOperations})
+ * </ul>
+ */
+public class ProjectCommands {
+  private static final int DEFAULT_LIMIT = 50;
+  private static final int MAX_LIMIT = 1_000;
+
+  private static final Map<String, Set<String>> ARGUMENTS =
+      Map.of(
+          "add",
+          Set.of(
+              "name",
+              "building_type",
+              "address",
+              "erf_number",
+              "total_fee",
+              "amount_paid",
+              "deadline",
+              "customer_id",
+              "architect_id",
+              "project_manager_id",
+              "structural_engineer"),
+          "get", Set.of("id"),
+          "update", Set.of("id", "name", "deadline"),
+          "finalise", Set.of("id", "completion_date"),
+          "delete", Set.of("id"),
+          "search", Set.of("query", "offset", "limit", "archive", "year"),
+          "list", Set.of("filter", "after", "limit"),
+          "report", Set.of(),
+          "finalise_matching", withFilter("completion_date", "dry_run"),
+          "delete_matching", withFilter("dry_run", "remove_people"));
+
+  private ProjectCommands() {}
+
+  /**
+   * Returns the names of the supported commands.
+   *
+   * @return The command names.
+   */
+  public static Set<String> names() {
+    return ARGUMENTS.keySet();
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param conn The database connection.
+   * @param command The command name.
+   * @param args The arguments, by name.
+   * @return The result as JSON.
+   * @throws NotFoundException If the project does not exist.
+   * @throws IllegalArgumentException If the command or an argument is missing or invalid.
+   * @throws SQLException If the database operation fails.
+   */
+  public static String execute(Connection conn, String command, Map<String, String> args)
+      throws SQLException {
+    Set<String> allowed = ARGUMENTS.get(command);
+    if (allowed == null) {
+      throw new IllegalArgumentException("Unknown command: " + command);
+    }
+    for (String name : args.keySet()) {
+      if (!allowed.contains(name)) {
+        throw new IllegalArgumentException("Unknown argument for " + command + ": " + name);
+      }
+    }
+
+    ProjectRepository projects = new JdbcProjectRepository(conn);
+    return switch (command) {
+      case "add" -> add(conn, projects, args).toJson();
+      case "get" -> {
+        ProjectDetails details = ProjectManager.loadProjectDetails(conn, integer(args, "id"));
+        if (details == null) {
+          throw new NotFoundException("No project with ID " + integer(args, "id"));
+        }
+        yield details.toJson();
+      }
+      case "update" -> update(projects, args).toJson();
+      case "finalise" -> finalise(projects, args).toJson();
+      case "delete" -> delete(projects, args);
+      case "search" -> search(conn, projects, args);
+      case "report" -> FinancialReport.generate(conn).toJson();
+      case "finalise_matching", "delete_matching" -> bulk(conn, command, args);
+      default -> list(conn, projects, args);
+    };
+  }
+
+  private static Project add(Connection conn, ProjectRepository projects, Map<String, String> args)
+      throws SQLException {
+    int customerId = person(conn, args, "customer_id", "Customer");
+    int architectId = person(conn, args, "architect_id", "Architect");
+    int projectManagerId = person(conn, args, "project_manager_id", "ProjectManager");
+    return projects.insert(
+        new Project(
+            0,
+            args.getOrDefault("name", ""),
+            required(args, "building_type"),
+            required(args, "address"),
+            required(args, "erf_number"),
+            decimal(args, "total_fee"),
+            decimal(args, "amount_paid"),
+            date(args, "deadline"),
+            false,
+            null,
+            customerId,
+            architectId,
+            projectManagerId,
+            args.getOrDefault("structural_engineer", "")));
+  }
+
+  private static Project update(ProjectRepository projects, Map<String, String> args)
+      throws SQLException {
+    int id = integer(args, "id");
+    LocalDate deadline =
+        args.getOrDefault("deadline", "").isEmpty() ? null : date(args, "deadline");
+    return found(projects.update(id, args.get("name"), deadline), args);
+  }
+
+  private static Project finalise(ProjectRepository projects, Map<String, String> args)
+      throws SQLException {
+    int id = integer(args, "id");
+    LocalDate completed =
+        args.containsKey("completion_date") ? date(args, "completion_date") : LocalDate.now();
+    return found(projects.finalise(id, completed), args);
+  }
+
+  private static String delete(ProjectRepository projects, Map<String, String> args)
+      throws SQLException {
+    int id = integer(args, "id");
+    if (!projects.delete(id)) {
+      throw new NotFoundException("No project with ID " + id);
+    }
+    return "{\"deleted\":" + id + "}";
+  }
+
+  private static String search(
+      Connection conn, ProjectRepository projects, Map<String, String> args) throws SQLException {
+    String query = required(args, "query");
+    int offset = args.containsKey("offset") ? integer(args, "offset") : 0;
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset cannot be negative");
+    }
+    if (flag(args, "archive")) {
+      return searchArchive(conn, query, offset, args);
+    }
+    if (args.containsKey("year")) {
+      throw new IllegalArgumentException("year applies only with archive=true");
+    }
+    ProjectRepository.SearchPage result = projects.search(query, offset, limit(args));
+    StringBuilder out = new StringBuilder("{\"total\":").append(result.total());
+    out.append(",\"projects\":[");
+    appendProjects(out, result.projects());
+    return out.append("]}").toString();
+  }
+
+  private static String searchArchive(
+      Connection conn, String query, int offset, Map<String, String> args) throws SQLException {
+    Integer year = args.containsKey("year") ? integer(args, "year") : null;
+    int limit = limit(args);
+    // One extra row tells whether more follow; the archive is not counted.
+    List<Project> projects = ProjectArchive.search(conn, query, year, offset, limit + 1);
+    StringBuilder out = new StringBuilder("{\"archived\":true,\"more\":");
+    out.append(projects.size() > limit).append(",\"projects\":[");
+    appendProjects(out, projects.subList(0, Math.min(limit, projects.size())));
+    return out.append("]}").toString();
+  }
+
+  private static String list(
+      Connection conn, ProjectRepository projects, Map<String, String> args) throws SQLException {
+    String filter = args.getOrDefault("filter", "all").toLowerCase(Locale.ROOT);
+    int limit = limit(args);
+    StringBuilder out = new StringBuilder();
+    if (filter.equals("all")) {
+      int after = args.containsKey("after") ? integer(args, "after") : 0;
+      out.append("{\"projects\":[");
+      appendProjects(out, projects.list(after, limit));
+      return out.append("]}").toString();
+    }
+
+    LocalDate dueBefore =
+        switch (filter) {
+          case "incomplete" -> null;
+          case "overdue" -> LocalDate.now();
+          default -> throw new IllegalArgumentException("Unknown filter: " + filter);
+        };
+    DeadlineIndex deadlines = DeadlineIndex.getInstance();
+    deadlines.ensureLoaded(conn);
+    DeadlineIndex.Entry after = null;
+    if (args.containsKey("after")) {
+      after = deadlineCursor(deadlines, projects, integer(args, "after"));
+    }
+    DeadlineIndex.Page page = deadlines.page(dueBefore, after, limit);
+    List<DeadlineIndex.Entry> entries = page.entries();
+    out.append("{\"total\":").append(page.total()).append(",\"projects\":[");
+    for (int i = 0; i < entries.size(); i++) {
+      DeadlineIndex.Entry entry = entries.get(i);
+      out.append(i == 0 ? "" : ",").append("{\"id\":").append(entry.projectId());
+      out.append(",\"name\":");
+      Json.appendString(out, entry.name());
+      out.append(",\"deadline\":");
+      Json.appendString(out, entry.deadline().toString());
+      out.append('}');
+    }
+    return out.append("]}").toString();
+  }
+
+  /**
+   * Finds where the previous page of a deadline-ordered list ended. The project may have been
+   * finalised since, so its deadline is read from the repository if the index no longer holds it.
+   */
+  private static DeadlineIndex.Entry deadlineCursor(
+      DeadlineIndex deadlines, ProjectRepository projects, int afterId) throws SQLException {
+    DeadlineIndex.Entry entry = deadlines.find(afterId);
+    if (entry != null) {
+      return entry;
+    }
+    Project project = projects.find(afterId);
+    if (project == null || project.deadline() == null) {
+      throw new IllegalArgumentException(
+          "after must be a project from the previous page; no project " + afterId);
+    }
+    return new DeadlineIndex.Entry(afterId, project.name(), project.deadline());
+  }
+
+  private static String bulk(Connection conn, String command, Map<String, String> args)
+      throws SQLException {
+    BulkProjectOperations.Action action =
+        command.equals("finalise_matching")
+            ? BulkProjectOperations.Action.FINALISE
+            : BulkProjectOperations.Action.DELETE;
+    BulkProjectOperations.Filter filter = BulkProjectOperations.Filter.parse(args);
+    if (flag(args, "dry_run")) {
+      return BulkProjectOperations.preview(conn, action, filter).toJson();
+    }
+    LocalDate completed =
+        args.containsKey("completion_date") ? date(args, "completion_date") : LocalDate.now();
+    return BulkProjectOperations.apply(conn, action, filter, completed, flag(args, "remove_people"))
+        .toJson();
+  }
+
+  private static Set<String> withFilter(String... extra) {
+    Set<String> names = new HashSet<>(BulkProjectOperations.Filter.ARGUMENTS);
+    names.addAll(List.of(extra));
+    return names;
+  }
+
+  private static void appendProjects(StringBuilder out, List<Project> projects) {
+    for (int i = 0; i < projects.size(); i++) {
+      out.append(i == 0 ? "" : ",").append(projects.get(i).toJson());
+    }
+  }
+
+  private static Project found(Project project, Map<String, String> args) {
+    if (project == null) {
+      throw new NotFoundException("No project with ID " + integer(args, "id"));
+    }
+    return project;
+  }
+
+  private static int person(Connection conn, Map<String, String> args, String name, String table)
+      throws SQLException {
+    int id = integer(args, name);
+    if (PersonDirectory.forTable(table).find(conn, id) == null) {
+      throw new IllegalArgumentException("No " + table + " with ID " + id);
+    }
+    return id;
+  }
+
+  private static String required(Map<String, String> args, String name) {
+    String value = args.get(name);
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("Missing argument: " + name);
+    }
+    return value.trim();
+  }
+
+  private static boolean flag(Map<String, String> args, String name) {
+    String value = args.getOrDefault(name, "false").trim().toLowerCase(Locale.ROOT);
+    if (!value.equals("true") && !value.equals("false")) {
+      throw new IllegalArgumentException(name + " must be true or false: " + value);
+    }
+    return value.equals("true");
+  }
+
+  private static int integer(Map<String, String> args, String name) {
+    String value = required(args, name);
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a whole number: " + value);
+    }
+  }
+
+  private static double decimal(Map<String, String> args, String name) {
+    String value = required(args, name);
+    if (!InputValidator.isValidDouble(value)) {
+      throw new IllegalArgumentException(name + " must be a number: " + value);
+    }
+    return Double.parseDouble(value);
+  }
+
+  private static LocalDate date(Map<String, String> args, String name) {
+    String value = required(args, name);
+    if (!InputValidator.isValidDate(value)) {
+      throw new IllegalArgumentException(name + " must be a date in YYYY-MM-DD format: " + value);
+    }
+    return LocalDate.parse(value);
+  }
+
+  private static int limit(Map<String, String> args) {
+    int limit = args.containsKey("limit") ? integer(args, "limit") : DEFAULT_LIMIT;
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+    }
+    return limit;
+  }
+
+  /** Thrown when a command or request names something that does not exist. */
+  public static class NotFoundException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    NotFoundException(String message) {
+      super(message);
+    }
+  }
+}
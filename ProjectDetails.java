@@ -0,0 +1,47 @@
+/**
+ * A project together with the people it refers to.
+ *
+ * @param project The project.
+ * @param customer The customer, or {@code null} if the row no longer exists.
+ * @param architect The architect, or {@code null} if the row no longer exists.
+ * @param projectManager The project manager, or {@code null} if the row no longer exists.
+ */
+public record ProjectDetails(
+    Project project, Person customer, Person architect, Person projectManager) {
+
+  /**
+   * Returns the project as JSON, as {@link Project#toJson()} does, with each person added as a
+   * nested object.
+   *
+   * @return The JSON text.
+   */
+  public String toJson() {
+    String json = project.toJson();
+    StringBuilder out = new StringBuilder(json.length() + 512);
+    out.append(json, 0, json.length() - 1);
+    appendPerson(out, "customer", customer);
+    appendPerson(out, "architect", architect);
+    appendPerson(out, "project_manager", projectManager);
+    return out.append('}').toString();
+  }
+
+  private static void appendPerson(StringBuilder out, String field, Person person) {
+    out.append(",\"").append(field).append("\":");
+    if (person == null) {
+      out.append("null");
+      return;
+    }
+    out.append("{\"id\":").append(person.id());
+    out.append(",\"first_name\":");
+    Json.appendString(out, person.firstName());
+    out.append(",\"last_name\":");
+    Json.appendString(out, person.lastName());
+    out.append(",\"email\":");
+    Json.appendString(out, person.email());
+    out.append(",\"phone\":");
+    Json.appendString(out, person.phone());
+    out.append(",\"address\":");
+    Json.appendString(out, person.address());
+    out.append('}');
+  }
+}
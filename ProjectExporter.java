@@ -0,0 +1,273 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the project register, joined with its customer, architect and project manager, to CSV or
+ * JSON Lines.
+ *
+ * <p>Rows are streamed from the result set straight into a buffered writer on a {@link
+ * FileChannel}, optionally through gzip, so memory use does not depend on the number of projects.
+ * The CSV columns use the same names as {@link ProjectImporter}, so an export can be re-imported.
+ * The rows are written to a temporary file next to the target, which replaces the target only once
+ * the export is complete, so a failed export leaves any earlier file as it was.
+ */
+public class ProjectExporter {
+  private static final int BUFFER_SIZE = 256 * 1024;
+  private static final int FETCH_SIZE = 1_000;
+
+  /** Output file formats. */
+  public enum Format {
+    CSV,
+    JSON_LINES
+  }
+
+  /** Which projects to export. */
+  public enum Filter {
+    ALL(SqlQuery.EXPORT_PROJECTS),
+    FINALISED(SqlQuery.EXPORT_FINALISED_PROJECTS),
+    INCOMPLETE(SqlQuery.EXPORT_INCOMPLETE_PROJECTS),
+    OVERDUE(SqlQuery.EXPORT_OVERDUE_PROJECTS);
+
+    private final SqlQuery query;
+
+    Filter(SqlQuery query) {
+      this.query = query;
+    }
+  }
+
+  private enum Kind {
+    TEXT,
+    NUMBER,
+    BOOLEAN,
+    DATE
+  }
+
+  private record Column(String label, Kind kind) {}
+
+  private static final Column[] COLUMNS = {
+    new Column("id", Kind.NUMBER),
+    new Column("name", Kind.TEXT),
+    new Column("building_type", Kind.TEXT),
+    new Column("address", Kind.TEXT),
+    new Column("erf_number", Kind.TEXT),
+    new Column("total_fee", Kind.NUMBER),
+    new Column("amount_paid", Kind.NUMBER),
+    new Column("deadline", Kind.DATE),
+    new Column("finalised", Kind.BOOLEAN),
+    new Column("completion_date", Kind.DATE),
+    new Column("structural_engineer", Kind.TEXT),
+    new Column("customer_first_name", Kind.TEXT),
+    new Column("customer_last_name", Kind.TEXT),
+    new Column("customer_email", Kind.TEXT),
+    new Column("customer_phone", Kind.TEXT),
+    new Column("customer_address", Kind.TEXT),
+    new Column("architect_first_name", Kind.TEXT),
+    new Column("architect_last_name", Kind.TEXT),
+    new Column("architect_email", Kind.TEXT),
+    new Column("architect_phone", Kind.TEXT),
+    new Column("architect_address", Kind.TEXT),
+    new Column("project_manager_first_name", Kind.TEXT),
+    new Column("project_manager_last_name", Kind.TEXT),
+    new Column("project_manager_email", Kind.TEXT),
+    new Column("project_manager_phone", Kind.TEXT),
+    new Column("project_manager_address", Kind.TEXT),
+  };
+
+  private ProjectExporter() {}
+
+  /**
+   * Prompts for the export options and writes the file.
+   *
+   * @param conn The database connection.
+   * @param scanner The scanner to read user input.
+   */
+  public static void exportProjects(Connection conn, Scanner scanner) {
+    Path target = Path.of(InputValidator.getValidString("Enter Output File Path"));
+    String name = target.getFileName().toString().toLowerCase(Locale.ROOT);
+    Format format =
+        name.endsWith(".json") || name.endsWith(".jsonl") || name.contains(".jsonl.")
+            ? Format.JSON_LINES
+            : Format.CSV;
+    String formatInput =
+        InputValidator.getValidString(
+            "Enter Format, csv or json (leave blank for "
+                + (format == Format.CSV ? "csv" : "json")
+                + ")",
+            true);
+    if (formatInput.equalsIgnoreCase("csv")) {
+      format = Format.CSV;
+    } else if (formatInput.toLowerCase(Locale.ROOT).startsWith("json")) {
+      format = Format.JSON_LINES;
+    }
+
+    Filter filter = Filter.ALL;
+    String filterInput =
+        InputValidator.getValidString(
+            "Enter Filter: all, finalised, incomplete or overdue (leave blank for all)", true);
+    if (!filterInput.isEmpty()) {
+      try {
+        filter = Filter.valueOf(filterInput.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        System.out.println("Unknown filter; exporting all projects.");
+      }
+    }
+
+    boolean gzip =
+        name.endsWith(".gz")
+            || InputValidator.getValidString("Compress with gzip? (y/N)", true)
+                .equalsIgnoreCase("y");
+
+    try {
+      long start = System.nanoTime();
+      long rows = export(conn, target, format, filter, gzip);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf(
+          "%d project(s) exported to %s in %.1f s (%.0f rows/sec).%n",
+          rows, target, seconds, seconds == 0 ? 0 : rows / seconds);
+    } catch (IOException e) {
+      System.out.println("Error writing export file: " + e.getMessage());
+    } catch (SQLException e) {
+      System.out.println("Error exporting projects: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Streams the selected projects into a file.
+   *
+   * @param conn The database connection.
+   * @param target The file to create or replace once every row has been written.
+   * @param format The output format.
+   * @param filter Which projects to include.
+   * @param gzip Whether to gzip the output.
+   * @return The number of projects written.
+   * @throws IOException If the file cannot be written; the target is left as it was.
+   * @throws SQLException If the query fails; the target is left as it was.
+   */
+  public static long export(
+      Connection conn, Path target, Format format, Filter filter, boolean gzip)
+      throws IOException, SQLException {
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    long rows;
+    try {
+      rows = write(conn, temp, format, filter, gzip);
+    } catch (IOException | SQLException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return rows;
+  }
+
+  private static long write(Connection conn, Path file, Format format, Filter filter, boolean gzip)
+      throws IOException, SQLException {
+    try (FileChannel channel =
+            FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        Writer out = open(channel, gzip)) {
+      PreparedStatement pstmt = StatementRegistry.prepare(conn, filter.query);
+      pstmt.setFetchSize(streamingFetchSize(conn));
+      StringBuilder line = new StringBuilder(512);
+      if (format == Format.CSV) {
+        for (int i = 0; i < COLUMNS.length; i++) {
+          line.append(i == 0 ? "" : ",").append(COLUMNS[i].label());
+        }
+        out.append(line).append('\n');
+      }
+
+      long rows = 0;
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          line.setLength(0);
+          if (format == Format.CSV) {
+            appendCsv(rs, line);
+          } else {
+            appendJson(rs, line);
+          }
+          out.append(line).append('\n');
+          rows++;
+        }
+      }
+      return rows;
+    }
+  }
+
+  private static Writer open(FileChannel channel, boolean gzip) throws IOException {
+    OutputStream stream = Channels.newOutputStream(channel);
+    if (gzip) {
+      stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+    }
+    return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  /**
+   * Returns a fetch size that makes the driver stream rows instead of buffering the whole result.
+   * MySQL Connector/J only streams when the fetch size is {@link Integer#MIN_VALUE}.
+   */
+  static int streamingFetchSize(Connection conn) throws SQLException {
+    String driver = conn.getMetaData().getDriverName();
+    return driver != null && driver.contains("MySQL") ? Integer.MIN_VALUE : FETCH_SIZE;
+  }
+
+  private static void appendCsv(ResultSet rs, StringBuilder line) throws SQLException {
+    for (int i = 0; i < COLUMNS.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      Csv.appendField(line, value(rs, i));
+    }
+  }
+
+  private static void appendJson(ResultSet rs, StringBuilder line) throws SQLException {
+    line.append('{');
+    for (int i = 0; i < COLUMNS.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      Column column = COLUMNS[i];
+      line.append('"').append(column.label()).append("\":");
+      String value = value(rs, i);
+      if (value == null || column.kind() == Kind.TEXT || column.kind() == Kind.DATE) {
+        Json.appendString(line, value);
+      } else {
+        line.append(value);
+      }
+    }
+    line.append('}');
+  }
+
+  /** Reads a column as text, or {@code null} if it is SQL NULL. */
+  private static String value(ResultSet rs, int index) throws SQLException {
+    int position = index + 1;
+    switch (COLUMNS[index].kind()) {
+      case BOOLEAN:
+        boolean flag = rs.getBoolean(position);
+        return rs.wasNull() ? null : Boolean.toString(flag);
+      case DATE:
+        Date date = rs.getDate(position);
+        return date == null ? null : date.toString();
+      default:
+        return rs.getString(position);
+    }
+  }
+}
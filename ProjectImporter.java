@@ -0,0 +1,404 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Bulk-imports projects, and the customers, architects and project managers they refer to, from a
+ * CSV file.
+ *
+ * <p>The file is streamed record by record; a quoted field may span lines, so an address exported
+ * with line breaks in it reads back unchanged. Valid rows are inserted with JDBC batches and
+ * committed in chunks; rows that fail validation or cannot be inserted are copied to a reject file
+ * together with the reason and the line they start on. People are matched by email address, then
+ * by first and last name, and created only if no match exists.
+ *
+ * <p>The first line must be a header naming the columns: {@code name} (optional), {@code
+ * building_type}, {@code address}, {@code erf_number}, {@code total_fee}, {@code amount_paid},
+ * {@code deadline}, {@code structural_engineer} (optional), and for each of the prefixes {@code
+ * customer_}, {@code architect_} and {@code project_manager_}: {@code first_name}, {@code
+ * last_name}, {@code email}, {@code phone} and {@code address}.
+ */
+public class ProjectImporter {
+  /** Number of rows inserted and committed together. */
+  public static final int DEFAULT_CHUNK_SIZE = 500;
+
+  private static final String[] PERSON_TABLES = {"Customer", "Architect", "ProjectManager"};
+  private static final String[] PERSON_PREFIXES = {"customer_", "architect_", "project_manager_"};
+
+  private final Connection conn;
+  private final int chunkSize;
+  private final Map<String, Integer> columns = new HashMap<>();
+  private final List<ImportRow> chunk = new ArrayList<>();
+  private final Path rejectPath;
+  private BufferedWriter rejects;
+  private String header;
+
+  private long rowsRead;
+  private long imported;
+  private long rejected;
+
+  private ProjectImporter(Connection conn, int chunkSize, Path rejectPath) {
+    this.conn = conn;
+    this.chunkSize = chunkSize;
+    this.rejectPath = rejectPath;
+  }
+
+  /**
+   * Prompts for a CSV file and imports it.
+   *
+   * @param conn The database connection.
+   * @param scanner The scanner to read user input.
+   */
+  public static void importProjects(Connection conn, Scanner scanner) {
+    Path source = Path.of(InputValidator.getValidString("Enter CSV File Path"));
+    String size =
+        InputValidator.getValidString(
+            "Enter Rows per Transaction (leave blank for " + DEFAULT_CHUNK_SIZE + ")", true);
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+    if (!size.isEmpty()) {
+      try {
+        chunkSize = Math.max(1, Integer.parseInt(size));
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid number; using " + DEFAULT_CHUNK_SIZE + ".");
+      }
+    }
+    Path rejectPath = Path.of(source + ".rejects.csv");
+
+    try {
+      ImportSummary summary = importFile(conn, source, rejectPath, chunkSize);
+      System.out.println(
+          summary.imported() + " project(s) imported, " + summary.rejected() + " rejected.");
+      System.out.printf(
+          "%d row(s) read in %.1f s (%.0f rows/sec).%n",
+          summary.rowsRead(), summary.elapsedNanos() / 1e9, summary.rowsPerSecond());
+      if (summary.rejected() > 0) {
+        System.out.println("Rejected rows written to " + rejectPath);
+      }
+    } catch (IOException e) {
+      System.out.println("Error reading import file: " + e.getMessage());
+    } catch (SQLException e) {
+      System.out.println("Error importing projects: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Imports every row of a CSV file.
+   *
+   * @param conn The database connection. Its auto-commit mode is restored afterwards.
+   * @param source The CSV file to read.
+   * @param rejectPath Where to write rows that could not be imported. The file is only created if a
+   *     row is rejected.
+   * @param chunkSize The number of rows inserted and committed together.
+   * @return The import counters.
+   * @throws IOException If the file cannot be read or the reject file cannot be written.
+   * @throws SQLException If the database cannot be used at all, e.g. the connection is lost.
+   */
+  public static ImportSummary importFile(
+      Connection conn, Path source, Path rejectPath, int chunkSize)
+      throws IOException, SQLException {
+    ProjectImporter importer = new ProjectImporter(conn, chunkSize, rejectPath);
+    long start = System.nanoTime();
+    boolean autoCommit = conn.getAutoCommit();
+    conn.setAutoCommit(false);
+    try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+      importer.run(reader);
+    } finally {
+      conn.setAutoCommit(autoCommit);
+      if (importer.rejects != null) {
+        importer.rejects.close();
+      }
+    }
+    return new ImportSummary(
+        importer.rowsRead, importer.imported, importer.rejected, System.nanoTime() - start);
+  }
+
+  private void run(BufferedReader reader) throws IOException, SQLException {
+    header = reader.readLine();
+    if (header == null) {
+      return;
+    }
+    List<String> names = Csv.parseLine(header);
+    for (int i = 0; i < names.size(); i++) {
+      columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+    }
+
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.INSERT_PROJECT);
+    String line;
+    long nextLine = 2;
+    while ((line = Csv.readRecord(reader)) != null) {
+      long lineNumber = nextLine;
+      nextLine += 1 + line.chars().filter(c -> c == '\n').count();
+      if (line.isBlank()) {
+        continue;
+      }
+      rowsRead++;
+      try {
+        chunk.add(parse(lineNumber, line));
+      } catch (IllegalArgumentException e) {
+        reject(lineNumber, line, e.getMessage());
+        continue;
+      }
+      if (chunk.size() >= chunkSize) {
+        flushChunk(pstmt);
+      }
+    }
+    flushChunk(pstmt);
+  }
+
+  /** Inserts the pending chunk as one batch and one transaction. */
+  private void flushChunk(PreparedStatement pstmt) throws IOException, SQLException {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    try {
+      for (ImportRow row : chunk) {
+        resolvePeople(row);
+        bind(pstmt, row);
+        pstmt.addBatch();
+      }
+      pstmt.executeBatch();
+      List<Integer> ids = new ArrayList<>();
+      try (ResultSet keys = pstmt.getGeneratedKeys()) {
+        while (keys.next()) {
+          ids.add(keys.getInt(1));
+        }
+      }
+      ChangeFeed.record(conn, ChangeFeed.Type.SAVED, ids);
+      conn.commit();
+      imported += chunk.size();
+      if (ids.size() == chunk.size()) {
+        for (int i = 0; i < ids.size(); i++) {
+          ProjectManager.notifySaved(chunk.get(i).toProject(ids.get(i)));
+        }
+      }
+    } catch (SQLException e) {
+      pstmt.clearBatch();
+      rollback();
+      // Retry row by row so one bad row does not reject the rest of the chunk.
+      for (ImportRow row : chunk) {
+        insertSingle(pstmt, row);
+      }
+    } finally {
+      chunk.clear();
+    }
+  }
+
+  private void insertSingle(PreparedStatement pstmt, ImportRow row)
+      throws IOException, SQLException {
+    try {
+      resolvePeople(row);
+      bind(pstmt, row);
+      pstmt.executeUpdate();
+      int id = -1;
+      try (ResultSet keys = pstmt.getGeneratedKeys()) {
+        if (keys.next()) {
+          id = keys.getInt(1);
+        }
+      }
+      if (id > 0) {
+        ChangeFeed.record(conn, ChangeFeed.Type.SAVED, id);
+      }
+      conn.commit();
+      imported++;
+      if (id > 0) {
+        ProjectManager.notifySaved(row.toProject(id));
+      }
+    } catch (SQLException e) {
+      rollback();
+      reject(row.lineNumber, row.line, e.getMessage());
+    }
+  }
+
+  /** Rolls back the open transaction and forgets people that may have been inserted in it. */
+  private void rollback() throws SQLException {
+    conn.rollback();
+    for (String table : PERSON_TABLES) {
+      PersonDirectory.forTable(table).invalidate();
+    }
+  }
+
+  private void resolvePeople(ImportRow row) throws SQLException {
+    for (int i = 0; i < PERSON_TABLES.length; i++) {
+      String[] person = row.people[i];
+      PersonDirectory directory = PersonDirectory.forTable(PERSON_TABLES[i]);
+      Person match = null;
+      if (!person[2].isEmpty()) {
+        match = directory.findByEmail(conn, person[2]);
+      }
+      if (match == null) {
+        match = directory.findByName(conn, person[0], person[1]);
+      }
+      if (match == null) {
+        match =
+            ProjectManager.insertPerson(
+                conn, PERSON_TABLES[i], person[0], person[1], person[2], person[3], person[4]);
+        if (match == null) {
+          throw new SQLException("Could not create " + PERSON_TABLES[i]);
+        }
+      }
+      row.personIds[i] = match.id();
+      if (i == 0 && row.name.isEmpty()) {
+        // Same naming rule as the interactive flow: building type plus customer surname.
+        row.name = row.buildingType + " " + match.lastName();
+      }
+    }
+  }
+
+  private static void bind(PreparedStatement pstmt, ImportRow row) throws SQLException {
+    pstmt.setString(1, row.name);
+    pstmt.setString(2, row.buildingType);
+    pstmt.setString(3, row.address);
+    pstmt.setString(4, row.erfNumber);
+    pstmt.setDouble(5, row.totalFee);
+    pstmt.setDouble(6, row.amountPaid);
+    pstmt.setDate(7, Date.valueOf(row.deadline));
+    pstmt.setInt(8, row.personIds[0]);
+    pstmt.setInt(9, row.personIds[1]);
+    pstmt.setInt(10, row.personIds[2]);
+    pstmt.setString(11, row.structuralEngineer);
+  }
+
+  /**
+   * Validates one CSV row with the same rules the interactive prompts apply.
+   *
+   * @throws IllegalArgumentException With a description of the first problem found.
+   */
+  private ImportRow parse(long lineNumber, String line) {
+    List<String> fields = Csv.parseLine(line);
+    ImportRow row = new ImportRow(lineNumber, line);
+    row.name = field(fields, "name", true);
+    row.buildingType = field(fields, "building_type", false);
+    row.address = field(fields, "address", false);
+    row.erfNumber = field(fields, "erf_number", false);
+    row.totalFee = number(fields, "total_fee");
+    row.amountPaid = number(fields, "amount_paid");
+    String deadline = field(fields, "deadline", false);
+    if (!InputValidator.isValidDate(deadline)) {
+      throw new IllegalArgumentException("deadline must be in YYYY-MM-DD format");
+    }
+    row.deadline = LocalDate.parse(deadline);
+    row.structuralEngineer = field(fields, "structural_engineer", true);
+    for (int i = 0; i < PERSON_PREFIXES.length; i++) {
+      String prefix = PERSON_PREFIXES[i];
+      row.people[i] =
+          new String[] {
+            field(fields, prefix + "first_name", false),
+            field(fields, prefix + "last_name", false),
+            field(fields, prefix + "email", true),
+            field(fields, prefix + "phone", true),
+            field(fields, prefix + "address", true)
+          };
+    }
+    return row;
+  }
+
+  private String field(List<String> fields, String column, boolean allowBlank) {
+    Integer index = columns.get(column);
+    if (index == null) {
+      if (allowBlank) {
+        return "";
+      }
+      throw new IllegalArgumentException("missing column " + column);
+    }
+    String value = index < fields.size() ? fields.get(index).trim() : "";
+    if (value.isEmpty() && !allowBlank) {
+      throw new IllegalArgumentException(column + " cannot be blank");
+    }
+    return value;
+  }
+
+  private double number(List<String> fields, String column) {
+    String value = field(fields, column, false);
+    if (!InputValidator.isValidDouble(value)) {
+      throw new IllegalArgumentException(column + " must be a valid number");
+    }
+    return Double.parseDouble(value);
+  }
+
+  private void reject(long lineNumber, String line, String reason) throws IOException {
+    rejected++;
+    if (rejects == null) {
+      rejects = Files.newBufferedWriter(rejectPath, StandardCharsets.UTF_8);
+      rejects.write(header + ",reject_line,reject_reason");
+      rejects.newLine();
+    }
+    StringBuilder out = new StringBuilder(line).append(',').append(lineNumber).append(',');
+    Csv.appendField(out, reason);
+    rejects.write(out.toString());
+    rejects.newLine();
+  }
+
+  /**
+   * Counters for a completed import.
+   *
+   * @param rowsRead Data rows read from the file.
+   * @param imported Projects inserted.
+   * @param rejected Rows written to the reject file.
+   * @param elapsedNanos Wall-clock duration of the import.
+   */
+  public record ImportSummary(long rowsRead, long imported, long rejected, long elapsedNanos) {
+
+    /**
+     * Returns the import throughput.
+     *
+     * @return Rows read per second.
+     */
+    public double rowsPerSecond() {
+      return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+    }
+  }
+
+  /** A validated row waiting to be inserted. */
+  private static final class ImportRow {
+    private final long lineNumber;
+    private final String line;
+    private final String[][] people = new String[3][];
+    private final int[] personIds = new int[3];
+    private String name;
+    private String buildingType;
+    private String address;
+    private String erfNumber;
+    private double totalFee;
+    private double amountPaid;
+    private LocalDate deadline;
+    private String structuralEngineer;
+
+    private ImportRow(long lineNumber, String line) {
+      this.lineNumber = lineNumber;
+      this.line = line;
+    }
+
+    private Project toProject(int id) {
+      return new Project(
+          id,
+          name,
+          buildingType,
+          address,
+          erfNumber,
+          totalFee,
+          amountPaid,
+          deadline,
+          false,
+          null,
+          personIds[0],
+          personIds[1],
+          personIds[2],
+          structuralEngineer);
+    }
+  }
+}
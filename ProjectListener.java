@@ -0,0 +1,17 @@
+/** Receives notifications when projects are added, changed or deleted. */
+public interface ProjectListener {
+
+  /**
+   * Called after a project has been added or changed.
+   *
+   * @param project The project as it is now stored.
+   */
+  void projectSaved(Project project);
+
+  /**
+   * Called after a project has been deleted.
+   *
+   * @param projectId The ID of the deleted project.
+   */
+  void projectDeleted(int projectId);
+}
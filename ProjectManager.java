@@ -1,59 +1,159 @@
 import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /** Manages project-related operations for the PoisePMS application. */
 public class ProjectManager {
+  /** Number of rows fetched and shown per page when listing projects. */
+  private static final int PAGE_SIZE = Integer.getInteger("poised.list.pageSize", 50);
+
+  /** Maximum number of people shown for a name search when picking a related person. */
+  private static final int MAX_PERSON_MATCHES = 20;
+
+  private static final List<ProjectListener> listeners = new CopyOnWriteArrayList<>();
 
   /**
    * Displays all projects in the database, including associated project managers.
    *
+   * <p>Projects are streamed one page at a time using keyset pagination on the project ID, so
+   * memory use stays flat regardless of how many projects exist.
+   *
    * @param conn The database connection.
+   * @param scanner The scanner used for the "next page" prompt, or {@code null} to stream every
+   *     page without prompting.
    */
-  public static void viewAllProjects(Connection conn) {
-    String query =
-        """
-        SELECT
-            p.id AS project_id,
-            p.name AS project_name,
-            p.building_type,
-            p.deadline,
-            p.finalised,
-            pm.first_name AS manager_first_name,
-            pm.last_name AS manager_last_name,
-            pm.email AS manager_email
-        FROM
-            Project p
-        JOIN
-            ProjectManager pm ON p.project_manager_id = pm.id;
-        """;
-
-    try (Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(query)) {
-      while (rs.next()) {
-        System.out.println("\nProject ID: " + rs.getInt("project_id"));
-        System.out.println("Project Name: " + rs.getString("project_name"));
-        System.out.println("Building Type: " + rs.getString("building_type"));
-        System.out.println("Deadline: " + rs.getDate("deadline"));
-        System.out.println("Finalised: " + rs.getBoolean("finalised"));
-        System.out.println(
-            "Project Manager: "
-                + rs.getString("manager_first_name")
-                + " "
-                + rs.getString("manager_last_name"));
-        System.out.println("Manager Email: " + rs.getString("manager_email"));
-      }
+  public static void viewAllProjects(Connection conn, Scanner scanner) {
+    try {
+      listPaged(
+          conn,
+          scanner,
+          SqlQuery.LIST_PROJECTS_PAGE,
+          allProjectsTable(),
+          (rs, out) ->
+              out.writeRow(
+                  rs.getInt("project_id"),
+                  rs.getString("project_name"),
+                  rs.getString("building_type"),
+                  rs.getDate("deadline"),
+                  rs.getBoolean("finalised") ? "Yes" : "No",
+                  rs.getString("manager_first_name") + " " + rs.getString("manager_last_name"),
+                  rs.getString("manager_email")));
     } catch (SQLException e) {
       System.out.println("Error fetching projects: " + e.getMessage());
     }
   }
 
   /**
-   * Adds a new project to the database.
+   * Displays all projects held in a local snapshot, for use while the database is unavailable.
+   *
+   * @param snapshot The snapshot.
+   * @param scanner The scanner used for the "next page" prompt, or {@code null} to not prompt.
+   */
+  public static void viewAllProjects(ProjectSnapshot snapshot, Scanner scanner) {
+    TableWriter table = allProjectsTable();
+    table.writeHeader();
+    int shown = 0;
+    int total = snapshot.projects().size();
+    for (Project project : snapshot.projects()) {
+      Person manager = snapshot.person("ProjectManager", project.projectManagerId());
+      table.writeRow(
+          project.id(),
+          project.name(),
+          project.buildingType(),
+          project.deadline(),
+          project.finalised() ? "Yes" : "No",
+          manager == null ? null : manager.fullName(),
+          manager == null ? null : manager.email());
+      shown++;
+      if (scanner != null && shown % PAGE_SIZE == 0 && shown < total) {
+        table.flush();
+        System.out.print("-- " + shown + " shown. Press Enter for the next page or 'q' to stop: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+          return;
+        }
+      }
+    }
+    table.writeLine(total == 0 ? "No projects found." : total + " project(s) listed.");
+    table.flush();
+  }
+
+  private static TableWriter allProjectsTable() {
+    return TableWriter.toConsole(
+        new String[] {
+          "ID", "Project Name", "Building Type", "Deadline", "Final", "Manager", "Manager Email"
+        },
+        new int[] {6, 28, 14, 10, 5, 24, 30});
+  }
+
+  /**
+   * Streams a keyset-paginated query into a table, one page at a time.
+   *
+   * <p>The query must take the last seen project ID and the page size as its two parameters, and
+   * return rows ordered by project ID with the ID in the first column.
    *
    * @param conn The database connection.
+   * @param scanner The scanner used for the "next page" prompt, or {@code null} to not prompt.
+   * @param query The registered paginated query.
+   * @param table The table to render rows into.
+   * @param renderer Writes the current row of the result set to the table.
+   * @throws SQLException If the query fails.
+   */
+  private static void listPaged(
+      Connection conn, Scanner scanner, SqlQuery query, TableWriter table, RowRenderer renderer)
+      throws SQLException {
+    int lastId = 0;
+    int total = 0;
+    table.writeHeader();
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, query);
+    pstmt.setFetchSize(PAGE_SIZE);
+    while (true) {
+      pstmt.setInt(1, lastId);
+      pstmt.setInt(2, PAGE_SIZE);
+      int rowsInPage = 0;
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          lastId = rs.getInt(1);
+          renderer.render(rs, table);
+          rowsInPage++;
+        }
+      }
+      total += rowsInPage;
+      if (rowsInPage < PAGE_SIZE) {
+        table.writeLine(total == 0 ? "No projects found." : total + " project(s) listed.");
+        table.flush();
+        return;
+      }
+      table.flush();
+      if (scanner != null) {
+        System.out.print("-- " + total + " shown. Press Enter for the next page or 'q' to stop: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+          return;
+        }
+      }
+    }
+  }
+
+  /** Writes the current row of a result set to a table. */
+  @FunctionalInterface
+  private interface RowRenderer {
+    void render(ResultSet rs, TableWriter table) throws SQLException;
+  }
+
+  /**
+   * Adds a new project.
+   *
+   * @param conn The database connection, for picking or creating the people involved.
+   * @param projects The repository to add the project to.
    * @param scanner The scanner to read user input.
    */
-  public static void addNewProject(Connection conn, Scanner scanner) {
+  public static void addNewProject(Connection conn, ProjectRepository projects, Scanner scanner) {
     try {
       String buildingType = InputValidator.getValidString("Enter Building Type (e.g., House)");
       System.out.print("Enter Project Name (leave blank to auto-generate): ");
@@ -73,70 +173,127 @@ public class ProjectManager {
       System.out.print("Enter Structural Engineer's Name: ");
       String structuralEngineer = scanner.nextLine();
 
-      // Auto-generate project name if blank
+      Project project =
+          projects.insert(
+              new Project(
+                  0,
+                  name,
+                  buildingType,
+                  address,
+                  erfNumber,
+                  totalFee,
+                  amountPaid,
+                  LocalDate.parse(deadline),
+                  false,
+                  null,
+                  customerId,
+                  architectId,
+                  projectManagerId,
+                  structuralEngineer));
       if (name.isEmpty()) {
-        name = buildingType + " " + getLastName(conn, "Customer", customerId);
-        System.out.println("Generated Project Name: " + name);
-      }
-
-      // Insert new project
-      String insertQuery =
-          """
-INSERT INTO Project (name, building_type, address, erf_number, total_fee, amount_paid, deadline, finalised, customer_id, architect_id, project_manager_id, structural_engineer)
-VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
-""";
-
-      try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
-        pstmt.setString(1, name);
-        pstmt.setString(2, buildingType);
-        pstmt.setString(3, address);
-        pstmt.setString(4, erfNumber);
-        pstmt.setDouble(5, totalFee);
-        pstmt.setDouble(6, amountPaid);
-        pstmt.setDate(7, Date.valueOf(deadline));
-        pstmt.setInt(8, customerId);
-        pstmt.setInt(9, architectId);
-        pstmt.setInt(10, projectManagerId);
-        pstmt.setString(11, structuralEngineer);
-
-        int rowsAffected = pstmt.executeUpdate();
-        System.out.println(rowsAffected + " project(s) added successfully.");
+        System.out.println("Generated Project Name: " + project.name());
       }
+      System.out.println("1 project(s) added successfully.");
     } catch (SQLException e) {
       System.out.println("Error adding project: " + e.getMessage());
     }
   }
 
+  /**
+   * Inserts a project and tells listeners about it. A blank name is replaced with the building type
+   * followed by the customer's surname.
+   *
+   * @param conn The database connection.
+   * @param draft The project to insert; its ID, finalised flag and completion date are ignored.
+   * @return The project as stored.
+   * @throws SQLException If the insert fails.
+   */
+  static Project insertProject(Connection conn, Project draft) throws SQLException {
+    String name = draft.name();
+    if (name == null || name.isBlank()) {
+      name = draft.buildingType() + " " + getLastName(conn, "Customer", draft.customerId());
+    }
+
+    String projectName = name;
+    int projectId =
+        inTransaction(
+            conn,
+            () -> {
+              PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.INSERT_PROJECT);
+              pstmt.setString(1, projectName);
+              pstmt.setString(2, draft.buildingType());
+              pstmt.setString(3, draft.address());
+              pstmt.setString(4, draft.erfNumber());
+              pstmt.setDouble(5, draft.totalFee());
+              pstmt.setDouble(6, draft.amountPaid());
+              pstmt.setDate(7, Date.valueOf(draft.deadline()));
+              pstmt.setInt(8, draft.customerId());
+              pstmt.setInt(9, draft.architectId());
+              pstmt.setInt(10, draft.projectManagerId());
+              pstmt.setString(11, draft.structuralEngineer());
+              pstmt.executeUpdate();
+              try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                  throw new SQLException("The new project's ID was not returned");
+                }
+                ChangeFeed.record(conn, ChangeFeed.Type.SAVED, keys.getInt(1));
+                return keys.getInt(1);
+              }
+            });
+    Project project = reload(conn, projectId);
+    if (project == null) {
+      throw new SQLException("The new project could not be read back");
+    }
+    return project;
+  }
+
   /**
    * Prompts the user to select or create a related person (e.g., customer, architect).
    *
+   * <p>Instead of listing every row in the table, the user can type part of a first name or surname
+   * to see only the matching people.
+   *
    * @param conn The database connection.
    * @param scanner The scanner to read user input.
    * @param tableName The table name.
    * @return The ID of the selected or created person.
    */
   private static int selectOrCreatePerson(Connection conn, Scanner scanner, String tableName) {
+    PersonDirectory directory = PersonDirectory.forTable(tableName);
     try {
-      System.out.println("\nAvailable " + tableName + "s:");
-      String query = "SELECT * FROM " + tableName;
-      try (Statement stmt = conn.createStatement();
-          ResultSet rs = stmt.executeQuery(query)) {
-        while (rs.next()) {
-          System.out.println(
-              rs.getInt("id")
-                  + ": "
-                  + rs.getString("first_name")
-                  + " "
-                  + rs.getString("last_name"));
+      while (true) {
+        System.out.print(
+            "\nEnter "
+                + tableName
+                + " ID, part of a first name or surname to search, or 'new' to create: ");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+          continue;
+        }
+        if (input.equalsIgnoreCase("new")) {
+          return createPerson(conn, scanner, tableName);
+        }
+        if (input.length() < 10 && input.chars().allMatch(Character::isDigit)) {
+          Person person = directory.find(conn, Integer.parseInt(input));
+          if (person != null) {
+            System.out.println("Selected " + tableName + ": " + person.fullName());
+            return person.id();
+          }
+          System.out.println("No " + tableName + " found with ID " + input + ".");
+          continue;
         }
-      }
 
-      System.out.print("\nEnter " + tableName + " ID or type 'new' to create: ");
-      String input = scanner.nextLine();
-      if (input.equalsIgnoreCase("new")) {
-        return createPerson(conn, scanner, tableName);
-      } else {
-        return Integer.parseInt(input);
+        List<Person> matches = directory.search(conn, input, MAX_PERSON_MATCHES);
+        if (matches.isEmpty()) {
+          System.out.println("No " + tableName + "s match '" + input + "'.");
+          continue;
+        }
+        for (Person person : matches) {
+          System.out.println(person.id() + ": " + person.fullName() + " <" + person.email() + ">");
+        }
+        if (matches.size() == MAX_PERSON_MATCHES) {
+          System.out.println("(Showing the first " + MAX_PERSON_MATCHES + " matches.)");
+        }
       }
     } catch (SQLException e) {
       System.out.println("Error fetching " + tableName + " details: " + e.getMessage());
@@ -165,27 +322,10 @@ VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
       System.out.print("Enter Address: ");
       String address = scanner.nextLine();
 
-      String insertQuery =
-          "INSERT INTO "
-              + tableName
-              + " (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)";
-      try (PreparedStatement pstmt =
-          conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-        pstmt.setString(1, firstName);
-        pstmt.setString(2, lastName);
-        pstmt.setString(3, email);
-        pstmt.setString(4, phone);
-        pstmt.setString(5, address);
-
-        int rowsAffected = pstmt.executeUpdate();
-        if (rowsAffected > 0) {
-          ResultSet rs = pstmt.getGeneratedKeys();
-          if (rs.next()) {
-            int personId = rs.getInt(1);
-            System.out.println(tableName + " created successfully with ID: " + personId);
-            return personId;
-          }
-        }
+      Person person = insertPerson(conn, tableName, firstName, lastName, email, phone, address);
+      if (person != null) {
+        System.out.println(tableName + " created successfully with ID: " + person.id());
+        return person.id();
       }
     } catch (SQLException e) {
       System.out.println("Error creating " + tableName + ": " + e.getMessage());
@@ -193,6 +333,48 @@ VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
     return -1;
   }
 
+  /**
+   * Inserts a person and adds them to the table's {@link PersonDirectory}.
+   *
+   * @param conn The database connection.
+   * @param tableName The person table.
+   * @param firstName The first name.
+   * @param lastName The last name.
+   * @param email The email address.
+   * @param phone The phone number.
+   * @param address The physical address.
+   * @return The created person, or {@code null} if no row was inserted.
+   * @throws SQLException If the insert fails.
+   */
+  static Person insertPerson(
+      Connection conn,
+      String tableName,
+      String firstName,
+      String lastName,
+      String email,
+      String phone,
+      String address)
+      throws SQLException {
+    PersonDirectory directory = PersonDirectory.forTable(tableName);
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.INSERT_PERSON, tableName);
+    pstmt.setString(1, firstName);
+    pstmt.setString(2, lastName);
+    pstmt.setString(3, email);
+    pstmt.setString(4, phone);
+    pstmt.setString(5, address);
+
+    if (pstmt.executeUpdate() > 0) {
+      try (ResultSet rs = pstmt.getGeneratedKeys()) {
+        if (rs.next()) {
+          Person person = new Person(rs.getInt(1), firstName, lastName, email, phone, address);
+          directory.add(person);
+          return person;
+        }
+      }
+    }
+    return null;
+  }
+
   /**
    * Retrieves the last name of a person based on their ID.
    *
@@ -202,12 +384,10 @@ VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
    * @return The last name of the person.
    */
   private static String getLastName(Connection conn, String tableName, int id) {
-    String query = "SELECT last_name FROM " + tableName + " WHERE id = ?";
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-      pstmt.setInt(1, id);
-      ResultSet rs = pstmt.executeQuery();
-      if (rs.next()) {
-        return rs.getString("last_name");
+    try {
+      Person person = PersonDirectory.forTable(tableName).find(conn, id);
+      if (person != null) {
+        return person.lastName();
       }
     } catch (SQLException e) {
       System.out.println("Error fetching last name: " + e.getMessage());
@@ -218,39 +398,31 @@ VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
   /**
    * Updates an existing project.
    *
-   * @param conn The database connection.
+   * @param projects The repository holding the project.
    * @param scanner The scanner to read user input.
    */
-  public static void updateProject(Connection conn, Scanner scanner) {
+  public static void updateProject(ProjectRepository projects, Scanner scanner) {
     try {
       System.out.print("Enter Project ID to update: ");
       int projectId = scanner.nextInt();
       scanner.nextLine(); // Consume newline
+      Project current = projects.find(projectId);
+      if (current == null) {
+        System.out.println("No project found with the given ID.");
+        return;
+      }
+      System.out.println("Current: " + current.name() + ", due " + current.deadline());
 
       String name =
           InputValidator.getValidString("Enter New Name (or leave blank to keep current)", true);
       String deadline =
           InputValidator.getValidDate("Enter New Deadline (or leave blank to keep current)", true);
 
-      String updateQuery =
-          """
-          UPDATE Project
-          SET name = COALESCE(NULLIF(?, ''), name),
-              deadline = COALESCE(NULLIF(?, ''), deadline)
-          WHERE id = ?;
-          """;
-
-      try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-        pstmt.setString(1, name.isEmpty() ? null : name);
-        pstmt.setString(2, deadline.isEmpty() ? null : deadline);
-        pstmt.setInt(3, projectId);
-
-        int rowsAffected = pstmt.executeUpdate();
-        if (rowsAffected > 0) {
-          System.out.println("Project updated successfully.");
-        } else {
-          System.out.println("No project found with the given ID.");
-        }
+      LocalDate newDeadline = deadline.isEmpty() ? null : LocalDate.parse(deadline);
+      if (projects.update(projectId, name, newDeadline) != null) {
+        System.out.println("Project updated successfully.");
+      } else {
+        System.out.println("No project found with the given ID.");
       }
     } catch (SQLException e) {
       System.out.println("Error updating project: " + e.getMessage());
@@ -258,128 +430,525 @@ VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
   }
 
   /**
-   * Deletes a project from the database.
+   * Changes a project's name and/or deadline and tells listeners about it.
    *
    * @param conn The database connection.
+   * @param projectId The project to update.
+   * @param name The new name, or blank to keep the current one.
+   * @param deadline The new deadline in YYYY-MM-DD format, or blank to keep the current one.
+   * @return The updated project, or {@code null} if it does not exist.
+   * @throws SQLException If the update fails.
+   */
+  static Project updateProject(Connection conn, int projectId, String name, String deadline)
+      throws SQLException {
+    int updated =
+        inTransaction(
+            conn,
+            () -> {
+              PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.UPDATE_PROJECT);
+              pstmt.setString(1, name == null || name.isEmpty() ? null : name);
+              pstmt.setString(2, deadline == null || deadline.isEmpty() ? null : deadline);
+              pstmt.setInt(3, projectId);
+              return recordIfChanged(conn, pstmt.executeUpdate(), ChangeFeed.Type.SAVED, projectId);
+            });
+    return updated > 0 ? reload(conn, projectId) : null;
+  }
+
+  /**
+   * Deletes a project.
+   *
+   * @param projects The repository holding the project.
    * @param scanner The scanner to read user input.
    */
-  public static void deleteProject(Connection conn, Scanner scanner) {
+  public static void deleteProject(ProjectRepository projects, Scanner scanner) {
     try {
       System.out.print("Enter Project ID to delete: ");
       int projectId = scanner.nextInt();
       scanner.nextLine();
 
-      String deleteQuery = "DELETE FROM Project WHERE id = ?";
-      try (PreparedStatement pstmt = conn.prepareStatement(deleteQuery)) {
-        pstmt.setInt(1, projectId);
-
-        int rowsAffected = pstmt.executeUpdate();
-        System.out.println(rowsAffected + " project(s) deleted successfully.");
-      }
+      int rowsAffected = projects.delete(projectId) ? 1 : 0;
+      System.out.println(rowsAffected + " project(s) deleted successfully.");
     } catch (SQLException e) {
       System.out.println("Error deleting project: " + e.getMessage());
     }
   }
 
   /**
-   * Marks a project as finalized and sets a completion date.
+   * Deletes a project and tells listeners about it.
    *
    * @param conn The database connection.
+   * @param projectId The project to delete.
+   * @return Whether the project existed.
+   * @throws SQLException If the delete fails.
+   */
+  static boolean deleteProject(Connection conn, int projectId) throws SQLException {
+    int deleted =
+        inTransaction(
+            conn,
+            () -> {
+              PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.DELETE_PROJECT);
+              pstmt.setInt(1, projectId);
+              return recordIfChanged(
+                  conn, pstmt.executeUpdate(), ChangeFeed.Type.DELETED, projectId);
+            });
+    if (deleted == 0) {
+      return false;
+    }
+    notifyDeleted(projectId);
+    return true;
+  }
+
+  /**
+   * Marks a project as finalized and sets a completion date.
+   *
+   * @param projects The repository holding the project.
    * @param scanner The scanner to read user input.
    */
-  public static void finaliseProject(Connection conn, Scanner scanner) {
+  public static void finaliseProject(ProjectRepository projects, Scanner scanner) {
     try {
       System.out.print("Enter Project ID to finalize: ");
       int projectId = scanner.nextInt();
       scanner.nextLine();
+      Project current = projects.find(projectId);
+      if (current == null) {
+        System.out.println("No project found with the given ID.");
+        return;
+      }
+      if (current.finalised()) {
+        System.out.println(
+            current.name() + " was already finalized on " + current.completionDate() + ".");
+        return;
+      }
 
       String completionDate = InputValidator.getValidDate("Enter Completion Date (YYYY-MM-DD)");
 
-      String updateQuery =
-          """
-          UPDATE Project SET finalised = TRUE, completion_date = ? WHERE id = ?;
-          """;
-
-      try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-        pstmt.setDate(1, Date.valueOf(completionDate));
-        pstmt.setInt(2, projectId);
-
-        int rowsAffected = pstmt.executeUpdate();
-        System.out.println(rowsAffected + " project(s) finalized successfully.");
-      }
+      Project project = projects.finalise(projectId, LocalDate.parse(completionDate));
+      System.out.println((project == null ? 0 : 1) + " project(s) finalized successfully.");
     } catch (SQLException e) {
       System.out.println("Error finalizing project: " + e.getMessage());
     }
   }
 
   /**
-   * Displays all incomplete projects.
+   * Marks a project as finalised and tells listeners about it.
    *
    * @param conn The database connection.
+   * @param projectId The project to finalise.
+   * @param completionDate The completion date.
+   * @return The finalised project, or {@code null} if it does not exist.
+   * @throws SQLException If the update fails.
    */
-  public static void viewIncompleteProjects(Connection conn) {
-    String query = "SELECT * FROM Project WHERE finalised = FALSE";
-    try (Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(query)) {
-      while (rs.next()) {
-        System.out.println("\nProject ID: " + rs.getInt("id"));
-        System.out.println("Project Name: " + rs.getString("name"));
-        System.out.println("Deadline: " + rs.getDate("deadline"));
-      }
+  static Project finaliseProject(Connection conn, int projectId, LocalDate completionDate)
+      throws SQLException {
+    int finalised =
+        inTransaction(
+            conn,
+            () -> {
+              PreparedStatement pstmt =
+                  StatementRegistry.prepare(conn, SqlQuery.FINALISE_PROJECT);
+              pstmt.setDate(1, Date.valueOf(completionDate));
+              pstmt.setInt(2, projectId);
+              return recordIfChanged(conn, pstmt.executeUpdate(), ChangeFeed.Type.SAVED, projectId);
+            });
+    return finalised > 0 ? reload(conn, projectId) : null;
+  }
+
+  /**
+   * Runs a write together with its {@link ChangeFeed} record, in a transaction of its own if the
+   * connection is in auto-commit mode and otherwise as part of the caller's.
+   */
+  private static <T> T inTransaction(Connection conn, SqlWork<T> work) throws SQLException {
+    if (!ChangeFeed.ENABLED || !conn.getAutoCommit()) {
+      return work.run();
+    }
+    conn.setAutoCommit(false);
+    try {
+      T result = work.run();
+      conn.commit();
+      return result;
+    } catch (SQLException | RuntimeException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
+
+  private static int recordIfChanged(
+      Connection conn, int rowsChanged, ChangeFeed.Type type, int projectId) throws SQLException {
+    if (rowsChanged > 0) {
+      ChangeFeed.record(conn, type, projectId);
+    }
+    return rowsChanged;
+  }
+
+  /** A unit of database work run by {@link #inTransaction}. */
+  @FunctionalInterface
+  private interface SqlWork<T> {
+    T run() throws SQLException;
+  }
+
+  /**
+   * Displays all incomplete projects. Once {@link DeadlineIndex} is loaded they are listed from it,
+   * earliest deadline first; otherwise they are read from the database by project number.
+   *
+   * @param conn The database connection.
+   * @param scanner The scanner used for the "next page" prompt, or {@code null} to not prompt.
+   */
+  public static void viewIncompleteProjects(Connection conn, Scanner scanner) {
+    DeadlineIndex deadlines = DeadlineIndex.getInstance();
+    if (deadlines.isLoaded()) {
+      listEntries(scanner, deadlines.incomplete());
+      return;
+    }
+    try {
+      listPaged(
+          conn,
+          scanner,
+          SqlQuery.LIST_INCOMPLETE_PAGE,
+          deadlineTable(),
+          ProjectManager::writeDeadlineRow);
     } catch (SQLException e) {
       System.out.println("Error fetching incomplete projects: " + e.getMessage());
     }
   }
 
   /**
-   * Displays all overdue projects.
+   * Displays all overdue projects. Once {@link DeadlineIndex} is loaded they are listed from it,
+   * earliest deadline first; otherwise they are read from the database by project number.
    *
    * @param conn The database connection.
+   * @param scanner The scanner used for the "next page" prompt, or {@code null} to not prompt.
    */
-  public static void viewOverdueProjects(Connection conn) {
-    String query = "SELECT * FROM Project WHERE deadline < CURDATE() AND finalised = FALSE";
-    try (Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(query)) {
-      while (rs.next()) {
-        System.out.println("\nProject ID: " + rs.getInt("id"));
-        System.out.println("Project Name: " + rs.getString("name"));
-        System.out.println("Deadline: " + rs.getDate("deadline"));
-      }
+  public static void viewOverdueProjects(Connection conn, Scanner scanner) {
+    DeadlineIndex deadlines = DeadlineIndex.getInstance();
+    if (deadlines.isLoaded()) {
+      listEntries(scanner, deadlines.overdueAsOf(LocalDate.now()));
+      return;
+    }
+    try {
+      listPaged(
+          conn,
+          scanner,
+          SqlQuery.LIST_OVERDUE_PAGE,
+          deadlineTable(),
+          ProjectManager::writeDeadlineRow);
     } catch (SQLException e) {
       System.out.println("Error fetching overdue projects: " + e.getMessage());
     }
   }
 
+  private static TableWriter deadlineTable() {
+    return TableWriter.toConsole(
+        new String[] {"ID", "Project Name", "Deadline"}, new int[] {6, 40, 10});
+  }
+
+  private static void writeDeadlineRow(ResultSet rs, TableWriter table) throws SQLException {
+    table.writeRow(rs.getInt("id"), rs.getString("name"), rs.getDate("deadline"));
+  }
+
   /**
-   * Searches for a project by ID or name.
+   * Lists deadline index entries a page at a time, prompting like {@link #listPaged}.
    *
-   * @param conn The database connection.
+   * @param scanner The scanner used for the "next page" prompt, or {@code null} to not prompt.
+   * @param entries The entries to list.
+   */
+  private static void listEntries(Scanner scanner, List<DeadlineIndex.Entry> entries) {
+    TableWriter table = deadlineTable();
+    table.writeHeader();
+    for (int i = 0; i < entries.size(); i++) {
+      DeadlineIndex.Entry entry = entries.get(i);
+      table.writeRow(entry.projectId(), entry.name(), entry.deadline());
+      int shown = i + 1;
+      if (scanner != null && shown % PAGE_SIZE == 0 && shown < entries.size()) {
+        table.flush();
+        System.out.print("-- " + shown + " shown. Press Enter for the next page or 'q' to stop: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+          return;
+        }
+      }
+    }
+    table.writeLine(
+        entries.isEmpty() ? "No projects found." : entries.size() + " project(s) listed.");
+    table.flush();
+  }
+
+  /**
+   * Searches for projects by number, or by any part of their name, address, ERF number or building
+   * type, best matches first, one page at a time. The repository may be the database or one loaded
+   * from the local snapshot while the database is unavailable.
+   *
+   * @param projects The repository to search.
    * @param scanner The scanner to read user input.
    */
-  public static void searchProject(Connection conn, Scanner scanner) {
+  public static void searchProject(ProjectRepository projects, Scanner scanner) {
     try {
       System.out.print("Enter Project ID or Name to search: ");
       String input = scanner.nextLine();
 
-      String query = "SELECT * FROM Project WHERE id = ? OR name LIKE ?";
-      try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-        pstmt.setString(1, input);
-        pstmt.setString(2, "%" + input + "%");
-
-        try (ResultSet rs = pstmt.executeQuery()) {
-          if (rs.next()) {
-            System.out.println("\nProject ID: " + rs.getInt("id"));
-            System.out.println("Project Name: " + rs.getString("name"));
-            System.out.println("Building Type: " + rs.getString("building_type"));
-            System.out.println("Deadline: " + rs.getDate("deadline"));
-            System.out.println("Finalised: " + rs.getBoolean("finalised"));
-          } else {
-            System.out.println("No project found with the given ID or name.");
-          }
+      TableWriter table =
+          TableWriter.toConsole(
+              new String[] {"ID", "Project Name", "Building Type", "Deadline", "Final"},
+              new int[] {6, 36, 14, 10, 5});
+      int shown = 0;
+      while (true) {
+        ProjectRepository.SearchPage result = projects.search(input, shown, PAGE_SIZE);
+        if (result.total() == 0) {
+          System.out.println("No project found with the given ID or name.");
+          return;
+        }
+        if (shown == 0) {
+          table.writeHeader();
+        }
+        for (Project project : result.projects()) {
+          table.writeRow(
+              project.id(),
+              project.name(),
+              project.buildingType(),
+              project.deadline(),
+              project.finalised() ? "Yes" : "No");
+        }
+        shown += result.projects().size();
+        table.writeLine(shown + " of " + result.total() + " match(es) shown.");
+        table.flush();
+        if (shown >= result.total()) {
+          return;
+        }
+        System.out.print("Press Enter for the next page or 'q' to stop: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+          return;
         }
       }
     } catch (SQLException e) {
       System.out.println("Error searching for project: " + e.getMessage());
     }
   }
+
+  /**
+   * Registers a listener to be told about every project added, changed or deleted through this
+   * class.
+   *
+   * @param listener The listener to add.
+   */
+  public static void addListener(ProjectListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Reads a single project, from {@link ProjectCache} if it holds it.
+   *
+   * @param conn The database connection.
+   * @param projectId The project ID.
+   * @return The project, or {@code null} if it does not exist.
+   * @throws SQLException If the query fails.
+   */
+  public static Project loadProject(Connection conn, int projectId) throws SQLException {
+    ProjectDetails details = loadProjectDetails(conn, projectId);
+    return details == null ? null : details.project();
+  }
+
+  /**
+   * Reads a single project and the people it refers to, from {@link ProjectCache} if it holds it.
+   *
+   * @param conn The database connection.
+   * @param projectId The project ID.
+   * @return The project and its people, or {@code null} if it does not exist.
+   * @throws SQLException If the query fails.
+   */
+  static ProjectDetails loadProjectDetails(Connection conn, int projectId) throws SQLException {
+    ProjectCache cache = ProjectCache.getInstance();
+    ProjectDetails cached = cache.lookup(projectId);
+    if (cached != null) {
+      return cached;
+    }
+    long stamp = cache.stamp();
+    Project project = selectProject(conn, projectId);
+    return project == null ? null : cache.store(conn, project, stamp);
+  }
+
+  /**
+   * Reads several projects, keeping the order of the search hits. Projects held by {@link
+   * ProjectCache} are taken from it and the rest are read in as few queries as possible.
+   *
+   * @param conn The database connection.
+   * @param hits The search hits to load.
+   * @return The projects that still exist, in hit order.
+   * @throws SQLException If the query fails.
+   */
+  static List<Project> loadProjects(Connection conn, List<ProjectSearchIndex.Hit> hits)
+      throws SQLException {
+    ProjectCache cache = ProjectCache.getInstance();
+    Map<Integer, Project> byId = new HashMap<>();
+    List<Integer> missing = new ArrayList<>();
+    for (ProjectSearchIndex.Hit hit : hits) {
+      ProjectDetails cached = cache.lookup(hit.projectId());
+      if (cached != null) {
+        byId.put(hit.projectId(), cached.project());
+      } else {
+        missing.add(hit.projectId());
+      }
+    }
+
+    long stamp = cache.stamp();
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PROJECTS_BY_IDS);
+    int batchSize = StatementRegistry.PROJECT_BATCH_SIZE;
+    for (int from = 0; from < missing.size(); from += batchSize) {
+      int to = Math.min(from + batchSize, missing.size());
+      for (int slot = 0; slot < batchSize; slot++) {
+        // Unused slots repeat the last ID so the statement shape never changes.
+        pstmt.setInt(slot + 1, missing.get(Math.min(from + slot, to - 1)));
+      }
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          Project project = readProject(rs);
+          byId.put(project.id(), project);
+          cache.store(conn, project, stamp);
+        }
+      }
+    }
+    List<Project> projects = new ArrayList<>();
+    for (ProjectSearchIndex.Hit hit : hits) {
+      Project project = byId.get(hit.projectId());
+      if (project != null) {
+        projects.add(project);
+      }
+    }
+    return projects;
+  }
+
+  /**
+   * Maps the current row of a {@code SELECT * FROM Project} result set.
+   *
+   * @param rs The result set, positioned on a row.
+   * @return The project.
+   * @throws SQLException If a column cannot be read.
+   */
+  static Project readProject(ResultSet rs) throws SQLException {
+    Date deadline = rs.getDate("deadline");
+    Date completionDate = rs.getDate("completion_date");
+    return new Project(
+        rs.getInt("id"),
+        rs.getString("name"),
+        rs.getString("building_type"),
+        rs.getString("address"),
+        rs.getString("erf_number"),
+        rs.getDouble("total_fee"),
+        rs.getDouble("amount_paid"),
+        deadline == null ? null : deadline.toLocalDate(),
+        rs.getBoolean("finalised"),
+        completionDate == null ? null : completionDate.toLocalDate(),
+        rs.getInt("customer_id"),
+        rs.getInt("architect_id"),
+        rs.getInt("project_manager_id"),
+        rs.getString("structural_engineer"));
+  }
+
+  /**
+   * Reads projects in project number order, a page at a time.
+   *
+   * @param conn The database connection.
+   * @param afterId Only projects with a higher number are returned; 0 starts from the beginning.
+   * @param limit The maximum number of projects to return.
+   * @return The projects.
+   * @throws SQLException If the query fails.
+   */
+  static List<Project> listProjects(Connection conn, int afterId, int limit) throws SQLException {
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PROJECTS_PAGE);
+    pstmt.setInt(1, afterId);
+    pstmt.setInt(2, limit);
+    List<Project> projects = new ArrayList<>();
+    try (ResultSet rs = pstmt.executeQuery()) {
+      while (rs.next()) {
+        projects.add(readProject(rs));
+      }
+    }
+    return projects;
+  }
+
+  /** Reads a single project from the database, bypassing the cache. */
+  private static Project selectProject(Connection conn, int projectId) throws SQLException {
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PROJECT);
+    pstmt.setInt(1, projectId);
+    try (ResultSet rs = pstmt.executeQuery()) {
+      return rs.next() ? readProject(rs) : null;
+    }
+  }
+
+  /** Reads back a project that was just written and tells listeners about it. */
+  private static Project reload(Connection conn, int projectId) throws SQLException {
+    Project project = selectProject(conn, projectId);
+    if (project != null) {
+      notifySaved(project);
+    }
+    return project;
+  }
+
+  /**
+   * Tells listeners about a project written outside the interactive flows, such as by a bulk
+   * import. Call only once the write has been committed.
+   *
+   * @param project The project as it is now stored.
+   */
+  static void notifySaved(Project project) {
+    ProjectCache.getInstance().invalidate(project.id());
+    for (ProjectListener listener : listeners) {
+      listener.projectSaved(project);
+    }
+  }
+
+  /**
+   * Re-reads the projects other processes changed and tells listeners about them, so the indexes,
+   * cache and snapshot pick up those changes. Subscribed to {@link ChangeFeed}.
+   *
+   * @param conn The database connection.
+   * @param changes The changes made elsewhere, oldest first.
+   * @throws SQLException If a project cannot be read.
+   */
+  static void applyChanges(Connection conn, List<ChangeFeed.Change> changes) throws SQLException {
+    Set<Integer> changed = new LinkedHashSet<>();
+    for (ChangeFeed.Change change : changes) {
+      changed.add(change.projectId());
+    }
+    // Whatever the recorded type, the row as it is now says whether the project still exists.
+    for (int projectId : changed) {
+      Project project = selectProject(conn, projectId);
+      if (project == null) {
+        notifyDeleted(projectId);
+      } else {
+        notifySaved(project);
+      }
+    }
+  }
+
+  /**
+   * Reads back projects that were just written, a batch at a time, and tells listeners about each,
+   * so only one batch is held in memory however many projects changed.
+   *
+   * @param conn The database connection that wrote them.
+   * @param projectIds The projects to read back.
+   * @throws SQLException If the projects cannot be read.
+   */
+  static void reloadAll(Connection conn, List<Integer> projectIds) throws SQLException {
+    PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PROJECTS_BY_IDS);
+    int batchSize = StatementRegistry.PROJECT_BATCH_SIZE;
+    for (int from = 0; from < projectIds.size(); from += batchSize) {
+      int to = Math.min(from + batchSize, projectIds.size());
+      for (int slot = 0; slot < batchSize; slot++) {
+        // Unused slots repeat the last ID so the statement shape never changes.
+        pstmt.setInt(slot + 1, projectIds.get(Math.min(from + slot, to - 1)));
+      }
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          notifySaved(readProject(rs));
+        }
+      }
+    }
+  }
+
+  static void notifyDeleted(int projectId) {
+    ProjectCache.getInstance().invalidate(projectId);
+    for (ProjectListener listener : listeners) {
+      listener.projectDeleted(projectId);
+    }
+  }
 }
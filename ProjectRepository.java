@@ -0,0 +1,115 @@
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Stores projects and answers the lookups the menu, commands and benchmarks need, without tying
+ * them to where the projects are kept.
+ *
+ * <p>{@link JdbcProjectRepository} reads and writes the {@code Project} table as the rest of the
+ * application does. {@link InMemoryProjectRepository} keeps projects in memory only, for tests,
+ * benchmarks and working from the local snapshot without a database.
+ *
+ * <p>Listing methods page by project number: pass 0 for the first page and the last ID returned
+ * for the next.
+ */
+public interface ProjectRepository {
+  /**
+   * Reads one project.
+   *
+   * @param projectId The project number.
+   * @return The project, or {@code null} if there is none with that number.
+   * @throws SQLException If the projects cannot be read.
+   */
+  Project find(int projectId) throws SQLException;
+
+  /**
+   * Reads projects in project number order.
+   *
+   * @param afterId Only projects with a higher number are returned.
+   * @param limit The most projects to return.
+   * @return The projects.
+   * @throws SQLException If the projects cannot be read.
+   */
+  List<Project> list(int afterId, int limit) throws SQLException;
+
+  /**
+   * Finds projects whose number equals the query or whose name, address, ERF number or building
+   * type contains it, best matches first.
+   *
+   * @param query The text to search for, ignoring case.
+   * @param offset The number of ranked matches to skip.
+   * @param limit The most matches to return.
+   * @return The page of matches and the total number of matches.
+   * @throws SQLException If the projects cannot be read.
+   */
+  SearchPage search(String query, int offset, int limit) throws SQLException;
+
+  /**
+   * Reads projects that are not finalised, in project number order.
+   *
+   * @param afterId Only projects with a higher number are returned.
+   * @param limit The most projects to return.
+   * @return The projects.
+   * @throws SQLException If the projects cannot be read.
+   */
+  List<Project> incomplete(int afterId, int limit) throws SQLException;
+
+  /**
+   * Reads projects that are not finalised and whose deadline has passed, in project number order.
+   *
+   * @param asOf Projects due before this date are overdue.
+   * @param afterId Only projects with a higher number are returned.
+   * @param limit The most projects to return.
+   * @return The projects.
+   * @throws SQLException If the projects cannot be read.
+   */
+  List<Project> overdue(LocalDate asOf, int afterId, int limit) throws SQLException;
+
+  /**
+   * Adds a project.
+   *
+   * @param draft The project to add; its ID, finalised flag and completion date are ignored.
+   * @return The project as stored, with its new number.
+   * @throws SQLException If the project cannot be stored.
+   */
+  Project insert(Project draft) throws SQLException;
+
+  /**
+   * Changes a project's name and/or deadline.
+   *
+   * @param projectId The project number.
+   * @param name The new name, or {@code null} or blank to keep the current one.
+   * @param deadline The new deadline, or {@code null} to keep the current one.
+   * @return The updated project, or {@code null} if there is none with that number.
+   * @throws SQLException If the project cannot be updated.
+   */
+  Project update(int projectId, String name, LocalDate deadline) throws SQLException;
+
+  /**
+   * Marks a project as finalised.
+   *
+   * @param projectId The project number.
+   * @param completionDate The completion date.
+   * @return The finalised project, or {@code null} if there is none with that number.
+   * @throws SQLException If the project cannot be updated.
+   */
+  Project finalise(int projectId, LocalDate completionDate) throws SQLException;
+
+  /**
+   * Deletes a project.
+   *
+   * @param projectId The project number.
+   * @return Whether the project existed.
+   * @throws SQLException If the project cannot be deleted.
+   */
+  boolean delete(int projectId) throws SQLException;
+
+  /**
+   * One page of search results.
+   *
+   * @param total The number of matches across all pages.
+   * @param projects The matches on this page, best first.
+   */
+  record SearchPage(int total, List<Project> projects) {}
+}
@@ -0,0 +1,532 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Substring search over project name, address, ERF number and building type.
+ *
+ * <p>Every field is broken into overlapping three-character sequences (trigrams), and each trigram
+ * maps to the sorted list of projects containing it. A query is answered by intersecting the
+ * posting lists of its own trigrams, starting with the shortest, and then confirming and ranking
+ * the few remaining candidates. Queries shorter than three characters fall back to a scan of the
+ * indexed text.
+ *
+ * <p>The shared index is loaded from the database once and then kept current through {@link
+ * ProjectListener} notifications. A reload reads into a new index without holding the lock, so
+ * searches keep being answered from the old one until the new one is swapped in, and a failed read
+ * leaves the old one in place. {@link InMemoryProjectRepository} keeps an index of its own.
+ */
+public class ProjectSearchIndex implements ProjectListener {
+  private static final ProjectSearchIndex INSTANCE = new ProjectSearchIndex();
+
+  /** Relative importance of a match in each field, in {@link Doc#fields} order. */
+  private static final int[] FIELD_WEIGHTS = {8, 2, 4, 1};
+
+  private static final int ID_MATCH_SCORE = 1_000;
+
+  private static final int FETCH_SIZE = 1_000;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  /** Held while the table is read, so only one caller loads it; not the read-write lock. */
+  private final Lock loading = new ReentrantLock();
+  private Map<Integer, Doc> docs = new HashMap<>();
+  private Map<Long, PostingList> postings = new HashMap<>();
+  private volatile boolean loaded;
+  /**
+   * The latest change to each project reported while a load is reading, or {@code null} for a
+   * deletion; replayed once the new index is in place. {@code null} when no load is running.
+   */
+  private Map<Integer, Project> changedDuringLoad;
+
+  /**
+   * Returns the shared index.
+   *
+   * @return The application-wide search index.
+   */
+  public static ProjectSearchIndex getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Loads every project into the index unless it has already been loaded.
+   *
+   * @param conn The database connection.
+   * @throws SQLException If reading the projects fails.
+   */
+  public void ensureLoaded(Connection conn) throws SQLException {
+    if (loaded) {
+      return;
+    }
+    loading.lock();
+    try {
+      if (!loaded) {
+        rebuild(conn);
+      }
+    } finally {
+      loading.unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the index from the {@code Project} table. Searches are answered from the current
+   * index until the new one is complete.
+   *
+   * @param conn The database connection.
+   * @throws SQLException If reading the projects fails; the current index is kept.
+   */
+  public void rebuild(Connection conn) throws SQLException {
+    loading.lock();
+    try {
+      lock.writeLock().lock();
+      try {
+        changedDuringLoad = new HashMap<>();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      try {
+        ProjectSearchIndex fresh = new ProjectSearchIndex();
+        PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_SEARCH_DOCS);
+        pstmt.setFetchSize(FETCH_SIZE);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            fresh.add(
+                new Doc(
+                    rs.getInt("id"),
+                    rs.getString("name"),
+                    rs.getString("address"),
+                    rs.getString("erf_number"),
+                    rs.getString("building_type")));
+          }
+        }
+        lock.writeLock().lock();
+        try {
+          docs = fresh.docs;
+          postings = fresh.postings;
+          loaded = true;
+          Map<Integer, Project> changes = changedDuringLoad;
+          changedDuringLoad = null;
+          for (Map.Entry<Integer, Project> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+              projectDeleted(change.getKey());
+            } else {
+              projectSaved(change.getValue());
+            }
+          }
+        } finally {
+          lock.writeLock().unlock();
+        }
+      } finally {
+        lock.writeLock().lock();
+        try {
+          changedDuringLoad = null;
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+    } finally {
+      loading.unlock();
+    }
+  }
+
+  /**
+   * Discards the index and rebuilds it from projects already in memory, such as a {@link
+   * ProjectSnapshot}.
+   *
+   * @param projects The projects to index.
+   */
+  public void rebuild(Collection<Project> projects) {
+    lock.writeLock().lock();
+    try {
+      docs.clear();
+      postings.clear();
+      for (Project project : projects) {
+        add(
+            new Doc(
+                project.id(),
+                project.name(),
+                project.address(),
+                project.erfNumber(),
+                project.buildingType()));
+      }
+      loaded = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void projectSaved(Project project) {
+    lock.writeLock().lock();
+    try {
+      if (changedDuringLoad != null) {
+        changedDuringLoad.put(project.id(), project);
+      }
+      if (!loaded) {
+        return;
+      }
+      remove(project.id());
+      add(
+          new Doc(
+              project.id(),
+              project.name(),
+              project.address(),
+              project.erfNumber(),
+              project.buildingType()));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void projectDeleted(int projectId) {
+    lock.writeLock().lock();
+    try {
+      if (changedDuringLoad != null) {
+        changedDuringLoad.put(projectId, null);
+      }
+      remove(projectId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds projects whose number equals the query or whose name, address, ERF number or building
+   * type contains it, best matches first.
+   *
+   * @param query The text to search for, ignoring case.
+   * @param offset The number of ranked results to skip.
+   * @param limit The maximum number of results to return.
+   * @return The requested page of results and the total number of matches.
+   */
+  public SearchResult search(String query, int offset, int limit) {
+    String needle = query.trim().toLowerCase(Locale.ROOT);
+    if (needle.isEmpty()) {
+      return new SearchResult(0, List.of());
+    }
+    Integer exactId = parseId(needle);
+
+    lock.readLock().lock();
+    try {
+      TopHits top = new TopHits(Math.min(offset + limit, docs.size()));
+      if (needle.length() < 3) {
+        for (Doc doc : docs.values()) {
+          top.offer(doc.id, score(doc, needle, exactId));
+        }
+      } else {
+        int[] candidates = candidates(needle);
+        for (int id : candidates) {
+          top.offer(id, score(docs.get(id), needle, exactId));
+        }
+        if (exactId != null
+            && docs.containsKey(exactId)
+            && Arrays.binarySearch(candidates, exactId) < 0) {
+          top.offer(exactId, ID_MATCH_SCORE);
+        }
+      }
+      return new SearchResult(top.total, top.page(offset));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a one-line summary of the index size.
+   *
+   * @return The number of indexed projects and distinct trigrams.
+   */
+  public String describeStats() {
+    lock.readLock().lock();
+    try {
+      return String.format(
+          "%d projects, %d trigrams%s",
+          docs.size(), postings.size(), loaded ? "" : " (not loaded)");
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns the IDs containing every trigram of the needle, smallest posting lists first. */
+  private int[] candidates(String needle) {
+    long[] grams = trigrams(needle);
+    PostingList[] lists = new PostingList[grams.length];
+    for (int i = 0; i < grams.length; i++) {
+      lists[i] = postings.get(grams[i]);
+      if (lists[i] == null) {
+        return new int[0];
+      }
+    }
+    Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+    int[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+    int count = result.length;
+    for (int i = 1; i < lists.length && count > 0; i++) {
+      count = lists[i].retainAll(result, count);
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private static int score(Doc doc, String needle, Integer exactId) {
+    int score = exactId != null && exactId == doc.id ? ID_MATCH_SCORE : 0;
+    for (int f = 0; f < doc.fields.length; f++) {
+      String field = doc.fields[f];
+      int at = field.indexOf(needle);
+      if (at < 0) {
+        continue;
+      }
+      int weight = FIELD_WEIGHTS[f];
+      if (field.length() == needle.length()) {
+        weight *= 4;
+      } else if (at == 0) {
+        weight *= 2;
+      }
+      score += weight;
+    }
+    return score;
+  }
+
+  private void add(Doc doc) {
+    docs.put(doc.id, doc);
+    for (String field : doc.fields) {
+      for (long gram : trigrams(field)) {
+        postings.computeIfAbsent(gram, g -> new PostingList()).add(doc.id);
+      }
+    }
+  }
+
+  private void remove(int projectId) {
+    Doc doc = docs.remove(projectId);
+    if (doc == null) {
+      return;
+    }
+    for (String field : doc.fields) {
+      for (long gram : trigrams(field)) {
+        PostingList list = postings.get(gram);
+        if (list != null && list.remove(projectId) && list.size == 0) {
+          postings.remove(gram);
+        }
+      }
+    }
+  }
+
+  /** Returns the distinct trigrams of a lower-cased string, each packed into a long. */
+  private static long[] trigrams(String text) {
+    if (text.length() < 3) {
+      return new long[0];
+    }
+    long[] grams = new long[text.length() - 2];
+    for (int i = 0; i < grams.length; i++) {
+      grams[i] =
+          ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+    Arrays.sort(grams);
+    int distinct = 0;
+    for (int i = 0; i < grams.length; i++) {
+      if (i == 0 || grams[i] != grams[i - 1]) {
+        grams[distinct++] = grams[i];
+      }
+    }
+    return distinct == grams.length ? grams : Arrays.copyOf(grams, distinct);
+  }
+
+  private static Integer parseId(String needle) {
+    if (needle.length() >= 10 || !needle.chars().allMatch(Character::isDigit)) {
+      return null;
+    }
+    return Integer.parseInt(needle);
+  }
+
+  /**
+   * A ranked search result.
+   *
+   * @param projectId The matching project.
+   * @param score Higher scores rank first.
+   */
+  public record Hit(int projectId, int score) {}
+
+  /**
+   * One page of ranked search results.
+   *
+   * @param total The total number of matching projects.
+   * @param hits The requested page of results, best first.
+   */
+  public record SearchResult(int total, List<Hit> hits) {}
+
+  /**
+   * Counts matches and keeps only the best {@code capacity} of them in a min-heap, so broad queries
+   * do not pay to sort every match. Entries pack the score and ID into one long so that a larger
+   * value ranks higher, with ties going to the lower project ID.
+   */
+  private static final class TopHits {
+    private final long[] heap;
+    private int size;
+    private int total;
+
+    private TopHits(int capacity) {
+      heap = new long[Math.max(capacity, 0)];
+    }
+
+    private void offer(int projectId, int score) {
+      if (score <= 0) {
+        return;
+      }
+      total++;
+      if (heap.length == 0) {
+        return;
+      }
+      long entry = ((long) score << 32) | (Integer.MAX_VALUE - projectId);
+      if (size < heap.length) {
+        heap[size] = entry;
+        siftUp(size++);
+      } else if (entry > heap[0]) {
+        heap[0] = entry;
+        siftDown(0);
+      }
+    }
+
+    private List<Hit> page(int offset) {
+      long[] best = Arrays.copyOf(heap, size);
+      Arrays.sort(best);
+      List<Hit> page = new ArrayList<>();
+      for (int i = best.length - 1 - offset; i >= 0; i--) {
+        page.add(new Hit(Integer.MAX_VALUE - (int) best[i], (int) (best[i] >>> 32)));
+      }
+      return page;
+    }
+
+    private void siftUp(int index) {
+      while (index > 0) {
+        int parent = (index - 1) / 2;
+        if (heap[parent] <= heap[index]) {
+          return;
+        }
+        swap(parent, index);
+        index = parent;
+      }
+    }
+
+    private void siftDown(int index) {
+      while (true) {
+        int smallest = index;
+        int left = 2 * index + 1;
+        int right = left + 1;
+        if (left < size && heap[left] < heap[smallest]) {
+          smallest = left;
+        }
+        if (right < size && heap[right] < heap[smallest]) {
+          smallest = right;
+        }
+        if (smallest == index) {
+          return;
+        }
+        swap(smallest, index);
+        index = smallest;
+      }
+    }
+
+    private void swap(int a, int b) {
+      long tmp = heap[a];
+      heap[a] = heap[b];
+      heap[b] = tmp;
+    }
+  }
+
+  /** The lower-cased searchable text of one project. */
+  private static final class Doc {
+    private final int id;
+    private final String[] fields;
+
+    private Doc(int id, String name, String address, String erfNumber, String buildingType) {
+      this.id = id;
+      this.fields =
+          new String[] {
+            normalise(name), normalise(address), normalise(erfNumber), normalise(buildingType)
+          };
+    }
+
+    private static String normalise(String value) {
+      return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /** A sorted, growable array of project IDs. */
+  private static final class PostingList {
+    private int[] ids = new int[4];
+    private int size;
+
+    private void add(int id) {
+      // IDs are auto-incremented, so new projects almost always append.
+      if (size > 0 && ids[size - 1] >= id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at >= 0) {
+          return;
+        }
+        insertAt(-at - 1, id);
+        return;
+      }
+      insertAt(size, id);
+    }
+
+    private void insertAt(int index, int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      System.arraycopy(ids, index, ids, index + 1, size - index);
+      ids[index] = id;
+      size++;
+    }
+
+    private boolean remove(int id) {
+      int at = Arrays.binarySearch(ids, 0, size, id);
+      if (at < 0) {
+        return false;
+      }
+      System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+      size--;
+      return true;
+    }
+
+    /**
+     * Keeps the leading {@code count} sorted IDs of {@code candidates} that are also in this list,
+     * compacting them to the front of the array. Small candidate sets are probed with binary
+     * search; sets of similar size to this list are merged in a single linear pass.
+     *
+     * @return The number of IDs kept.
+     */
+    private int retainAll(int[] candidates, int count) {
+      int kept = 0;
+      if ((long) count * 16 < size) {
+        for (int j = 0; j < count; j++) {
+          if (Arrays.binarySearch(ids, 0, size, candidates[j]) >= 0) {
+            candidates[kept++] = candidates[j];
+          }
+        }
+        return kept;
+      }
+      int k = 0;
+      for (int j = 0; j < count && k < size; j++) {
+        int id = candidates[j];
+        while (k < size && ids[k] < id) {
+          k++;
+        }
+        if (k < size && ids[k] == id) {
+          candidates[kept++] = id;
+        }
+      }
+      return kept;
+    }
+  }
+}
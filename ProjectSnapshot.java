@@ -0,0 +1,412 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A copy of every project and person kept in a local file, so the read-only menu options work
+ * straight away at startup and while the database cannot be reached.
+ *
+ * <p>The file starts with a header and is followed by length-prefixed records: a project, a deleted
+ * project ID, or a customer, architect or project manager. Reading replays the records in order, so
+ * later records replace earlier ones. While connected, {@link Writer#refresh} rewrites the whole
+ * file from the database and {@link Writer} then appends a record for every project change, so the
+ * file stays current without being rewritten. The file is read through a memory-mapped {@link
+ * FileChannel}; a record cut short by a crash is ignored.
+ *
+ * <p>The file holds customers' and other people's contact details unencrypted, so it is only kept
+ * when {@code poised.snapshot} is {@code true}, and is created readable by its owner alone where
+ * the file system supports POSIX permissions.
+ */
+public class ProjectSnapshot {
+  private static final int MAGIC = 0x50534e31; // "PSN1"
+  private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+  private static final long NO_DATE = Long.MIN_VALUE;
+  /** Projects read from the database per query when rewriting the file. */
+  private static final int PAGE_SIZE = 1_000;
+
+  private static final byte PROJECT = 'P';
+  private static final byte DELETED = 'D';
+  private static final Map<Byte, String> PERSON_TAGS =
+      Map.of((byte) 'C', "Customer", (byte) 'A', "Architect", (byte) 'M', "ProjectManager");
+
+  private final NavigableMap<Integer, Project> projects = new TreeMap<>();
+  private final Map<String, Map<Integer, Person>> people = new HashMap<>();
+  private final Instant writtenAt;
+
+  private ProjectSnapshot(Instant writtenAt) {
+    this.writtenAt = writtenAt;
+    for (String table : PERSON_TAGS.values()) {
+      people.put(table, new HashMap<>());
+    }
+  }
+
+  /**
+   * Returns the snapshot file location, set with {@code poised.snapshot.path}.
+   *
+   * @return The path, or {@code null} unless {@code poised.snapshot} is {@code true}.
+   */
+  public static Path defaultPath() {
+    if (!Boolean.getBoolean("poised.snapshot")) {
+      return null;
+    }
+    return Path.of(System.getProperty("poised.snapshot.path", "poised-snapshot.bin"));
+  }
+
+  /**
+   * Reads a snapshot file.
+   *
+   * @param path The file.
+   * @return The snapshot.
+   * @throws IOException If the file cannot be read or is not a snapshot.
+   */
+  public static ProjectSnapshot read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+        throw new IOException(path + " is not a project snapshot");
+      }
+      ProjectSnapshot snapshot = new ProjectSnapshot(Instant.ofEpochMilli(buffer.getLong()));
+      while (buffer.remaining() > Byte.BYTES + Integer.BYTES) {
+        byte tag = buffer.get();
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+          break;
+        }
+        ByteBuffer record = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        snapshot.apply(tag, record);
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Returns the time the file was last rewritten in full. Changes appended since are included.
+   *
+   * @return The time of the last full refresh.
+   */
+  public Instant writtenAt() {
+    return writtenAt;
+  }
+
+  /**
+   * Returns every project, by project number.
+   *
+   * @return The projects.
+   */
+  public Collection<Project> projects() {
+    return Collections.unmodifiableCollection(projects.values());
+  }
+
+  /**
+   * Returns a person.
+   *
+   * @param table The person table.
+   * @param id The person ID.
+   * @return The person, or {@code null} if the snapshot does not hold them.
+   */
+  public Person person(String table, int id) {
+    return people.get(table).get(id);
+  }
+
+  private void apply(byte tag, ByteBuffer in) {
+    if (tag == PROJECT) {
+      Project project = readProject(in);
+      projects.put(project.id(), project);
+    } else if (tag == DELETED) {
+      projects.remove(in.getInt());
+    } else if (PERSON_TAGS.containsKey(tag)) {
+      Person person =
+          new Person(
+              in.getInt(),
+              readString(in),
+              readString(in),
+              readString(in),
+              readString(in),
+              readString(in));
+      people.get(PERSON_TAGS.get(tag)).put(person.id(), person);
+    }
+  }
+
+  private static Project readProject(ByteBuffer in) {
+    return new Project(
+        in.getInt(),
+        readString(in),
+        readString(in),
+        readString(in),
+        readString(in),
+        in.getDouble(),
+        in.getDouble(),
+        readDate(in),
+        in.get() != 0,
+        readDate(in),
+        in.getInt(),
+        in.getInt(),
+        in.getInt(),
+        readString(in));
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getShort();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static LocalDate readDate(ByteBuffer in) {
+    long day = in.getLong();
+    return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+  }
+
+  /**
+   * Keeps a snapshot file current: rewrites it from the database on {@link #refresh}, and appends a
+   * record for each project saved or deleted in between.
+   */
+  public static class Writer implements ProjectListener {
+    private final Path path;
+    private final RecordEncoder encoder = new RecordEncoder();
+    private FileChannel appender;
+
+    /**
+     * Creates a writer. Nothing is appended until the first {@link #refresh}.
+     *
+     * @param path The snapshot file.
+     */
+    public Writer(Path path) {
+      this.path = path;
+    }
+
+    /**
+     * Rewrites the file from the database, a page of projects at a time. Project changes reported
+     * meanwhile wait, and are appended once the new file is in place.
+     *
+     * @param conn The database connection.
+     * @return The number of projects written.
+     * @throws SQLException If the data cannot be read.
+     * @throws IOException If the file cannot be written; the previous file is left as it was.
+     */
+    public synchronized int refresh(Connection conn) throws SQLException, IOException {
+      closeAppender();
+      Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+      createOwnerOnly(temp);
+      int count = 0;
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new BufferedOutputStream(
+                  Files.newOutputStream(temp, StandardOpenOption.TRUNCATE_EXISTING), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeLong(System.currentTimeMillis());
+        for (Map.Entry<Byte, String> table : PERSON_TAGS.entrySet()) {
+          PreparedStatement pstmt =
+              StatementRegistry.prepare(conn, SqlQuery.SELECT_PEOPLE, table.getValue());
+          try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+              encoder.person(table.getKey(), rs).writeTo(out);
+            }
+          }
+        }
+        PreparedStatement pstmt = StatementRegistry.prepare(conn, SqlQuery.SELECT_PROJECTS_PAGE);
+        int lastId = 0;
+        int rowsInPage;
+        do {
+          pstmt.setInt(1, lastId);
+          pstmt.setInt(2, PAGE_SIZE);
+          rowsInPage = 0;
+          try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+              Project project = ProjectManager.readProject(rs);
+              encoder.project(project).writeTo(out);
+              lastId = project.id();
+              rowsInPage++;
+            }
+          }
+          count += rowsInPage;
+        } while (rowsInPage == PAGE_SIZE);
+      } catch (SQLException | IOException | RuntimeException e) {
+        Files.deleteIfExists(temp);
+        throw e;
+      }
+      Files.move(
+          temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      appender = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      return count;
+    }
+
+    /**
+     * Creates an empty file that only its owner can read and write, replacing any left over from an
+     * earlier attempt. Where POSIX permissions are not supported, access is narrowed as far as the
+     * file system allows.
+     */
+    private static void createOwnerOnly(Path file) throws IOException {
+      Files.deleteIfExists(file);
+      if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rw-------");
+        Files.createFile(file, PosixFilePermissions.asFileAttribute(ownerOnly));
+        return;
+      }
+      File created = Files.createFile(file).toFile();
+      created.setReadable(false, false);
+      created.setReadable(true, true);
+      created.setWritable(false, false);
+      created.setWritable(true, true);
+    }
+
+    @Override
+    public synchronized void projectSaved(Project project) {
+      append(encoder.project(project));
+    }
+
+    @Override
+    public synchronized void projectDeleted(int projectId) {
+      append(encoder.deleted(projectId));
+    }
+
+    /** Stops appending and closes the file. */
+    public synchronized void close() {
+      closeAppender();
+    }
+
+    private void append(RecordEncoder record) {
+      if (appender == null) {
+        return;
+      }
+      try {
+        record.writeTo(appender);
+      } catch (IOException e) {
+        // The next refresh rewrites the file; until then it is only missing recent changes.
+        System.out.println("Error updating the local snapshot: " + e.getMessage());
+        closeAppender();
+      }
+    }
+
+    private void closeAppender() {
+      if (appender != null) {
+        try {
+          appender.close();
+        } catch (IOException e) {
+          // Nothing buffered is lost; every append is written straight to the channel.
+        }
+        appender = null;
+      }
+    }
+  }
+
+  /** Encodes one record at a time into a reusable buffer. */
+  private static class RecordEncoder {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private byte tag;
+
+    RecordEncoder project(Project p) {
+      try {
+        start(PROJECT);
+        out.writeInt(p.id());
+        writeString(p.name());
+        writeString(p.buildingType());
+        writeString(p.address());
+        writeString(p.erfNumber());
+        out.writeDouble(p.totalFee());
+        out.writeDouble(p.amountPaid());
+        writeDate(p.deadline());
+        out.writeBoolean(p.finalised());
+        writeDate(p.completionDate());
+        out.writeInt(p.customerId());
+        out.writeInt(p.architectId());
+        out.writeInt(p.projectManagerId());
+        writeString(p.structuralEngineer());
+        return this;
+      } catch (IOException e) {
+        throw new IllegalStateException("Writing to memory failed", e);
+      }
+    }
+
+    RecordEncoder person(byte personTag, ResultSet rs) throws SQLException {
+      try {
+        start(personTag);
+        out.writeInt(rs.getInt("id"));
+        writeString(rs.getString("first_name"));
+        writeString(rs.getString("last_name"));
+        writeString(rs.getString("email"));
+        writeString(rs.getString("phone"));
+        writeString(rs.getString("address"));
+        return this;
+      } catch (IOException e) {
+        throw new IllegalStateException("Writing to memory failed", e);
+      }
+    }
+
+    RecordEncoder deleted(int projectId) {
+      try {
+        start(DELETED);
+        out.writeInt(projectId);
+        return this;
+      } catch (IOException e) {
+        throw new IllegalStateException("Writing to memory failed", e);
+      }
+    }
+
+    void writeTo(OutputStream target) throws IOException {
+      DataOutputStream header = new DataOutputStream(target);
+      header.writeByte(tag);
+      header.writeInt(bytes.size());
+      bytes.writeTo(target);
+    }
+
+    void writeTo(FileChannel channel) throws IOException {
+      ByteBuffer record = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + bytes.size());
+      record.put(tag).putInt(bytes.size()).put(bytes.toByteArray()).flip();
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+    }
+
+    private void start(byte recordTag) {
+      tag = recordTag;
+      bytes.reset();
+    }
+
+    private void writeString(String value) throws IOException {
+      if (value == null) {
+        out.writeShort(-1);
+        return;
+      }
+      byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+      out.writeShort(encoded.length);
+      out.write(encoded);
+    }
+
+    private void writeDate(LocalDate date) throws IOException {
+      out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+  }
+}
@@ -0,0 +1,449 @@
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creates and upgrades the database schema, and checks that the queries the application runs are
+ * served by an index.
+ *
+ * <p>Each {@link Migration} is applied once, in version order, and recorded in the {@code
+ * schema_version} table. Tables are created only if missing, and an index is created only if no
+ * existing index already starts with its columns, so databases that were set up by hand are
+ * upgraded in place.
+ *
+ * <p>After migrating, {@link #verifyPlans} asks the database to {@code EXPLAIN} each shipped query
+ * and reports any that would scan a whole table without a usable index. MySQL and H2 plans are
+ * understood; other databases are not checked.
+ */
+public class SchemaMigrator {
+  /** Set to false for database accounts that may not change the schema. */
+  private static final boolean MIGRATE =
+      Boolean.parseBoolean(System.getProperty("poised.schema.migrate", "true"));
+  /** Set to true to refuse to start when a shipped query would scan a table. */
+  private static final boolean REQUIRE_INDEXES = Boolean.getBoolean("poised.schema.requireIndexes");
+
+  private static final String FEES = "total_fee";
+  private static final String PAID = "amount_paid";
+
+  private static final String[] PERSON_TABLES = {"Customer", "Architect", "ProjectManager"};
+
+  private static final String PERSON_TABLE =
+      """
+      CREATE TABLE IF NOT EXISTS %s (
+          id INT AUTO_INCREMENT PRIMARY KEY,
+          first_name VARCHAR(50) NOT NULL,
+          last_name VARCHAR(50) NOT NULL,
+          email VARCHAR(100),
+          phone VARCHAR(20),
+          address VARCHAR(255)
+      )
+      """;
+
+  private static final String PROJECT_TABLE =
+      """
+      CREATE TABLE IF NOT EXISTS Project (
+          id INT AUTO_INCREMENT PRIMARY KEY,
+          name VARCHAR(100) NOT NULL,
+          building_type VARCHAR(50),
+          address VARCHAR(255),
+          erf_number VARCHAR(50),
+          total_fee DECIMAL(12, 2),
+          amount_paid DECIMAL(12, 2),
+          deadline DATE,
+          finalised BOOLEAN NOT NULL DEFAULT FALSE,
+          completion_date DATE,
+          customer_id INT,
+          architect_id INT,
+          project_manager_id INT,
+          structural_engineer VARCHAR(100),
+          FOREIGN KEY (customer_id) REFERENCES Customer(id),
+          FOREIGN KEY (architect_id) REFERENCES Architect(id),
+          FOREIGN KEY (project_manager_id) REFERENCES ProjectManager(id)
+      )
+      """;
+
+  private static final String CHANGE_TABLE =
+      """
+      CREATE TABLE IF NOT EXISTS project_change (
+          seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+          project_id INT NOT NULL,
+          change_type VARCHAR(10) NOT NULL,
+          origin VARCHAR(36) NOT NULL,
+          changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+      )
+      """;
+
+  /**
+   * Finalised projects moved out of {@code Project} by {@link ProjectArchive}. The primary key
+   * leads with the completion year, so each year's projects are stored together.
+   */
+  private static final String ARCHIVE_TABLE =
+      """
+      CREATE TABLE IF NOT EXISTS project_archive (
+          id INT NOT NULL,
+          name VARCHAR(100) NOT NULL,
+          building_type VARCHAR(50),
+          address VARCHAR(255),
+          erf_number VARCHAR(50),
+          total_fee DECIMAL(12, 2),
+          amount_paid DECIMAL(12, 2),
+          deadline DATE,
+          finalised BOOLEAN NOT NULL DEFAULT TRUE,
+          completion_date DATE NOT NULL,
+          completion_year INT NOT NULL,
+          customer_id INT,
+          architect_id INT,
+          project_manager_id INT,
+          structural_engineer VARCHAR(100),
+          archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+          PRIMARY KEY (completion_year, id)
+      )
+      """;
+
+  /**
+   * Hashing the year keeps each year in one partition without a partition having to be added every
+   * year. H2 has no partitioning; there the primary key alone keeps the years apart.
+   */
+  private static final String PARTITION_ARCHIVE =
+      "ALTER TABLE project_archive PARTITION BY HASH (completion_year) PARTITIONS 16";
+
+  private static final List<Migration> MIGRATIONS =
+      List.of(
+          new Migration(
+              1,
+              "Create project and person tables",
+              sql(String.format(PERSON_TABLE, "Customer")),
+              sql(String.format(PERSON_TABLE, "Architect")),
+              sql(String.format(PERSON_TABLE, "ProjectManager")),
+              sql(PROJECT_TABLE)),
+          new Migration(
+              2,
+              "Index deadlines, names, person references and emails",
+              index("Project", "idx_project_finalised_deadline", "finalised", "deadline"),
+              index("Project", "idx_project_name", "name"),
+              index("Project", "idx_project_customer", "customer_id"),
+              index("Project", "idx_project_architect", "architect_id"),
+              index("Project", "idx_project_manager", "project_manager_id"),
+              index("Customer", "idx_customer_email", "email"),
+              index("Architect", "idx_architect_email", "email"),
+              index("ProjectManager", "idx_project_manager_email", "email")),
+          // Lets the financial report sum each grouping from an index instead of the table.
+          new Migration(
+              3,
+              "Cover the financial report groupings",
+              index("Project", "idx_project_customer_fees", "customer_id", FEES, PAID),
+              index("Project", "idx_project_manager_fees", "project_manager_id", FEES, PAID),
+              index("Project", "idx_project_type_fees", "building_type", FEES, PAID),
+              index("Project", "idx_project_deadline_fees", "deadline", FEES, PAID)),
+          new Migration(
+              4,
+              "Record project changes for other instances to pick up",
+              sql(CHANGE_TABLE),
+              index("project_change", "idx_project_change_time", "changed_at")),
+          new Migration(
+              5,
+              "Archive old finalised projects by completion year",
+              sql(ARCHIVE_TABLE),
+              mysqlOnly(PARTITION_ARCHIVE),
+              index("Project", "idx_project_finalised_completion", "finalised", "completion_date"),
+              index("project_archive", "idx_project_archive_id", "id"),
+              index("project_archive", "idx_project_archive_customer", "customer_id"),
+              index("project_archive", "idx_project_archive_architect", "architect_id"),
+              index("project_archive", "idx_project_archive_manager", "project_manager_id")));
+
+  private SchemaMigrator() {}
+
+  /**
+   * Brings the schema up to date and checks the query plans, reporting both on standard error so
+   * they stay out of batch and API output.
+   *
+   * @param conn The database connection.
+   * @throws SQLException If a migration fails, or a query would scan a table and {@code
+   *     poised.schema.requireIndexes} is set.
+   */
+  public static void prepare(Connection conn) throws SQLException {
+    if (MIGRATE) {
+      for (String applied : migrate(conn)) {
+        System.err.println("Applied schema migration " + applied);
+      }
+    }
+    List<String> warnings = verifyPlans(conn);
+    for (String warning : warnings) {
+      System.err.println("Warning: " + warning);
+    }
+    if (REQUIRE_INDEXES && !warnings.isEmpty()) {
+      throw new SQLException(warnings.size() + " queries would scan a table without an index");
+    }
+  }
+
+  /**
+   * Applies every migration newer than the database's recorded version.
+   *
+   * @param conn The database connection; it must be in auto-commit mode.
+   * @return The descriptions of the migrations applied, oldest first.
+   * @throws SQLException If a migration fails. Migrations applied before it stay recorded.
+   */
+  public static List<String> migrate(Connection conn) throws SQLException {
+    return migrate(conn, MIGRATIONS.get(MIGRATIONS.size() - 1).version());
+  }
+
+  /**
+   * Applies the migrations newer than the database's recorded version, up to a given version. Bulk
+   * loaders migrate to version 1 first, so the indexes are built once over the loaded rows instead
+   * of being updated row by row.
+   *
+   * @param conn The database connection; it must be in auto-commit mode.
+   * @param target The newest version to apply.
+   * @return The descriptions of the migrations applied, oldest first.
+   * @throws SQLException If a migration fails. Migrations applied before it stay recorded.
+   */
+  public static List<String> migrate(Connection conn, int target) throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute(
+          """
+          CREATE TABLE IF NOT EXISTS schema_version (
+              version INT PRIMARY KEY,
+              description VARCHAR(200) NOT NULL,
+              applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+          )
+          """);
+    }
+    int current = currentVersion(conn);
+    List<String> applied = new ArrayList<>();
+    for (Migration migration : MIGRATIONS) {
+      if (migration.version() <= current || migration.version() > target) {
+        continue;
+      }
+      for (Step step : migration.steps()) {
+        step.apply(conn);
+      }
+      try (PreparedStatement pstmt =
+          conn.prepareStatement(
+              "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+        pstmt.setInt(1, migration.version());
+        pstmt.setString(2, migration.description());
+        pstmt.executeUpdate();
+      }
+      applied.add(migration.version() + ": " + migration.description());
+    }
+    return applied;
+  }
+
+  /**
+   * Returns the newest migration recorded in the database.
+   *
+   * @param conn The database connection.
+   * @return The schema version, or 0 if no migration has been applied.
+   * @throws SQLException If the version table cannot be read.
+   */
+  public static int currentVersion(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+      return rs.next() ? rs.getInt(1) : 0;
+    }
+  }
+
+  /**
+   * Explains each query the application runs often and reports those that would read a whole
+   * table without any usable index.
+   *
+   * @param conn The database connection.
+   * @return One warning per problem query; empty if every plan uses an index or the database's
+   *     plans are not understood.
+   * @throws SQLException If a query cannot be explained.
+   */
+  public static List<String> verifyPlans(Connection conn) throws SQLException {
+    String product = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+    boolean mysql = product.contains("mysql") || product.contains("mariadb");
+    if (!mysql && !product.contains("h2")) {
+      return List.of();
+    }
+
+    Map<String, String> checks = new TreeMap<>();
+    for (SqlQuery query :
+        List.of(
+            SqlQuery.LIST_INCOMPLETE_PAGE,
+            SqlQuery.LIST_OVERDUE_PAGE,
+            SqlQuery.SELECT_OPEN_DEADLINES,
+            SqlQuery.SELECT_PROJECT,
+            SqlQuery.SELECT_PROJECTS_BY_IDS,
+            SqlQuery.REPORT_BY_CUSTOMER,
+            SqlQuery.REPORT_BY_PROJECT_MANAGER,
+            SqlQuery.REPORT_BY_BUILDING_TYPE,
+            SqlQuery.REPORT_BY_DEADLINE_MONTH)) {
+      checks.put(query.name(), query.sql());
+    }
+    if (ChangeFeed.ENABLED) {
+      checks.put(
+          SqlQuery.SELECT_PROJECT_CHANGES.name(), SqlQuery.SELECT_PROJECT_CHANGES.sql());
+    }
+    for (String table : PERSON_TABLES) {
+      checks.put(
+          SqlQuery.SELECT_PERSON_BY_EMAIL.name() + "(" + table + ")",
+          SqlQuery.SELECT_PERSON_BY_EMAIL.sql().replace("{table}", table));
+    }
+
+    List<String> warnings = new ArrayList<>();
+    for (Map.Entry<String, String> check : checks.entrySet()) {
+      String sql = check.getValue().strip();
+      if (sql.endsWith(";")) {
+        sql = sql.substring(0, sql.length() - 1);
+      }
+      try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+        int parameters = sql.length() - sql.replace("?", "").length();
+        for (int i = 1; i <= parameters; i++) {
+          // Every placeholder in these queries accepts a number; emails compare as text.
+          pstmt.setObject(i, sql.contains("email = ?") ? "someone@example.com" : 1);
+        }
+        try (ResultSet rs = pstmt.executeQuery()) {
+          String problem = mysql ? mysqlFullScan(rs) : h2FullScan(rs);
+          if (problem != null) {
+            warnings.add(check.getKey() + " scans " + problem + " without an index");
+          }
+        }
+      }
+    }
+    return warnings;
+  }
+
+  /** Returns the table a MySQL plan reads in full with no candidate index, if any. */
+  private static String mysqlFullScan(ResultSet rs) throws SQLException {
+    while (rs.next()) {
+      if ("ALL".equalsIgnoreCase(rs.getString("type")) && rs.getString("possible_keys") == null) {
+        return rs.getString("table");
+      }
+    }
+    return null;
+  }
+
+  /** Returns the table an H2 plan reads with a table scan, if any. */
+  private static String h2FullScan(ResultSet rs) throws SQLException {
+    while (rs.next()) {
+      String plan = rs.getString(1);
+      int scan = plan.indexOf(".tableScan");
+      if (scan >= 0) {
+        int start = plan.lastIndexOf('.', scan - 1) + 1;
+        return plan.substring(start, scan);
+      }
+    }
+    return null;
+  }
+
+  private static Step sql(String statement) {
+    return conn -> {
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute(statement);
+      }
+    };
+  }
+
+  /** Runs a statement only on MySQL and MariaDB, for features H2 does not have. */
+  private static Step mysqlOnly(String statement) {
+    return conn -> {
+      String product = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+      if (product.contains("mysql") || product.contains("mariadb")) {
+        sql(statement).apply(conn);
+      }
+    };
+  }
+
+  /**
+   * Creates an index unless the table already has one (including its primary key) whose leading
+   * columns are the given columns.
+   */
+  private static Step index(String table, String name, String... columns) {
+    return conn -> {
+      if (hasIndex(conn, table, columns)) {
+        return;
+      }
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute(
+            "CREATE INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")");
+      }
+    };
+  }
+
+  /**
+   * Returns whether a table exists, so optional tables from later migrations can be left out of
+   * queries on databases that have not been migrated.
+   *
+   * @param conn The database connection.
+   * @param table The table name, in any case.
+   * @return Whether the table exists in the connection's schema.
+   * @throws SQLException If the database metadata cannot be read.
+   */
+  static boolean hasTable(Connection conn, String table) throws SQLException {
+    DatabaseMetaData meta = conn.getMetaData();
+    for (String spelling :
+        new String[] {table, table.toLowerCase(Locale.ROOT), table.toUpperCase(Locale.ROOT)}) {
+      try (ResultSet rs = meta.getTables(conn.getCatalog(), conn.getSchema(), spelling, null)) {
+        while (rs.next()) {
+          // The name is a LIKE pattern, where an underscore matches any character.
+          if (table.equalsIgnoreCase(rs.getString("TABLE_NAME"))) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasIndex(Connection conn, String table, String... columns)
+      throws SQLException {
+    DatabaseMetaData meta = conn.getMetaData();
+    // Databases store unquoted names in different cases, so try each spelling.
+    for (String spelling :
+        new String[] {table, table.toLowerCase(Locale.ROOT), table.toUpperCase(Locale.ROOT)}) {
+      Map<String, TreeMap<Integer, String>> indexes = new TreeMap<>();
+      try (ResultSet rs =
+          meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), spelling, false, true)) {
+        while (rs.next()) {
+          String indexName = rs.getString("INDEX_NAME");
+          String column = rs.getString("COLUMN_NAME");
+          if (indexName != null && column != null) {
+            indexes
+                .computeIfAbsent(indexName, n -> new TreeMap<>())
+                .put((int) rs.getShort("ORDINAL_POSITION"), column);
+          }
+        }
+      }
+      for (TreeMap<Integer, String> indexColumns : indexes.values()) {
+        List<String> leading = new ArrayList<>(indexColumns.values());
+        if (leading.size() < columns.length) {
+          continue;
+        }
+        boolean matches = true;
+        for (int i = 0; i < columns.length && matches; i++) {
+          matches = leading.get(i).equalsIgnoreCase(columns[i]);
+        }
+        if (matches) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** One schema change applied by {@link #migrate}. */
+  @FunctionalInterface
+  private interface Step {
+    void apply(Connection conn) throws SQLException;
+  }
+
+  /**
+   * A numbered set of schema changes.
+   *
+   * @param version The schema version reached once applied.
+   * @param description What the migration does.
+   * @param steps The changes, applied in order.
+   */
+  private record Migration(int version, String description, Step... steps) {}
+}
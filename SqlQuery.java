@@ -0,0 +1,259 @@
+/**
+ * The queries {@link StatementRegistry} prepares and caches. {@code {table}} marks where a
+ * person-table name is substituted.
+ */
+public enum SqlQuery {
+  LIST_PROJECTS_PAGE(
+      """
+      SELECT
+          p.id AS project_id,
+          p.name AS project_name,
+          p.building_type,
+          p.deadline,
+          p.finalised,
+          pm.first_name AS manager_first_name,
+          pm.last_name AS manager_last_name,
+          pm.email AS manager_email
+      FROM
+          Project p
+      JOIN
+          ProjectManager pm ON p.project_manager_id = pm.id
+      WHERE
+          p.id > ?
+      ORDER BY
+          p.id
+      LIMIT ?;
+      """),
+  LIST_INCOMPLETE_PAGE(
+      """
+      SELECT id, name, deadline FROM Project
+      WHERE finalised = FALSE AND id > ?
+      ORDER BY id
+      LIMIT ?
+      """),
+  LIST_OVERDUE_PAGE(
+      """
+      SELECT id, name, deadline FROM Project
+      WHERE deadline < CURDATE() AND finalised = FALSE AND id > ?
+      ORDER BY id
+      LIMIT ?
+      """),
+  SELECT_OPEN_DEADLINES("SELECT id, name, deadline FROM Project WHERE finalised = FALSE"),
+  SELECT_SEARCH_DOCS("SELECT id, name, address, erf_number, building_type FROM Project"),
+  SELECT_PROJECTS_PAGE("SELECT * FROM Project WHERE id > ? ORDER BY id LIMIT ?"),
+  SELECT_PROJECT("SELECT * FROM Project WHERE id = ?"),
+  SELECT_INCOMPLETE_PROJECTS_PAGE(
+      "SELECT * FROM Project WHERE finalised = FALSE AND id > ? ORDER BY id LIMIT ?"),
+  SELECT_OVERDUE_PROJECTS_PAGE(
+      """
+      SELECT * FROM Project
+      WHERE deadline < ? AND finalised = FALSE AND id > ?
+      ORDER BY id
+      LIMIT ?
+      """),
+  /**
+   * Takes exactly {@link StatementRegistry#PROJECT_BATCH_SIZE} IDs; spare slots repeat an ID already
+   * in the list.
+   */
+  SELECT_PROJECTS_BY_IDS(
+      "SELECT * FROM Project WHERE id IN (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"),
+  INSERT_PROJECT(
+      """
+INSERT INTO Project (name, building_type, address, erf_number, total_fee, amount_paid, deadline, finalised, customer_id, architect_id, project_manager_id, structural_engineer)
+VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?, ?);
+""",
+      true),
+  UPDATE_PROJECT(
+      """
+      UPDATE Project
+      SET name = COALESCE(NULLIF(?, ''), name),
+          deadline = COALESCE(NULLIF(?, ''), deadline)
+      WHERE id = ?;
+      """),
+  FINALISE_PROJECT(
+      """
+      UPDATE Project SET finalised = TRUE, completion_date = ? WHERE id = ?;
+      """),
+  DELETE_PROJECT("DELETE FROM Project WHERE id = ?"),
+  REPORT_BY_CUSTOMER(
+      """
+      SELECT g.person_id, c.first_name, c.last_name, g.projects, g.fees, g.paid
+      FROM (
+          SELECT customer_id AS person_id, COUNT(*) AS projects,
+              COALESCE(SUM(total_fee), 0) AS fees, COALESCE(SUM(amount_paid), 0) AS paid
+          FROM Project
+          GROUP BY customer_id
+      ) g
+      LEFT JOIN Customer c ON c.id = g.person_id
+      """),
+  REPORT_BY_PROJECT_MANAGER(
+      """
+      SELECT g.person_id, pm.first_name, pm.last_name, g.projects, g.fees, g.paid
+      FROM (
+          SELECT project_manager_id AS person_id, COUNT(*) AS projects,
+              COALESCE(SUM(total_fee), 0) AS fees, COALESCE(SUM(amount_paid), 0) AS paid
+          FROM Project
+          GROUP BY project_manager_id
+      ) g
+      LEFT JOIN ProjectManager pm ON pm.id = g.person_id
+      """),
+  REPORT_BY_BUILDING_TYPE(
+      """
+      SELECT building_type, COUNT(*) AS projects,
+          COALESCE(SUM(total_fee), 0) AS fees, COALESCE(SUM(amount_paid), 0) AS paid
+      FROM Project
+      GROUP BY building_type
+      """),
+  REPORT_BY_DEADLINE_MONTH(
+      """
+      SELECT YEAR(deadline) AS deadline_year, MONTH(deadline) AS deadline_month,
+          COUNT(*) AS projects,
+          COALESCE(SUM(total_fee), 0) AS fees, COALESCE(SUM(amount_paid), 0) AS paid
+      FROM Project
+      GROUP BY YEAR(deadline), MONTH(deadline)
+      """),
+  DASHBOARD_SUMMARY(
+      """
+      SELECT COUNT(*) AS open_projects,
+          COALESCE(SUM(CASE WHEN deadline < ? THEN 1 ELSE 0 END), 0) AS overdue,
+          COALESCE(SUM(CASE WHEN deadline >= ? AND deadline < ? THEN 1 ELSE 0 END), 0) AS due_soon
+      FROM Project
+      WHERE finalised = FALSE
+      """),
+  DASHBOARD_OVERDUE(
+      """
+      SELECT id, name, deadline FROM Project
+      WHERE finalised = FALSE AND deadline < ?
+      ORDER BY deadline, id LIMIT ?
+      """),
+  DASHBOARD_DUE_SOON(
+      """
+      SELECT id, name, deadline FROM Project
+      WHERE finalised = FALSE AND deadline >= ? AND deadline < ?
+      ORDER BY deadline, id LIMIT ?
+      """),
+  DASHBOARD_WORKLOAD(
+      """
+      SELECT g.person_id, pm.first_name, pm.last_name, g.projects, g.overdue
+      FROM (
+          SELECT project_manager_id AS person_id, COUNT(*) AS projects,
+              COALESCE(SUM(CASE WHEN deadline < ? THEN 1 ELSE 0 END), 0) AS overdue
+          FROM Project
+          WHERE finalised = FALSE
+          GROUP BY project_manager_id
+      ) g
+      LEFT JOIN ProjectManager pm ON pm.id = g.person_id
+      ORDER BY g.projects DESC, g.person_id
+      LIMIT ?
+      """),
+  DASHBOARD_OUTSTANDING(
+      """
+      SELECT COALESCE(SUM(CASE WHEN amount_paid < total_fee THEN 1 ELSE 0 END), 0) AS owing,
+          COALESCE(SUM(total_fee), 0) AS fees, COALESCE(SUM(amount_paid), 0) AS paid
+      FROM Project
+      """),
+  INSERT_PROJECT_CHANGE(
+      "INSERT INTO project_change (project_id, change_type, origin) VALUES (?, ?, ?)"),
+  SELECT_PROJECT_CHANGES(
+      """
+      SELECT seq, project_id, change_type, origin, changed_at FROM project_change
+      WHERE seq > ?
+      ORDER BY seq
+      LIMIT ?
+      """),
+  SELECT_LAST_PROJECT_CHANGE("SELECT COALESCE(MAX(seq), 0) FROM project_change"),
+  DELETE_PROJECT_CHANGES_BEFORE("DELETE FROM project_change WHERE changed_at < ?"),
+  SELECT_ARCHIVE_CANDIDATES(
+      """
+      SELECT id FROM Project
+      WHERE finalised = TRUE AND completion_date < ? AND amount_paid >= total_fee
+      ORDER BY completion_date, id
+      LIMIT ?
+      FOR UPDATE
+      """),
+  ARCHIVE_PROJECT(
+      """
+      INSERT INTO project_archive (id, name, building_type, address, erf_number, total_fee,
+          amount_paid, deadline, finalised, completion_date, completion_year, customer_id,
+          architect_id, project_manager_id, structural_engineer)
+      SELECT id, name, building_type, address, erf_number, total_fee,
+          amount_paid, deadline, finalised, completion_date, YEAR(completion_date), customer_id,
+          architect_id, project_manager_id, structural_engineer
+      FROM Project
+      WHERE id = ?
+      """),
+  SEARCH_ARCHIVE(
+      """
+      SELECT * FROM project_archive
+      WHERE id = ? OR LOWER(name) LIKE ? OR LOWER(address) LIKE ? OR LOWER(erf_number) LIKE ?
+      ORDER BY completion_date DESC, id
+      LIMIT ? OFFSET ?
+      """),
+  /** Reads only the completion year's partition. */
+  SEARCH_ARCHIVE_IN_YEAR(
+      """
+      SELECT * FROM project_archive
+      WHERE completion_year = ?
+          AND (id = ? OR LOWER(name) LIKE ? OR LOWER(address) LIKE ? OR LOWER(erf_number) LIKE ?)
+      ORDER BY completion_date DESC, id
+      LIMIT ? OFFSET ?
+      """),
+  EXPORT_PROJECTS(SqlQuery.EXPORT_SELECT + "ORDER BY p.id"),
+  EXPORT_FINALISED_PROJECTS(SqlQuery.EXPORT_SELECT + "WHERE p.finalised = TRUE ORDER BY p.id"),
+  EXPORT_INCOMPLETE_PROJECTS(SqlQuery.EXPORT_SELECT + "WHERE p.finalised = FALSE ORDER BY p.id"),
+  EXPORT_OVERDUE_PROJECTS(
+      SqlQuery.EXPORT_SELECT
+          + "WHERE p.finalised = FALSE AND p.deadline < CURDATE() ORDER BY p.id"),
+  SELECT_PEOPLE("SELECT id, first_name, last_name, email, phone, address FROM {table}"),
+  SELECT_PERSON(
+      "SELECT id, first_name, last_name, email, phone, address FROM {table} WHERE id = ?"),
+  SELECT_PERSON_BY_EMAIL(
+      "SELECT id, first_name, last_name, email, phone, address FROM {table} WHERE email = ?"),
+  INSERT_PERSON(
+      "INSERT INTO {table} (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)",
+      true);
+
+  /** The columns and joins every export query shares; each adds its own filter and order. */
+  private static final String EXPORT_SELECT =
+      """
+      SELECT
+          p.id, p.name, p.building_type, p.address, p.erf_number, p.total_fee, p.amount_paid,
+          p.deadline, p.finalised, p.completion_date, p.structural_engineer,
+          c.first_name AS customer_first_name, c.last_name AS customer_last_name,
+          c.email AS customer_email, c.phone AS customer_phone, c.address AS customer_address,
+          a.first_name AS architect_first_name, a.last_name AS architect_last_name,
+          a.email AS architect_email, a.phone AS architect_phone, a.address AS architect_address,
+          pm.first_name AS project_manager_first_name, pm.last_name AS project_manager_last_name,
+          pm.email AS project_manager_email, pm.phone AS project_manager_phone,
+          pm.address AS project_manager_address
+      FROM
+          Project p
+      LEFT JOIN Customer c ON p.customer_id = c.id
+      LEFT JOIN Architect a ON p.architect_id = a.id
+      LEFT JOIN ProjectManager pm ON p.project_manager_id = pm.id
+      """;
+
+  private final String sql;
+  private final boolean returnsKeys;
+
+  SqlQuery(String sql) {
+    this(sql, false);
+  }
+
+  SqlQuery(String sql, boolean returnsKeys) {
+    this.sql = sql;
+    this.returnsKeys = returnsKeys;
+  }
+
+  String sql() {
+    return sql;
+  }
+
+  boolean returnsKeys() {
+    return returnsKeys;
+  }
+
+  boolean isPersonQuery() {
+    return sql.contains("{table}");
+  }
+}
@@ -0,0 +1,223 @@
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepares every query the application runs repeatedly once per physical connection and hands out
+ * the cached statement on later calls, so repeated operations skip statement parsing.
+ *
+ * <p>Statements returned by {@link #prepare} belong to the registry: callers set parameters and
+ * execute them, and may close their result sets, but {@code close()} on the statement itself is
+ * ignored. Person-table queries take the table name from {@link PersonDirectory#PERSON_TABLES}
+ * only, so no caller-supplied text ever reaches the SQL.
+ *
+ * <p>Each execution is timed under {@code sql.<statement>} in {@link Metrics}, and rows read from
+ * a query's result set are counted when the result set is closed.
+ */
+public class StatementRegistry {
+
+  /** Number of placeholders in {@link SqlQuery#SELECT_PROJECTS_BY_IDS}. */
+  public static final int PROJECT_BATCH_SIZE = 16;
+
+  private static final Map<Connection, Map<String, PreparedStatement>> cache =
+      new IdentityHashMap<>();
+  private static final Map<String, Counters> counters = new HashMap<>();
+
+  private StatementRegistry() {}
+
+  /**
+   * Returns the cached statement for a project query, preparing it on first use.
+   *
+   * @param conn The connection to run the query on.
+   * @param query A query that does not refer to a person table.
+   * @return The prepared statement.
+   * @throws SQLException If the statement cannot be prepared.
+   */
+  public static PreparedStatement prepare(Connection conn, SqlQuery query) throws SQLException {
+    if (query.isPersonQuery()) {
+      throw new IllegalArgumentException(query + " needs a person table");
+    }
+    return prepare(conn, query, query.name(), query.sql());
+  }
+
+  /**
+   * Returns the cached statement for a person-table query, preparing it on first use.
+   *
+   * @param conn The connection to run the query on.
+   * @param query A query that refers to a person table.
+   * @param tableName One of {@link PersonDirectory#PERSON_TABLES}.
+   * @return The prepared statement.
+   * @throws SQLException If the statement cannot be prepared.
+   * @throws IllegalArgumentException If the table does not hold people.
+   */
+  public static PreparedStatement prepare(Connection conn, SqlQuery query, String tableName)
+      throws SQLException {
+    if (!query.isPersonQuery()) {
+      throw new IllegalArgumentException(query + " does not take a table name");
+    }
+    if (!PersonDirectory.PERSON_TABLES.contains(tableName)) {
+      throw new IllegalArgumentException("Not a person table: " + tableName);
+    }
+    String key = query.name() + "(" + tableName + ")";
+    return prepare(conn, query, key, query.sql().replace("{table}", tableName));
+  }
+
+  /**
+   * Returns the per-statement counters, sorted by statement name.
+   *
+   * @return One line per statement: how often it was prepared, reused and executed.
+   */
+  public static List<String> describeStats() {
+    List<String> lines = new ArrayList<>();
+    synchronized (counters) {
+      for (Map.Entry<String, Counters> entry : new TreeMap<>(counters).entrySet()) {
+        Counters c = entry.getValue();
+        lines.add(
+            String.format(
+                "%-32s %6d prepared %8d hits %8d executions",
+                entry.getKey(), c.prepares.get(), c.hits.get(), c.executions.get()));
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Drops the statements cached for a physical connection. The connection pool calls this when it
+   * retires a connection.
+   *
+   * @param physical The connection being closed.
+   */
+  public static void forget(Connection physical) {
+    synchronized (cache) {
+      cache.remove(physical);
+    }
+  }
+
+  private static PreparedStatement prepare(Connection conn, SqlQuery query, String key, String sql)
+      throws SQLException {
+    // Pooled connections unwrap to the physical connection, which outlives each lease.
+    Connection physical = conn.unwrap(Connection.class);
+    Counters stats;
+    synchronized (counters) {
+      stats = counters.computeIfAbsent(key, k -> new Counters());
+    }
+
+    Map<String, PreparedStatement> statements;
+    synchronized (cache) {
+      statements = cache.computeIfAbsent(physical, c -> new HashMap<>());
+    }
+    // A physical connection is only ever used by one borrower at a time.
+    PreparedStatement cached = statements.get(key);
+    if (cached != null && !cached.isClosed()) {
+      cached.clearParameters();
+      stats.hits.incrementAndGet();
+      return cached;
+    }
+
+    PreparedStatement statement =
+        query.returnsKeys()
+            ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+            : physical.prepareStatement(sql);
+    PreparedStatement handle = track(statement, stats, "sql." + key);
+    statements.put(key, handle);
+    stats.prepares.incrementAndGet();
+    return handle;
+  }
+
+  /**
+   * Wraps a statement so executions are counted and timed and {@code close()} leaves it open for
+   * reuse. The statement is closed along with its connection.
+   */
+  private static PreparedStatement track(
+      PreparedStatement statement, Counters stats, String metric) {
+    return (PreparedStatement)
+        Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "close":
+                  return null;
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                  stats.executions.incrementAndGet();
+                  Metrics.Timing timing = Metrics.start(metric);
+                  try {
+                    Object result = method.invoke(statement, args);
+                    return result instanceof ResultSet rs ? countRows(rs, metric) : result;
+                  } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                  } finally {
+                    timing.stop();
+                  }
+                default:
+                  break;
+              }
+              try {
+                return method.invoke(statement, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+
+  /** Wraps a result set so the rows read from it are added to a metric when it is closed. */
+  private static ResultSet countRows(ResultSet rs, String metric) {
+    long[] rows = {0};
+    boolean[] closed = {false};
+    return (ResultSet)
+        Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "close":
+                  if (!closed[0]) {
+                    closed[0] = true;
+                    Metrics.addRows(metric, rows[0]);
+                  }
+                  break;
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                default:
+                  break;
+              }
+              try {
+                Object result = method.invoke(rs, args);
+                if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                  rows[0]++;
+                }
+                return result;
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+
+  /** Usage counters for one statement. */
+  private static final class Counters {
+    private final AtomicLong prepares = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+  }
+}
@@ -0,0 +1,125 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Renders fixed-width, column-aligned rows through a single buffered writer.
+ *
+ * <p>Column widths are fixed up front so rows can be written as they are streamed from the
+ * database, without holding the result set in memory to measure it. Values wider than their column
+ * are truncated with a trailing {@code ~}.
+ */
+public class TableWriter {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String COLUMN_GAP = "  ";
+
+  private final Writer out;
+  private final String[] headers;
+  private final int[] widths;
+  private final StringBuilder line = new StringBuilder(256);
+
+  /**
+   * Creates a table writer.
+   *
+   * @param out The writer to render to. It is flushed but never closed by this class.
+   * @param headers The column headings.
+   * @param widths The width of each column in characters.
+   */
+  public TableWriter(Writer out, String[] headers, int[] widths) {
+    if (headers.length != widths.length) {
+      throw new IllegalArgumentException("Each column needs exactly one width");
+    }
+    this.out = out;
+    this.headers = headers.clone();
+    this.widths = widths.clone();
+  }
+
+  /**
+   * Creates a table writer that renders to standard output.
+   *
+   * @param headers The column headings.
+   * @param widths The width of each column in characters.
+   * @return A table writer buffering output to the console.
+   */
+  public static TableWriter toConsole(String[] headers, int[] widths) {
+    Writer console =
+        new BufferedWriter(
+            new OutputStreamWriter(
+                Metrics.timeWrites(System.out, "console.output"), Charset.defaultCharset()),
+            BUFFER_SIZE);
+    return new TableWriter(console, headers, widths);
+  }
+
+  /** Writes the column headings followed by a separator line. */
+  public void writeHeader() {
+    writeRow((Object[]) headers);
+    line.setLength(0);
+    for (int i = 0; i < widths.length; i++) {
+      if (i > 0) {
+        line.append(COLUMN_GAP);
+      }
+      line.append("-".repeat(widths[i]));
+    }
+    emit();
+  }
+
+  /**
+   * Writes one row. Missing trailing cells are left blank.
+   *
+   * @param cells The cell values, rendered with {@link String#valueOf(Object)}.
+   */
+  public void writeRow(Object... cells) {
+    line.setLength(0);
+    for (int i = 0; i < widths.length; i++) {
+      if (i > 0) {
+        line.append(COLUMN_GAP);
+      }
+      String value = i < cells.length ? String.valueOf(cells[i]) : "";
+      int width = widths[i];
+      if (value.length() > width) {
+        line.append(value, 0, width - 1).append('~');
+      } else {
+        line.append(value);
+        // The last column is not padded so lines carry no trailing whitespace.
+        if (i < widths.length - 1) {
+          for (int pad = value.length(); pad < width; pad++) {
+            line.append(' ');
+          }
+        }
+      }
+    }
+    emit();
+  }
+
+  /**
+   * Writes a free-form line, such as a page footer.
+   *
+   * @param text The text to write.
+   */
+  public void writeLine(String text) {
+    line.setLength(0);
+    line.append(text);
+    emit();
+  }
+
+  /** Pushes buffered rows to the underlying writer. */
+  public void flush() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void emit() {
+    try {
+      line.append(System.lineSeparator());
+      out.append(line);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
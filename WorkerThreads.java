@@ -0,0 +1,33 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Creates the executors that requests and concurrent queries run on. */
+final class WorkerThreads {
+  private WorkerThreads() {}
+
+  /**
+   * Returns a virtual-thread-per-task executor if this JVM has one (Java 21 and later), or a fixed
+   * pool of daemon platform threads otherwise.
+   *
+   * @param name The name given to platform threads, followed by a number.
+   * @param threads The number of platform threads, if virtual threads are not available.
+   * @return The executor.
+   */
+  static ExecutorService newExecutor(String name, int threads) {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      return Executors.newFixedThreadPool(
+          threads,
+          task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+    }
+  }
+}
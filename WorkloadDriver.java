@@ -0,0 +1,389 @@
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a mix of searches, listings, adds, updates and finalisations from several threads at a
+ * target rate, and reports the throughput and latency percentiles of each kind of operation.
+ *
+ * <p>Operations go through {@link ProjectCommands}, as scripts and HTTP requests do, each on a
+ * connection borrowed from the pool. With a target rate, each thread starts operations on a fixed
+ * schedule and latency is measured from when an operation was due to start, so time spent queued
+ * behind a slow operation is counted rather than hidden. A rate of 0 runs each thread flat out.
+ *
+ * <p>By default it runs against the H2 database {@link DataGenerator} fills, and seeds it first if
+ * it has fewer projects than {@code --projects}:
+ *
+ * <pre>
+ * java -cp .:h2.jar WorkloadDriver --projects 100000 --threads 8 --rate 400 --seconds 60 \
+ *     --mix search=40,list=20,add=15,update=15,finalise=10 --out workload.json
+ * </pre>
+ */
+public class WorkloadDriver {
+  private static final String DEFAULT_MIX = "search=40,list=20,add=15,update=15,finalise=10";
+
+  private final Map<Kind, Integer> mix;
+  private final int threads;
+  private final double rate;
+  private final long durationNanos;
+  private final Map<Kind, Stats> stats = new EnumMap<>(Kind.class);
+  private final ConcurrentLinkedQueue<Integer> unfinalised = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger highestId = new AtomicInteger();
+  private DataGenerator.Zipf hotProjects;
+
+  private WorkloadDriver(Map<Kind, Integer> mix, int threads, double rate, int seconds) {
+    this.mix = mix;
+    this.threads = threads;
+    this.rate = rate;
+    this.durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+    for (Kind kind : Kind.values()) {
+      stats.put(kind, new Stats());
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int projects = 100_000;
+    int threads = 8;
+    double rate = 200;
+    int seconds = 30;
+    Map<Kind, Integer> mix = null;
+    Path out = null;
+    boolean force = false;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--projects" -> projects = Integer.parseInt(args[++i]);
+          case "--threads" -> threads = Integer.parseInt(args[++i]);
+          case "--rate" -> rate = Double.parseDouble(args[++i]);
+          case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+          case "--mix" -> mix = parseMix(args[++i]);
+          case "--out" -> out = Path.of(args[++i]);
+          case "--force" -> force = true;
+          default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+      if (threads < 1 || seconds < 1 || rate < 0) {
+        throw new IllegalArgumentException("--threads and --seconds must be positive");
+      }
+      if (mix == null) {
+        mix = parseMix(DEFAULT_MIX);
+      }
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      System.err.println(e.getMessage());
+      System.err.println(
+          "Usage: java WorkloadDriver [--projects N] [--threads N] [--rate ops/s] [--seconds N]"
+              + " [--mix search=40,list=20,add=15,update=15,finalise=10] [--out file.json]"
+              + " [--force]");
+      System.exit(2);
+    }
+    DataGenerator.useLocalDatabase(force);
+
+    WorkloadDriver driver = new WorkloadDriver(mix, threads, rate, seconds);
+    try {
+      driver.prepare(projects);
+      long elapsed = driver.run();
+      driver.printResults(elapsed);
+      if (out != null) {
+        Files.writeString(out, driver.toJson(elapsed), StandardCharsets.UTF_8);
+        System.out.println("Results written to " + out);
+      }
+    } finally {
+      DatabaseConnectionManager.shutdown();
+    }
+  }
+
+  /**
+   * Parses an operation mix such as {@code search=40,list=20}.
+   *
+   * @param text The mix; weights are relative and need not add up to 100.
+   * @return The weight of each operation.
+   * @throws IllegalArgumentException If an operation or weight is invalid.
+   */
+  static Map<Kind, Integer> parseMix(String text) {
+    Map<Kind, Integer> weights = new EnumMap<>(Kind.class);
+    for (String part : text.split(",")) {
+      String[] pair = part.trim().split("=", 2);
+      Kind kind;
+      try {
+        kind = Kind.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown operation in mix: " + pair[0]);
+      }
+      if (pair.length != 2 || !pair[1].trim().matches("\\d{1,6}")) {
+        throw new IllegalArgumentException("Invalid weight for " + pair[0] + " in mix");
+      }
+      weights.put(kind, Integer.parseInt(pair[1].trim()));
+    }
+    if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+      throw new IllegalArgumentException("The mix needs at least one positive weight");
+    }
+    return weights;
+  }
+
+  /** Migrates and seeds the database if needed, and loads the indexes the operations use. */
+  private void prepare(int projects) throws SQLException {
+    try (Connection conn = DatabaseConnectionManager.connect()) {
+      SchemaMigrator.migrate(conn, 1);
+      int existing = count(conn);
+      if (existing < projects) {
+        int missing = projects - existing;
+        DataGenerator.populate(conn, missing, DataGenerator.peopleFor(missing), 42);
+      }
+      SchemaMigrator.migrate(conn);
+      ProjectManager.addListener(ProjectSearchIndex.getInstance());
+      ProjectManager.addListener(DeadlineIndex.getInstance());
+      ProjectSearchIndex.getInstance().rebuild(conn);
+      DeadlineIndex.getInstance().rebuild(conn);
+      try (Statement stmt = conn.createStatement();
+          ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM Project")) {
+        highestId.set(rs.next() ? rs.getInt(1) : 0);
+      }
+    }
+    for (DeadlineIndex.Entry entry : DeadlineIndex.getInstance().incomplete()) {
+      unfinalised.add(entry.projectId());
+    }
+    // Updates favour a small set of busy projects, as real edits do.
+    hotProjects = new DataGenerator.Zipf(Math.max(1, highestId.get()), 0.9);
+    System.err.printf(
+        "Running %s on %d threads for %d s at %s%n",
+        mix,
+        threads,
+        TimeUnit.NANOSECONDS.toSeconds(durationNanos),
+        rate == 0 ? "full speed" : String.format("%.0f ops/s", rate));
+  }
+
+  /** Runs the workload and returns how long it took, in nanoseconds. */
+  private long run() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(threads);
+    long start = System.nanoTime();
+    long end = start + durationNanos;
+    // Each thread takes an equal share of the rate, offset so starts are spread evenly.
+    long interval = rate == 0 ? 0 : Math.round(threads * 1e9 / rate);
+    for (int t = 0; t < threads; t++) {
+      long first = start + (interval * t) / threads;
+      Random random = new Random(t);
+      Thread worker =
+          new Thread(
+              () -> {
+                try {
+                  work(random, first, interval, end);
+                } finally {
+                  done.countDown();
+                }
+              },
+              "workload-" + (t + 1));
+      worker.setDaemon(true);
+      worker.start();
+    }
+    done.await();
+    return System.nanoTime() - start;
+  }
+
+  private void work(Random random, long first, long interval, long end) {
+    int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    long due = first;
+    while (true) {
+      long now = System.nanoTime();
+      if (interval == 0) {
+        due = now;
+      } else if (due > now) {
+        LockSupport.parkNanos(due - now);
+      }
+      if (due >= end) {
+        return;
+      }
+      Kind kind = pick(random, totalWeight);
+      Stats kindStats = stats.get(kind);
+      try (Connection conn = DatabaseConnectionManager.connect()) {
+        run(conn, kind, random);
+      } catch (SQLException | RuntimeException e) {
+        kindStats.errors.increment();
+      }
+      kindStats.latency.record(System.nanoTime() - due);
+      due += interval;
+    }
+  }
+
+  private Kind pick(Random random, int totalWeight) {
+    int roll = random.nextInt(totalWeight);
+    for (Map.Entry<Kind, Integer> entry : mix.entrySet()) {
+      roll -= entry.getValue();
+      if (roll < 0) {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalStateException("Mix weights changed");
+  }
+
+  private void run(Connection conn, Kind kind, Random random) throws SQLException {
+    Map<String, String> args = new HashMap<>();
+    String command =
+        switch (kind) {
+          case SEARCH -> {
+            args.put("query", searchTerm(random));
+            args.put("limit", "20");
+            yield "search";
+          }
+          case LIST -> {
+            String filter =
+                switch (random.nextInt(3)) {
+                  case 0 -> "incomplete";
+                  case 1 -> "overdue";
+                  default -> "all";
+                };
+            args.put("filter", filter);
+            if (filter.equals("all")) {
+              args.put("after", String.valueOf(random.nextInt(Math.max(1, highestId.get()))));
+            }
+            yield "list";
+          }
+          case ADD -> {
+            args.put(
+                "building_type",
+                DataGenerator.BUILDING_TYPES[random.nextInt(DataGenerator.BUILDING_TYPES.length)]);
+            args.put(
+                "address",
+                (1 + random.nextInt(400))
+                    + " "
+                    + DataGenerator.STREETS[random.nextInt(DataGenerator.STREETS.length)]);
+            args.put("erf_number", "ERF-" + random.nextInt(200_000));
+            args.put("total_fee", String.valueOf(50_000 + random.nextInt(950_000)));
+            args.put("amount_paid", "0");
+            args.put("deadline", LocalDate.now().plusDays(30 + random.nextInt(365)).toString());
+            // The generator numbers people from 1, so low IDs always exist.
+            args.put("customer_id", String.valueOf(1 + random.nextInt(10)));
+            args.put("architect_id", String.valueOf(1 + random.nextInt(10)));
+            args.put("project_manager_id", String.valueOf(1 + random.nextInt(10)));
+            yield "add";
+          }
+          case UPDATE -> {
+            args.put("id", String.valueOf(1 + hotProjects.next(random)));
+            args.put("deadline", LocalDate.now().plusDays(random.nextInt(365)).toString());
+            yield "update";
+          }
+          case FINALISE -> {
+            Integer id = unfinalised.poll();
+            args.put("id", String.valueOf(id != null ? id : 1 + random.nextInt(highestId.get())));
+            yield "finalise";
+          }
+        };
+    String json = ProjectCommands.execute(conn, command, args);
+    if (kind == Kind.ADD) {
+      // The result starts with the new project's ID: {"id":123,...
+      int id = Integer.parseInt(json.substring("{\"id\":".length(), json.indexOf(',')));
+      highestId.accumulateAndGet(id, Math::max);
+    }
+  }
+
+  private String searchTerm(Random random) {
+    return switch (random.nextInt(4)) {
+      case 0 -> DataGenerator.SURNAMES[random.nextInt(DataGenerator.SURNAMES.length)];
+      case 1 -> DataGenerator.STREETS[random.nextInt(DataGenerator.STREETS.length)];
+      case 2 ->
+          DataGenerator.BUILDING_TYPES[random.nextInt(DataGenerator.BUILDING_TYPES.length)]
+              + " "
+              + DataGenerator.SURNAMES[random.nextInt(DataGenerator.SURNAMES.length)];
+      default -> String.valueOf(1 + random.nextInt(Math.max(1, highestId.get())));
+    };
+  }
+
+  private static int count(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Project")) {
+      return rs.next() ? rs.getInt(1) : 0;
+    }
+  }
+
+  private void printResults(long elapsedNanos) {
+    TableWriter table =
+        TableWriter.toConsole(
+            new String[] {"Operation", "Count", "Errors", "Ops/s", "p50", "p99", "p99.9", "Max"},
+            new int[] {10, 9, 7, 9, 10, 10, 10, 10});
+    table.writeHeader();
+    double seconds = elapsedNanos / 1e9;
+    long total = 0;
+    for (Map.Entry<Kind, Stats> entry : stats.entrySet()) {
+      LatencyHistogram latency = entry.getValue().latency;
+      if (latency.count() == 0) {
+        continue;
+      }
+      total += latency.count();
+      table.writeRow(
+          entry.getKey().name().toLowerCase(Locale.ROOT),
+          latency.count(),
+          entry.getValue().errors.sum(),
+          String.format("%.1f", latency.count() / seconds),
+          LatencyHistogram.format(latency.percentileNanos(50)),
+          LatencyHistogram.format(latency.percentileNanos(99)),
+          LatencyHistogram.format(latency.percentileNanos(99.9)),
+          LatencyHistogram.format(latency.maxNanos()));
+    }
+    table.writeLine(
+        String.format("%,d operations in %.1f s (%.1f ops/s)", total, seconds, total / seconds));
+    table.flush();
+  }
+
+  private String toJson(long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    StringBuilder json = new StringBuilder("{\"threads\":").append(threads);
+    json.append(",\"target_rate\":").append(rate);
+    json.append(String.format(Locale.ROOT, ",\"seconds\":%.3f", seconds));
+    json.append(",\"operations\":{");
+    boolean first = true;
+    for (Map.Entry<Kind, Stats> entry : stats.entrySet()) {
+      LatencyHistogram latency = entry.getValue().latency;
+      if (latency.count() == 0) {
+        continue;
+      }
+      json.append(first ? "" : ",");
+      json.append('"').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append("\":{");
+      json.append("\"count\":").append(latency.count());
+      json.append(",\"errors\":").append(entry.getValue().errors.sum());
+      json.append(
+          String.format(Locale.ROOT, ",\"ops_per_second\":%.3f", latency.count() / seconds));
+      appendMillis(json, "mean_ms", latency.meanNanos());
+      appendMillis(json, "p50_ms", latency.percentileNanos(50));
+      appendMillis(json, "p99_ms", latency.percentileNanos(99));
+      appendMillis(json, "p999_ms", latency.percentileNanos(99.9));
+      appendMillis(json, "max_ms", latency.maxNanos());
+      json.append('}');
+      first = false;
+    }
+    return json.append("}}\n").toString();
+  }
+
+  private static void appendMillis(StringBuilder json, String key, double nanos) {
+    json.append(String.format(Locale.ROOT, ",\"%s\":%.3f", key, nanos / 1e6));
+  }
+
+  /** The kinds of operation in a workload. */
+  enum Kind {
+    SEARCH,
+    LIST,
+    ADD,
+    UPDATE,
+    FINALISE
+  }
+
+  /** Latency and error counts for one kind of operation. */
+  private static final class Stats {
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LongAdder errors = new LongAdder();
+  }
+}